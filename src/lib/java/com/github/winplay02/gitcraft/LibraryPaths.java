@@ -14,6 +14,8 @@ public class LibraryPaths {
 	public static Path CURRENT_WORKING_DIRECTORY = null;
 	public static Path MAIN_ARTIFACT_STORE = null;
 	public static Path MAVEN_CACHE = null;
+	public static Path STEP_DURATIONS = null;
+	public static Path CHECKSUM_CACHE = null;
 	public static Path TMP_DIR = null;
 
 	public static void init(Path currentWorkingDirectory) throws IOException {
@@ -23,6 +25,8 @@ public class LibraryPaths {
 		CURRENT_WORKING_DIRECTORY = currentWorkingDirectory;
 		MAIN_ARTIFACT_STORE = CURRENT_WORKING_DIRECTORY.resolve("artifact-store");
 		MAVEN_CACHE = MAIN_ARTIFACT_STORE.resolve("maven-cache.json");
+		STEP_DURATIONS = MAIN_ARTIFACT_STORE.resolve("step-durations.json");
+		CHECKSUM_CACHE = MAIN_ARTIFACT_STORE.resolve("checksum-cache");
 		TMP_DIR = CURRENT_WORKING_DIRECTORY.resolve("tmp");
 		Files.createDirectories(MAIN_ARTIFACT_STORE);
 		Files.createDirectories(TMP_DIR);
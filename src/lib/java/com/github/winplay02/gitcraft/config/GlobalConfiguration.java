@@ -24,6 +24,14 @@ import static com.github.winplay02.gitcraft.config.Configuration.Utils.prim;
  * @param maxConcurrentHttpConnections Max amount of HTTP/1.1 connections can be used
  * @param maxConcurrentHttpRequestsPerOrigin Max amount of HTTP Requests that are in flight at a given time per origin
  * @param maxParallelPipelineSteps Max amount of pipeline steps that can be processed in parallel (0 means unlimited)
+ * @param maxParallelNetworkSteps Max amount of network-bound pipeline steps that can be processed in parallel (0 means unlimited)
+ * @param maxParallelCpuSteps Max amount of computation-bound pipeline steps that can be processed in parallel (0 means unlimited)
+ * @param maxParallelHeavyMemorySteps Max amount of memory-heavy pipeline steps that can be processed in parallel (0 means unlimited)
+ * @param maxParallelGitSteps Max amount of repository-bound pipeline steps that can be processed in parallel (0 means unlimited)
+ * @param maxParallelDiskIoSteps Max amount of filesystem-bound pipeline steps that can be processed in parallel (0 means unlimited)
+ * @param heapBudgetPercentage Percentage of the max heap, that the estimated heap costs of concurrently running pipeline steps may use (0 means unlimited)
+ * @param offline Whether manifests and metadata are only read from previously fetched responses, without contacting the network
+ * @param incrementalDecompilation Whether only classes, that changed compared to the previous version, are decompiled (the sources of unchanged classes are reused)
  */
 public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 								  boolean printExistingFileChecksumMatching,
@@ -36,7 +44,15 @@ public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 								  int maxConcurrentHttpStreams,
 								  int maxConcurrentHttpConnections,
 								  int maxConcurrentHttpRequestsPerOrigin,
-								  int maxParallelPipelineSteps)
+								  int maxParallelPipelineSteps,
+								  int maxParallelNetworkSteps,
+								  int maxParallelCpuSteps,
+								  int maxParallelHeavyMemorySteps,
+								  int maxParallelGitSteps,
+								  int maxParallelDiskIoSteps,
+								  int heapBudgetPercentage,
+								  boolean offline,
+								  boolean incrementalDecompilation)
 	implements Configuration {
 
 	public static final int DEFAULT_FETCH_RETRY_INTERVAL = 500;
@@ -45,6 +61,7 @@ public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 	public static final int DEFAULT_MAX_CONCURRENT_HTTP_STREAMS = 8;
 	public static final int DEFAULT_MAX_CONCURRENT_HTTP_CONNECTIONS = 8;
 	public static final int DEFAULT_MAX_CONCURRENT_HTTP_REQUESTS_PER_ORIGIN = 32;
+	public static final int DEFAULT_HEAP_BUDGET_PERCENTAGE = 75;
 
 	public static final GlobalConfiguration DEFAULT = new GlobalConfiguration(
 		true,
@@ -58,7 +75,15 @@ public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 		DEFAULT_MAX_CONCURRENT_HTTP_STREAMS,
 		DEFAULT_MAX_CONCURRENT_HTTP_CONNECTIONS,
 		DEFAULT_MAX_CONCURRENT_HTTP_REQUESTS_PER_ORIGIN,
-		0
+		0,
+		0,
+		0,
+		0,
+		0,
+		0,
+		DEFAULT_HEAP_BUDGET_PERCENTAGE,
+		false,
+		false
 	);
 
 	public GlobalConfiguration {
@@ -89,6 +114,30 @@ public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 		if (maxParallelPipelineSteps < 0) {
 			maxParallelPipelineSteps = DEFAULT.maxParallelPipelineSteps();
 		}
+
+		if (maxParallelNetworkSteps < 0) {
+			maxParallelNetworkSteps = DEFAULT.maxParallelNetworkSteps();
+		}
+
+		if (maxParallelCpuSteps < 0) {
+			maxParallelCpuSteps = DEFAULT.maxParallelCpuSteps();
+		}
+
+		if (maxParallelHeavyMemorySteps < 0) {
+			maxParallelHeavyMemorySteps = DEFAULT.maxParallelHeavyMemorySteps();
+		}
+
+		if (maxParallelGitSteps < 0) {
+			maxParallelGitSteps = DEFAULT.maxParallelGitSteps();
+		}
+
+		if (maxParallelDiskIoSteps < 0) {
+			maxParallelDiskIoSteps = DEFAULT.maxParallelDiskIoSteps();
+		}
+
+		if (heapBudgetPercentage < 0 || heapBudgetPercentage > 100) {
+			heapBudgetPercentage = DEFAULT_HEAP_BUDGET_PERCENTAGE;
+		}
 	}
 
 	@Override
@@ -109,7 +158,15 @@ public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 			),
 			Map.of(
 				"maxConcurrentHttpRequestsPerOrigin", prim(this.maxConcurrentHttpRequestsPerOrigin()),
-				"maxParallelPipelineSteps", prim(this.maxParallelPipelineSteps())
+				"maxParallelPipelineSteps", prim(this.maxParallelPipelineSteps()),
+				"maxParallelNetworkSteps", prim(this.maxParallelNetworkSteps()),
+				"maxParallelCpuSteps", prim(this.maxParallelCpuSteps()),
+				"maxParallelHeavyMemorySteps", prim(this.maxParallelHeavyMemorySteps()),
+				"maxParallelGitSteps", prim(this.maxParallelGitSteps()),
+				"maxParallelDiskIoSteps", prim(this.maxParallelDiskIoSteps()),
+				"heapBudgetPercentage", prim(this.heapBudgetPercentage()),
+				"offline", prim(this.offline()),
+				"incrementalDecompilation", prim(this.incrementalDecompilation())
 			)
 		);
 	}
@@ -119,7 +176,11 @@ public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 		return List.of(
 			String.format("Remapping Threads: %s", this.remappingThreads()),
 			String.format("Decompiling Threads: %s", this.decompilingThreads()),
-			String.format("Max Concurrent Https Requests / Streams / Connections: %s / %s / %s", this.maxConcurrentHttpRequestsPerOrigin(), this.maxConcurrentHttpStreams(), this.maxConcurrentHttpConnections())
+			String.format("Max Concurrent Https Requests / Streams / Connections: %s / %s / %s", this.maxConcurrentHttpRequestsPerOrigin(), this.maxConcurrentHttpStreams(), this.maxConcurrentHttpConnections()),
+			String.format("Max Parallel Pipeline Steps (Total / Network / CPU / Heavy Memory / Git / Disk IO): %s / %s / %s / %s / %s / %s", this.maxParallelPipelineSteps(), this.maxParallelNetworkSteps(), this.maxParallelCpuSteps(), this.maxParallelHeavyMemorySteps(), this.maxParallelGitSteps(), this.maxParallelDiskIoSteps()),
+			String.format("Heap Budget for Pipeline Steps: %s percent of the max heap", this.heapBudgetPercentage()),
+			String.format("Offline Mode: %s", this.offline() ? "enabled" : "disabled"),
+			String.format("Incremental Decompilation: %s", this.incrementalDecompilation() ? "enabled" : "disabled")
 		);
 	}
 
@@ -136,7 +197,15 @@ public record GlobalConfiguration(boolean checksumRemoveInvalidFiles,
 			Utils.getInt(map, "maxConcurrentHttpStreams", DEFAULT.maxConcurrentHttpStreams()),
 			Utils.getInt(map, "maxConcurrentHttpConnections", DEFAULT.maxConcurrentHttpConnections()),
 			Utils.getInt(map, "maxConcurrentHttpRequestsPerOrigin", DEFAULT.maxConcurrentHttpRequestsPerOrigin()),
-			Utils.getInt(map, "maxParallelPipelineSteps", DEFAULT.maxParallelPipelineSteps())
+			Utils.getInt(map, "maxParallelPipelineSteps", DEFAULT.maxParallelPipelineSteps()),
+			Utils.getInt(map, "maxParallelNetworkSteps", DEFAULT.maxParallelNetworkSteps()),
+			Utils.getInt(map, "maxParallelCpuSteps", DEFAULT.maxParallelCpuSteps()),
+			Utils.getInt(map, "maxParallelHeavyMemorySteps", DEFAULT.maxParallelHeavyMemorySteps()),
+			Utils.getInt(map, "maxParallelGitSteps", DEFAULT.maxParallelGitSteps()),
+			Utils.getInt(map, "maxParallelDiskIoSteps", DEFAULT.maxParallelDiskIoSteps()),
+			Utils.getInt(map, "heapBudgetPercentage", DEFAULT.heapBudgetPercentage()),
+			Utils.getBoolean(map, "offline", DEFAULT.offline()),
+			Utils.getBoolean(map, "incrementalDecompilation", DEFAULT.incrementalDecompilation())
 		);
 	}
 }
@@ -11,7 +11,7 @@ import static com.github.winplay02.gitcraft.config.Configuration.Utils.prim;
  * Configuration for integrity verifying algorithms.
  *
  * @param verifyChecksums Whether checksums should be verified. If this is false, no checksum is actually calculated.
- * @param cacheChecksums  Whether checksums should be cached. If this is false, no checksum is cached and every calculation will start from scratch. When dealing in a malicious environment, this should be disabled as last-modified timestamps can be forged.
+ * @param cacheChecksums  Whether checksums should be cached (also across runs, in the artifact store). If this is false, no checksum is cached and every calculation will start from scratch. When dealing in a malicious environment, this should be disabled as last-modified timestamps can be forged.
  */
 public record IntegrityConfiguration(boolean verifyChecksums,
 									 boolean cacheChecksums)
@@ -29,6 +29,22 @@ public class GitBlobSHA1Algorithm extends IntegrityAlgorithm {
 		return "Git-Blob-SHA1";
 	}
 
+	@Override
+	public StreamingChecksum createStreamingChecksum(long length) {
+		if (length < 0) {
+			return null;
+		}
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA1");
+			digest.update(BLOB_BYTES);
+			digest.update(String.valueOf(length).getBytes(StandardCharsets.US_ASCII));
+			digest.update((byte) 0);
+			return new StreamingChecksum(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	@Override
 	protected <T> byte[] calculateChecksum(T object, BiConsumer<T, BiConsumer<byte[], Integer>> objectBytesExtractor, Function<T, Long> objectLengthExtractor) {
 		try {
@@ -1,14 +1,41 @@
 package com.github.winplay02.gitcraft.integrity;
 
+import com.github.winplay02.gitcraft.LibraryPaths;
 import com.github.winplay02.gitcraft.config.IntegrityConfiguration;
+import com.github.winplay02.gitcraft.util.MiscHelper;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
@@ -18,7 +45,10 @@ import java.util.function.Function;
  * How this value is calculated is up to the implementing algorithm.
  * <p>
  * Calculated checksums may be cached to improve performance, if allowed by the {@link IntegrityConfiguration}.
- * Cached checksums are always checked to be up to date by comparing with the last-modified timestamp of the file.
+ * Cached checksums are always checked to be up to date by comparing with the last-modified timestamp, the size and the file key (e.g. inode) of the file.
+ * <p>
+ * Checksums of files on the default file system are additionally persisted in an append-only cache file per algorithm, so that they survive restarts.
+ * The cache file is loaded lazily on first use, new entries are appended periodically and the file is compacted by {@link #savePersistentCache()}.
  */
 public abstract class IntegrityAlgorithm {
 
@@ -37,8 +67,39 @@ public abstract class IntegrityAlgorithm {
 	 *
 	 * @param hashValue    Checksum
 	 * @param lastModified Last-modified timestamp
+	 * @param size         Size in bytes
+	 * @param fileKey      File key (e.g. device and inode), or an empty string if not provided by the file system
 	 */
-	private record HashValue(String hashValue, FileTime lastModified) {
+	private record HashValue(String hashValue, FileTime lastModified, long size, String fileKey) {
+		private static HashValue of(String hashValue, BasicFileAttributes attributes) {
+			return new HashValue(hashValue, attributes.lastModifiedTime(), attributes.size(), fileKeyOf(attributes));
+		}
+
+		private static String fileKeyOf(BasicFileAttributes attributes) {
+			return attributes.fileKey() != null ? attributes.fileKey().toString() : "";
+		}
+
+		private boolean matches(BasicFileAttributes attributes) {
+			String currentFileKey = fileKeyOf(attributes);
+			return this.lastModified().equals(attributes.lastModifiedTime()) && this.size() == attributes.size() &&
+				(this.fileKey().isEmpty() || currentFileKey.isEmpty() || this.fileKey().equals(currentFileKey));
+		}
+
+		private String serialize(Path path) {
+			return String.join("\t", this.hashValue(), this.lastModified().toInstant().toString(), String.valueOf(this.size()), this.fileKey(), path.toString());
+		}
+
+		private static Map.Entry<Path, HashValue> deserialize(String line) {
+			String[] parts = line.split("\t", 5);
+			if (parts.length != 5) {
+				return null;
+			}
+			try {
+				return Map.entry(Path.of(parts[4]), new HashValue(parts[0], FileTime.from(Instant.parse(parts[1])), Long.parseLong(parts[2]), parts[3]));
+			} catch (DateTimeParseException | IllegalArgumentException e) {
+				return null;
+			}
+		}
 	}
 
 	/**
@@ -46,6 +107,56 @@ public abstract class IntegrityAlgorithm {
 	 */
 	private final ConcurrentHashMap<Path, HashValue> cachedHashes = new ConcurrentHashMap<>();
 
+	/**
+	 * Amount of new entries, after which they are appended to the persistent cache file
+	 */
+	private static final int PERSISTENT_CACHE_FLUSH_ENTRIES = 512;
+
+	/**
+	 * Time in nanoseconds, after which new entries are appended to the persistent cache file
+	 */
+	private static final long PERSISTENT_CACHE_FLUSH_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+	/**
+	 * Minimum file size in bytes, from which on files are memory-mapped for hashing
+	 */
+	private static final long MAPPED_HASHING_THRESHOLD = 1024 * 1024;
+
+	/**
+	 * Size of a region of a file, that is memory-mapped at once for hashing
+	 */
+	private static final long MAPPED_HASHING_REGION_SIZE = 256L * 1024 * 1024;
+
+	/**
+	 * Max amount of files, that are hashed at the same time by {@link #getChecksumFiles(Collection)}
+	 */
+	private static final int MAX_PARALLEL_HASHING = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * Whether the persistent cache file was loaded
+	 */
+	private volatile boolean persistentCacheLoaded = false;
+
+	/**
+	 * Entries not yet appended to the persistent cache file
+	 */
+	private final ConcurrentLinkedQueue<String> pendingPersistentEntries = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Amount of entries not yet appended to the persistent cache file
+	 */
+	private final AtomicInteger pendingPersistentEntryCount = new AtomicInteger();
+
+	/**
+	 * Time of the last append to the persistent cache file
+	 */
+	private volatile long lastPersistentCacheFlush = System.nanoTime();
+
+	/**
+	 * Lock for accessing the persistent cache file
+	 */
+	private final Object persistentCacheLock = new Object();
+
 	/**
 	 * Construct a new abstract integrity algorithms with a configuration.
 	 *
@@ -80,9 +191,22 @@ public abstract class IntegrityAlgorithm {
 	 * @return Calculated checksum as a hexadecimal string
 	 */
 	protected String calculateChecksumFile(Path path) {
+		long fileSize;
+		try {
+			fileSize = Files.size(path);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		StreamingChecksum streamingChecksum = createStreamingChecksum(fileSize);
+		if (streamingChecksum != null) {
+			try {
+				return calculateChecksumFileChannel(path, fileSize, streamingChecksum);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
 		byte[] buffer = new byte[16384];
 		try (InputStream fileInput = Files.newInputStream(path)) {
-			long fileSize = Files.size(path);
 			return formatBytesHex(calculateChecksum(path, (_object, byte_sink) -> {
 				try {
 					int len;
@@ -98,6 +222,34 @@ public abstract class IntegrityAlgorithm {
 		}
 	}
 
+	/**
+	 * Calculate the checksum of a file by feeding its contents into a streaming checksum without intermediate copies.
+	 * Small files are read with a single read into a buffer of the exact size, larger files are memory-mapped region by region.
+	 *
+	 * @param path              Path of the file to hash
+	 * @param fileSize          Size of the file in bytes
+	 * @param streamingChecksum Streaming checksum created for the size of the file
+	 * @return Calculated checksum as a hexadecimal string
+	 * @throws IOException If the file cannot be read
+	 */
+	private static String calculateChecksumFileChannel(Path path, long fileSize, StreamingChecksum streamingChecksum) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (fileSize < MAPPED_HASHING_THRESHOLD) {
+				ByteBuffer buffer = ByteBuffer.allocate((int) fileSize);
+				while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+					// read until the buffer is full or the end of the file is reached
+				}
+				buffer.flip();
+				streamingChecksum.update(buffer);
+			} else {
+				for (long position = 0; position < fileSize; position += MAPPED_HASHING_REGION_SIZE) {
+					streamingChecksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_HASHING_REGION_SIZE, fileSize - position)));
+				}
+			}
+		}
+		return streamingChecksum.finish();
+	}
+
 	/**
 	 * Check whether the cached checksum is up to date, by comparing it with the provided last-modified timestamp.
 	 *
@@ -106,7 +258,7 @@ public abstract class IntegrityAlgorithm {
 	 * @return True if the cached entry contains the same last-modified timestamp, otherwise false
 	 */
 	protected boolean isCachedHashUpToDate(Path path, FileTime lastModified) {
-		HashValue value = cachedHashes.get(path);
+		HashValue value = getCachedHashes().get(cacheKey(path));
 		if (value != null) {
 			return value.lastModified().equals(lastModified);
 		}
@@ -117,25 +269,123 @@ public abstract class IntegrityAlgorithm {
 	 * Get the checksum of a file by either calculating the file or looking up the file in the cache, if caching is enabled by the configuration.
 	 *
 	 * @param path Path of the file to hash
-	 * @return Checksum as a hexadecimal string
+	 * @return Checksum as a hexadecimal string, or null if checksums should not be verified
 	 */
 	public String getChecksumFile(Path path) {
 		if (!configuration.verifyChecksums()) {
 			return null;
 		}
-		FileTime lastModified;
+		return getChecksumFileUnconditionally(path);
+	}
+
+	/**
+	 * Get the checksum of a file by either calculating the file or looking up the file in the cache, if caching is enabled by the configuration.
+	 * In contrast to {@link #getChecksumFile(Path)}, the checksum is also provided if checksums should not be verified, as it may be used to identify contents.
+	 *
+	 * @param path Path of the file to hash
+	 * @return Checksum as a hexadecimal string
+	 */
+	public String getChecksumFileUnconditionally(Path path) {
+		BasicFileAttributes attributes;
 		try {
-			lastModified = Files.getLastModifiedTime(path);
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
-		if (!cachedHashes.containsKey(path) || !cacheHashes || !isCachedHashUpToDate(path, lastModified)) {
-			String hash = calculateChecksumFile(path);
-			if (cacheHashes) {
-				cachedHashes.put(path, new HashValue(hash, lastModified));
+		Path key = cacheKey(path);
+		if (cacheHashes) {
+			HashValue cachedHash = getCachedHashes().get(key);
+			if (cachedHash != null && cachedHash.matches(attributes)) {
+				return cachedHash.hashValue();
 			}
 		}
-		return cachedHashes.get(path).hashValue();
+		String hash = calculateChecksumFile(path);
+		if (cacheHashes) {
+			putCachedHash(key, HashValue.of(hash, attributes));
+		}
+		return hash;
+	}
+
+	/**
+	 * Incremental checksum calculation for data that is not available at once, e.g. data that is being received.
+	 */
+	public static final class StreamingChecksum {
+		private final MessageDigest digest;
+
+		/**
+		 * @param digest Digest, which may already contain a prefix
+		 */
+		StreamingChecksum(MessageDigest digest) {
+			this.digest = digest;
+		}
+
+		/**
+		 * Feed data into the checksum.
+		 *
+		 * @param buffer Data, the position of the buffer is advanced to its limit
+		 */
+		public void update(ByteBuffer buffer) {
+			this.digest.update(buffer);
+		}
+
+		/**
+		 * @return Calculated checksum as a hexadecimal string
+		 */
+		public String finish() {
+			return formatBytesHex(this.digest.digest());
+		}
+	}
+
+	/**
+	 * Create an incremental checksum calculation, if supported by the algorithm.
+	 *
+	 * @param length Total length of the data in bytes, or a negative value if unknown
+	 * @return Incremental checksum calculation, or null if the algorithm cannot calculate the checksum incrementally (e.g. because it requires the unknown length)
+	 */
+	public StreamingChecksum createStreamingChecksum(long length) {
+		return null;
+	}
+
+	/**
+	 * Seed the checksum cache with a checksum, that is already known to be correct for the current contents of a file (e.g. calculated while writing the file).
+	 *
+	 * @param path     Path of the file
+	 * @param checksum Checksum as a hexadecimal string
+	 */
+	public void seedChecksumFile(Path path, String checksum) {
+		if (!cacheHashes) {
+			return;
+		}
+		try {
+			putCachedHash(cacheKey(path), HashValue.of(checksum, Files.readAttributes(path, BasicFileAttributes.class)));
+		} catch (IOException e) {
+			cachedHashes.remove(cacheKey(path));
+		}
+	}
+
+	/**
+	 * Get the checksums of many files (e.g. the objects of an assets store) in parallel, see {@link #getChecksumFile(Path)}.
+	 * The amount of files hashed at the same time is bounded by the amount of available processors. Calculated checksums are added to the cache, if caching is enabled.
+	 *
+	 * @param paths Paths of the files to hash
+	 * @return Checksums as hexadecimal strings by path, empty if checksums should not be verified
+	 */
+	public Map<Path, String> getChecksumFiles(Collection<Path> paths) {
+		if (!configuration.verifyChecksums()) {
+			return Map.of();
+		}
+		Map<Path, String> checksums = new ConcurrentHashMap<>();
+		try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Checksum-Calculator").factory())) {
+			MiscHelper.runTasksInParallelAndAwaitResult(
+				MAX_PARALLEL_HASHING,
+				executor,
+				paths.stream().<Callable<Void>>map(path -> () -> {
+					checksums.put(path, getChecksumFileUnconditionally(path));
+					return null;
+				}).toList()
+			);
+		}
+		return checksums;
 	}
 
 	/**
@@ -169,16 +419,136 @@ public abstract class IntegrityAlgorithm {
 	 * @param path Path of entry to invalidate
 	 */
 	public void invalidateFile(Path path) {
-		cachedHashes.remove(path);
+		cachedHashes.remove(cacheKey(path));
 	}
 
 	/**
-	 * Flush the entire checksum cache.
+	 * Flush the entire checksum cache. The persistent cache file is emptied the next time it is saved.
 	 */
 	public void flushCache() {
 		cachedHashes.clear();
 	}
 
+	/**
+	 * @return Path of the persistent cache file, or null if checksums should not be persisted
+	 */
+	protected Path getPersistentCacheFile() {
+		if (LibraryPaths.CHECKSUM_CACHE == null) {
+			return null;
+		}
+		return LibraryPaths.CHECKSUM_CACHE.resolve(getAlgorithmName().toLowerCase(Locale.ROOT) + ".tsv");
+	}
+
+	/**
+	 * @param path Path of a file
+	 * @return Key of the file in the checksum cache
+	 */
+	private static Path cacheKey(Path path) {
+		return path.toAbsolutePath().normalize();
+	}
+
+	/**
+	 * @param path Key of a file in the checksum cache
+	 * @return Whether the checksum of the file should be persisted
+	 */
+	private static boolean isPersistable(Path path) {
+		return path.getFileSystem() == FileSystems.getDefault();
+	}
+
+	/**
+	 * @return Checksum cache, which is populated from the persistent cache file on first access
+	 */
+	private ConcurrentHashMap<Path, HashValue> getCachedHashes() {
+		if (!persistentCacheLoaded && cacheHashes) {
+			synchronized (persistentCacheLock) {
+				if (!persistentCacheLoaded) {
+					loadPersistentCache();
+					persistentCacheLoaded = true;
+				}
+			}
+		}
+		return cachedHashes;
+	}
+
+	private void loadPersistentCache() {
+		Path cacheFile = getPersistentCacheFile();
+		if (cacheFile == null || !Files.exists(cacheFile)) {
+			return;
+		}
+		Map<Path, HashValue> persistedHashes = new HashMap<>();
+		try (Stream<String> lines = Files.lines(cacheFile, StandardCharsets.UTF_8)) {
+			// later lines are newer and replace earlier entries of the same path
+			lines.map(HashValue::deserialize).filter(Objects::nonNull).forEach(entry -> persistedHashes.put(entry.getKey(), entry.getValue()));
+		} catch (IOException | UncheckedIOException e) {
+			MiscHelper.println("Persistent %s checksum cache %s could not be read and is ignored: %s", getAlgorithmName(), cacheFile, e);
+			return;
+		}
+		persistedHashes.forEach(cachedHashes::putIfAbsent);
+	}
+
+	private void putCachedHash(Path key, HashValue value) {
+		getCachedHashes().put(key, value);
+		if (!isPersistable(key) || getPersistentCacheFile() == null) {
+			return;
+		}
+		pendingPersistentEntries.add(value.serialize(key));
+		if (pendingPersistentEntryCount.incrementAndGet() >= PERSISTENT_CACHE_FLUSH_ENTRIES || System.nanoTime() - lastPersistentCacheFlush >= PERSISTENT_CACHE_FLUSH_INTERVAL) {
+			appendPendingPersistentEntries();
+		}
+	}
+
+	private void appendPendingPersistentEntries() {
+		Path cacheFile = getPersistentCacheFile();
+		synchronized (persistentCacheLock) {
+			lastPersistentCacheFlush = System.nanoTime();
+			List<String> entries = new ArrayList<>();
+			String entry;
+			while ((entry = pendingPersistentEntries.poll()) != null) {
+				entries.add(entry);
+			}
+			pendingPersistentEntryCount.addAndGet(-entries.size());
+			if (entries.isEmpty() || cacheFile == null) {
+				return;
+			}
+			try {
+				Files.createDirectories(cacheFile.getParent());
+				Files.write(cacheFile, entries, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+			} catch (IOException e) {
+				MiscHelper.println("Persistent %s checksum cache %s could not be written: %s", getAlgorithmName(), cacheFile, e);
+			}
+		}
+	}
+
+	/**
+	 * Save the persistent cache file, by rewriting it with only the current entries of the checksum cache (compaction).
+	 * Nothing is written, if caching is disabled or the cache was never used.
+	 */
+	public void savePersistentCache() {
+		Path cacheFile = getPersistentCacheFile();
+		if (cacheFile == null || !cacheHashes || !persistentCacheLoaded) {
+			return;
+		}
+		synchronized (persistentCacheLock) {
+			pendingPersistentEntries.clear();
+			pendingPersistentEntryCount.set(0);
+			try {
+				Files.createDirectories(cacheFile.getParent());
+				Path tmpFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+				try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+					for (Map.Entry<Path, HashValue> entry : cachedHashes.entrySet()) {
+						if (isPersistable(entry.getKey())) {
+							writer.write(entry.getValue().serialize(entry.getKey()));
+							writer.newLine();
+						}
+					}
+				}
+				Files.move(tmpFile, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				MiscHelper.println("Persistent %s checksum cache %s could not be written: %s", getAlgorithmName(), cacheFile, e);
+			}
+		}
+	}
+
 	/// Integrity Checking Utility Functions
 
 	/**
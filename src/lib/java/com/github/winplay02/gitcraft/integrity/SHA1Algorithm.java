@@ -26,6 +26,15 @@ public class SHA1Algorithm extends IntegrityAlgorithm {
 		return "SHA1";
 	}
 
+	@Override
+	public StreamingChecksum createStreamingChecksum(long length) {
+		try {
+			return new StreamingChecksum(MessageDigest.getInstance("SHA1"));
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	@Override
 	protected <T> byte[] calculateChecksum(T object, BiConsumer<T, BiConsumer<byte[], Integer>> objectBytesExtractor, Function<T, Long> objectLengthExtractor) {
 		try {
@@ -0,0 +1,217 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+import com.github.winplay02.gitcraft.Library;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Store of step outputs, addressed by a key derived from the identity of the producing step, its relevant configuration and the contents of all its inputs.
+ * Additionally, an index remembers which key produced the output currently present at a path (relative to the workspace, so that the workspace can be moved),
+ * so that outputs can be detected as stale once any of their inputs change.
+ * Objects are hardlinked to and from outputs where possible, so outputs must be replaced instead of being modified in place.
+ *
+ * @param root Root directory of the store
+ * @param workspace Directory, that paths of outputs are recorded relative to
+ */
+public record ContentAddressedStore(Path root, Path workspace) {
+
+	private static final String OBJECTS = "objects";
+	private static final String INDEX = "index";
+	private static final String TMP_OBJECT_MARKER = ".tmp-";
+
+	/**
+	 * Creates a key for a step output.
+	 *
+	 * @param step Identity of the producing step
+	 * @param configuration Configuration of the producing step, that is relevant for the output
+	 * @param inputs All input files of the step, that contribute to the output
+	 * @return Key
+	 */
+	public String createKey(String step, String configuration, List<Path> inputs) {
+		StringBuilder keyMaterial = new StringBuilder();
+		keyMaterial.append(step).append('\u0000').append(configuration);
+		for (Path input : inputs) {
+			keyMaterial.append('\u0000').append(Library.IA_SHA1.getChecksumFileUnconditionally(input));
+		}
+		return sha1(keyMaterial.toString());
+	}
+
+	/**
+	 * @param output Path of an output
+	 * @return Key, that produced the output currently present at the provided path, or empty if it is unknown
+	 * @throws IOException If the index cannot be read
+	 */
+	public Optional<String> producedKey(Path output) throws IOException {
+		try {
+			return Optional.of(readIndexEntry(this.indexPath(output)).key());
+		} catch (NoSuchFileException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Restores an output from the store, by hardlinking it if possible, otherwise by copying it.
+	 *
+	 * @param key Key of the output
+	 * @param output Path to restore the output to, must not exist
+	 * @return Whether the store contained the output
+	 * @throws IOException If the output cannot be restored
+	 */
+	public boolean restore(String key, Path output) throws IOException {
+		Path object = this.objectPath(key);
+		if (!Files.exists(object)) {
+			return false;
+		}
+		Files.createDirectories(output.getParent());
+		transfer(object, output);
+		this.writeIndex(output, key);
+		return true;
+	}
+
+	/**
+	 * Adds an output to the store (if not already present) and records it in the index.
+	 *
+	 * @param key Key of the output
+	 * @param output Path of the output
+	 * @throws IOException If the output cannot be stored
+	 */
+	public void store(String key, Path output) throws IOException {
+		Path object = this.objectPath(key);
+		if (!Files.exists(object)) {
+			Files.createDirectories(object.getParent());
+			Path tmpObject = object.resolveSibling(object.getFileName() + TMP_OBJECT_MARKER + Thread.currentThread().threadId());
+			Files.deleteIfExists(tmpObject);
+			transfer(output, tmpObject);
+			try {
+				Files.move(tmpObject, object, StandardCopyOption.ATOMIC_MOVE);
+			} catch (FileAlreadyExistsException e) {
+				// stored concurrently by another step
+				Files.deleteIfExists(tmpObject);
+			}
+		}
+		this.writeIndex(output, key);
+	}
+
+	/**
+	 * Evicts objects, that are not referenced by the output of any index entry anymore (e.g. outputs of changed inputs or of other configurations),
+	 * least recently stored first, until all unreferenced objects take at most the provided amount of bytes.
+	 * Referenced objects are kept, as they usually share their contents with the present outputs. Index entries of outputs, that do not exist anymore, are removed.
+	 *
+	 * @param maxUnreferencedBytes Maximum amount of bytes, that unreferenced objects may take
+	 * @return Amount of evicted objects
+	 * @throws IOException If the store cannot be read or objects cannot be deleted
+	 */
+	public int evictUnreferenced(long maxUnreferencedBytes) throws IOException {
+		Path objectsRoot = this.root.resolve(OBJECTS);
+		if (!Files.isDirectory(objectsRoot)) {
+			return 0;
+		}
+		Set<String> referencedKeys = new HashSet<>();
+		Path indexRoot = this.root.resolve(INDEX);
+		if (Files.isDirectory(indexRoot)) {
+			try (Stream<Path> indexPaths = Files.list(indexRoot)) {
+				for (Path indexPath : indexPaths.toList()) {
+					IndexEntry indexEntry = readIndexEntry(indexPath);
+					if (indexEntry.output() != null && Files.exists(this.workspace.resolve(indexEntry.output()))) {
+						referencedKeys.add(indexEntry.key());
+					} else {
+						Files.deleteIfExists(indexPath);
+					}
+				}
+			}
+		}
+		record StoredObject(Path path, long size, long stored) {
+		}
+		List<StoredObject> unreferencedObjects = new ArrayList<>();
+		long unreferencedBytes = 0L;
+		try (Stream<Path> objectPaths = Files.walk(objectsRoot)) {
+			for (Path objectPath : objectPaths.filter(Files::isRegularFile).toList()) {
+				String key = objectPath.getFileName().toString();
+				if (key.contains(TMP_OBJECT_MARKER) || referencedKeys.contains(key)) {
+					continue;
+				}
+				StoredObject object = new StoredObject(objectPath, Files.size(objectPath), Files.getLastModifiedTime(objectPath).toMillis());
+				unreferencedObjects.add(object);
+				unreferencedBytes += object.size();
+			}
+		}
+		unreferencedObjects.sort(Comparator.comparingLong(StoredObject::stored));
+		int evictedObjects = 0;
+		for (StoredObject object : unreferencedObjects) {
+			if (unreferencedBytes <= maxUnreferencedBytes) {
+				break;
+			}
+			Files.deleteIfExists(object.path());
+			unreferencedBytes -= object.size();
+			++evictedObjects;
+		}
+		return evictedObjects;
+	}
+
+	/**
+	 * @param key Key of the output, that is present at the path
+	 * @param output Path of the output relative to the workspace, or null if the entry does not record it
+	 */
+	private record IndexEntry(String key, String output) {
+	}
+
+	private Path objectPath(String key) {
+		return this.root.resolve(OBJECTS).resolve(key.substring(0, 2)).resolve(key);
+	}
+
+	private String relativeOutputPath(Path output) {
+		return this.workspace.toAbsolutePath().normalize().relativize(output.toAbsolutePath().normalize()).toString().replace('\\', '/');
+	}
+
+	private Path indexPath(Path output) {
+		return this.root.resolve(INDEX).resolve(sha1(this.relativeOutputPath(output)));
+	}
+
+	private static IndexEntry readIndexEntry(Path indexPath) throws IOException {
+		String[] lines = Files.readString(indexPath, StandardCharsets.UTF_8).split("\n");
+		return new IndexEntry(lines[0].trim(), lines.length > 1 ? lines[1].trim() : null);
+	}
+
+	private void writeIndex(Path output, String key) throws IOException {
+		Path indexPath = this.indexPath(output);
+		Files.createDirectories(indexPath.getParent());
+		Files.writeString(indexPath, key + "\n" + this.relativeOutputPath(output), StandardCharsets.UTF_8);
+	}
+
+	private static void transfer(Path source, Path target) throws IOException {
+		if (source.getFileSystem().equals(target.getFileSystem())) {
+			try {
+				Files.createLink(target, source);
+				return;
+			} catch (UnsupportedOperationException | IOException ignored) {
+				// e.g. different file stores, fall back to copying
+				Files.deleteIfExists(target);
+			}
+		}
+		Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static String sha1(String value) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA1").digest(value.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
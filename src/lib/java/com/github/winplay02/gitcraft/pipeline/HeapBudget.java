@@ -0,0 +1,42 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+/**
+ * Admission control for heap-intensive steps.
+ * Steps are only dispatched, once the sum of the estimated heap costs of all running steps (including the new one) fits in the budget.
+ * A step, whose estimated cost exceeds the whole budget, is admitted once no other step holds any part of the budget.
+ */
+public final class HeapBudget {
+	private final long capacity;
+	private long used = 0L;
+
+	public HeapBudget(long capacity) {
+		this.capacity = capacity;
+	}
+
+	public static HeapBudget ofMaxHeapPercentage(int percentage) {
+		return new HeapBudget(Runtime.getRuntime().maxMemory() / 100L * percentage);
+	}
+
+	public long capacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Acquires part of the budget, if it is available.
+	 *
+	 * @param cost Estimated heap cost
+	 * @return Whether the cost was admitted, in which case it has to be released using {@link #release(long)}
+	 */
+	public synchronized boolean tryAcquire(long cost) {
+		long clampedCost = Math.min(cost, this.capacity);
+		if (this.used > 0 && this.used + clampedCost > this.capacity) {
+			return false;
+		}
+		this.used += clampedCost;
+		return true;
+	}
+
+	public synchronized void release(long cost) {
+		this.used -= Math.min(cost, this.capacity);
+	}
+}
@@ -8,9 +8,14 @@ import com.github.winplay02.gitcraft.util.MiscHelper;
 import com.github.winplay02.gitcraft.util.RepoWrapper;
 import com.github.winplay02.gitcraft.util.Tuple2;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -23,6 +28,10 @@ public final class IPipeline<T extends AbstractVersion<T>, C extends IStepContex
 	private final Map<Tuple2<StorageKey, T>, Tuple2<T, D>> overriddenPaths = new ConcurrentHashMap<>();
 	private final Map<T, StepResults<T, C, D>> versionedResults = new ConcurrentHashMap<>();
 	private Semaphore threadLimiter = null;
+	private final Map<ResourceClass, Semaphore> resourceLimiters = new EnumMap<>(ResourceClass.class);
+	private HeapBudget heapBudget = null;
+	private StepCompletionJournal journal = null;
+	private StepDurationHistory stepDurations = new StepDurationHistory();
 
 	public IPipeline(PipelineDescription<T, C, D> pipelineDescription, PipelineFilesystemStorage<T, C, D> pipelineFilesystemStorage) {
 		this.pipelineDescription = pipelineDescription;
@@ -55,11 +64,49 @@ public final class IPipeline<T extends AbstractVersion<T>, C extends IStepContex
 		return threadLimiter;
 	}
 
+	public Semaphore resourceLimiter(ResourceClass resourceClass) {
+		return this.resourceLimiters.get(resourceClass);
+	}
+
+	public HeapBudget heapBudget() {
+		return this.heapBudget;
+	}
+
+	/**
+	 * Estimates the heap cost of a tuple, whose dependencies are all completed.
+	 *
+	 * @param versionStep Tuple
+	 * @param context Context
+	 * @param config Config
+	 * @return Estimated peak heap cost in bytes, 0 if there is no heap budget or the step will not be executed
+	 */
+	protected long estimateHeapCost(TupleVersionStep<T, C, D> versionStep, C context, D config) {
+		if (this.heapBudget == null) {
+			return 0L;
+		}
+		StepResults<T, C, D> results = this.versionedResults.computeIfAbsent(versionStep.version(), version -> StepResults.ofEmpty());
+		try {
+			IStepWorker<T, ?, C, D> worker = versionStep.step().createWorker(config);
+			if (!worker.shouldExecute(this, context)) {
+				return 0L;
+			}
+			StepInput input = this.getDescription().stepInputMap().get(versionStep.step()).apply(this.getFilesystemStorage(), results);
+			return worker.estimateHeapCostGeneric(this, context, input);
+		} catch (RuntimeException e) {
+			// the step itself reports the problem once it is executed
+			return 0L;
+		}
+	}
+
 	protected record TupleVersionStep<T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig>(IStep<T, ?, C, D> step, T version) {
 	}
 
 	protected void runSingleVersionSingleStep(TupleVersionStep<T, C, D> versionStep, C context, D config) {
-		StepResults<T, C, D> results = this.versionedResults.computeIfAbsent(versionStep.version(), version -> StepResults.ofEmpty());
+		StepResults<T, C, D> versionResults = this.versionedResults.computeIfAbsent(versionStep.version(), version -> StepResults.ofEmpty());
+		// the step works on a copy of the results of its version, so that only its own results are journaled, even if other steps of the same version run concurrently
+		StepResults<T, C, D> results = StepResults.ofEmpty();
+		results.addAll(versionResults);
+		Set<StorageKey> previousResults = Set.copyOf(results.result());
 
 		MiscHelper.println("Performing step '%s' for %s (%s)...", versionStep.step().getName(), context, config);
 
@@ -71,12 +118,8 @@ public final class IPipeline<T extends AbstractVersion<T>, C extends IStepContex
 		try {
 			IStepWorker<T, ?, C, D> worker = versionStep.step().createWorker(config);
 			if (worker.shouldExecute(this, context)) {
-				status = worker.runGeneric(
-					this,
-					context,
-					this.getDescription().stepInputMap().get(versionStep.step()).apply(this.getFilesystemStorage(), results),
-					results
-				);
+				StepInput input = this.getDescription().stepInputMap().get(versionStep.step()).apply(this.getFilesystemStorage(), results);
+				status = worker.runGeneric(this, context, input, results);
 				if (status.results() != results) {
 					results.addAll(status.results());
 				}
@@ -88,14 +131,24 @@ public final class IPipeline<T extends AbstractVersion<T>, C extends IStepContex
 			exception = e;
 		}
 
+		versionResults.addAll(results);
+
 		long timeEnd = System.nanoTime();
 		long delta = timeEnd - timeStart;
 		Duration deltaDuration = Duration.ofNanos(delta);
 		String timeInfo = String.format("elapsed: %dm %02ds", deltaDuration.toMinutes(), deltaDuration.toSecondsPart());
 
+		if (status.status() != StepStatus.FAILED && versionStep.step().isJournaled()) {
+			Set<StorageKey> stepResults = new HashSet<>(results.result());
+			stepResults.removeAll(previousResults);
+			this.journalCompletion(versionStep, context, config, stepResults);
+		}
+
 		switch (status.status()) {
-			case SUCCESS ->
+			case SUCCESS -> {
+				this.stepDurations.record(versionStep.step(), deltaDuration);
 				MiscHelper.println("\tStep '%s' for %s (%s) \u001B[32msucceeded\u001B[0m (%s)", versionStep.step().getName(), context, config, timeInfo);
+			}
 			case UP_TO_DATE ->
 				MiscHelper.println("\tStep '%s' for %s (%s) was \u001B[32malready up-to-date\u001B[0m", versionStep.step().getName(), context, config);
 			case NOT_RUN -> {
@@ -117,14 +170,87 @@ public final class IPipeline<T extends AbstractVersion<T>, C extends IStepContex
 		}
 	}
 
+	private Path getJournalPath() {
+		if (this.getFilesystemStorage().rootFilesystem() == null) {
+			return null;
+		}
+		return this.getFilesystemStorage().rootFilesystem().getByIndex("pipeline-journal").resolve(this.getDescription().descriptionName().replace(' ', '_') + ".jsonl");
+	}
+
+	private void journalCompletion(TupleVersionStep<T, C, D> versionStep, C context, D config, Set<StorageKey> results) {
+		if (this.journal == null) {
+			return;
+		}
+		// relinked results point to artifacts of other versions, which can't be restored from this tuple alone
+		if (results.stream().anyMatch(key -> this.overriddenPaths.containsKey(Tuple2.tuple(key, context.targetVersion())))) {
+			return;
+		}
+		try {
+			this.journal.append(versionStep.step().getName(), versionStep.version().pathName(), config.fingerprint(), results, key -> this.getStoragePath(key, context, config));
+		} catch (IOException e) {
+			MiscHelper.println("Could not journal completion of step '%s' for %s (%s): %s", versionStep.step().getName(), context, config, e);
+		}
+	}
+
+	/**
+	 * Restores a tuple, that was completed in a previous run, from the completion journal.
+	 *
+	 * @param versionStep Tuple
+	 * @param context Context
+	 * @param config Config
+	 * @return Whether the tuple was restored, and does not need to be executed again
+	 */
+	protected boolean restoreFromJournal(TupleVersionStep<T, C, D> versionStep, C context, D config) {
+		if (this.journal == null || !versionStep.step().isJournaled()) {
+			return false;
+		}
+		Optional<Set<StorageKey>> restoredResults = this.journal.lookup(versionStep.step().getName(), versionStep.version().pathName(), config.fingerprint(), key -> this.getStoragePath(key, context, config));
+		if (restoredResults.isEmpty()) {
+			return false;
+		}
+		StepResults<T, C, D> results = this.versionedResults.computeIfAbsent(versionStep.version(), version -> StepResults.ofEmpty());
+		restoredResults.get().forEach(results::addKey);
+		return true;
+	}
+
+	protected boolean hasJournal() {
+		return this.journal != null;
+	}
+
 	public void runFully(RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
-		InFlightExecutionPlan<T, C, D> executionPlan = InFlightExecutionPlan.create(this.getDescription(), versionGraph);
+		Path journalPath = this.getJournalPath();
+		if (journalPath != null && this.getDescription().steps().stream().anyMatch(IStep::isJournaled)) {
+			try {
+				this.journal = StepCompletionJournal.open(journalPath, this.getFilesystemStorage().paths().keySet());
+			} catch (IOException e) {
+				MiscHelper.println("Could not open step completion journal, all steps will be re-evaluated: %s", e);
+			}
+		}
+		try {
+			this.stepDurations = StepDurationHistory.load();
+		} catch (IOException e) {
+			MiscHelper.println("Could not load historical step durations, tasks will be prioritized without them: %s", e);
+		}
+		InFlightExecutionPlan<T, C, D> executionPlan = InFlightExecutionPlan.create(this.getDescription(), versionGraph, this.stepDurations::estimateMillis);
 		try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Pipeline-Executor-" + this.getDescription().descriptionName()).factory())) {
 			if (Library.CONF_GLOBAL.maxParallelPipelineSteps() > 0) {
 				this.threadLimiter = new Semaphore(Library.CONF_GLOBAL.maxParallelPipelineSteps());
 			}
+			if (Library.CONF_GLOBAL.heapBudgetPercentage() > 0) {
+				this.heapBudget = HeapBudget.ofMaxHeapPercentage(Library.CONF_GLOBAL.heapBudgetPercentage());
+			}
+			for (ResourceClass resourceClass : ResourceClass.values()) {
+				if (resourceClass.maxParallelSteps(Library.CONF_GLOBAL) > 0) {
+					this.resourceLimiters.put(resourceClass, new Semaphore(resourceClass.maxParallelSteps(Library.CONF_GLOBAL)));
+				}
+			}
 			executionPlan.run(executor, this, repository, versionGraph);
 		}
+		try {
+			this.stepDurations.save();
+		} catch (IOException e) {
+			MiscHelper.println("Could not save historical step durations: %s", e);
+		}
 		if (!executionPlan.failedTasks().isEmpty()) {
 			executionPlan.failedTasks().forEach((key, value) -> {
 				MiscHelper.println("Step %s for version %s failed: %s", key.step().getName(), key.version().friendlyVersion(), value);
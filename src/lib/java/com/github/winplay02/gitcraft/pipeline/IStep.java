@@ -8,5 +8,19 @@ public interface IStep<T extends AbstractVersion<T>, S extends StepInput, C exte
 
 	ParallelismPolicy getParallelismPolicy();
 
+	default ResourceClass getResourceClass() {
+		return ResourceClass.CPU;
+	}
+
+	/**
+	 * Completed tuples of journaled steps are restored from the step completion journal of a restarted pipeline, as long as the files they produced are unchanged.
+	 * Steps, whose effects are not fully captured by the files they produce (e.g. steps operating on the repository), must not be journaled.
+	 *
+	 * @return Whether completed tuples of this step are journaled
+	 */
+	default boolean isJournaled() {
+		return false;
+	}
+
 	IStepWorker<T, S, C, D> createWorker(D config);
 }
@@ -6,4 +6,11 @@ public interface IStepConfig {
 
 	String createArtifactComponentString(KeyInformation<?> dist, KeyInformation<?>... matchingFlavours);
 
+	/**
+	 * @return String that uniquely identifies this config across runs, including all options that affect the outputs of steps, used to key the step completion journal
+	 */
+	default String fingerprint() {
+		return this.toString();
+	}
+
 }
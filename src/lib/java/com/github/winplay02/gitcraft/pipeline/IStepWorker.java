@@ -13,6 +13,24 @@ public interface IStepWorker<T extends AbstractVersion<T>, S extends StepInput,
 		return this.run(pipeline, context, castInput, results);
 	}
 
+	/**
+	 * Estimates the peak amount of heap memory that is required to run this step, which is used for admission control.
+	 *
+	 * @param pipeline Pipeline
+	 * @param context Context
+	 * @param input Input of the step
+	 * @return Estimated peak heap cost in bytes, 0 if the step does not use a significant amount of heap memory
+	 */
+	default long estimateHeapCost(IPipeline<T, C, D> pipeline, C context, S input) {
+		return 0L;
+	}
+
+	default long estimateHeapCostGeneric(IPipeline<T, C, D> pipeline, C context, StepInput input) {
+		@SuppressWarnings("unchecked")
+		S castInput = (S) input;
+		return this.estimateHeapCost(pipeline, context, castInput);
+	}
+
 	default boolean shouldExecute(IPipeline<T, C, D> pipeline, C context) {
 		return true;
 	}
@@ -5,11 +5,23 @@ import com.github.winplay02.gitcraft.graph.AbstractVersionGraph;
 import com.github.winplay02.gitcraft.util.MiscHelper;
 import com.github.winplay02.gitcraft.util.RepoWrapper;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.function.Predicate;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
 
 public record InFlightExecutionPlan<T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig>(PipelineExecutionGraph<T, C, D> executionGraph,
 																			Set<IPipeline.TupleVersionStep<T, C, D>> completedSubset,
@@ -18,88 +30,266 @@ public record InFlightExecutionPlan<T extends AbstractVersion<T>, C extends ISte
 																			Map<IPipeline.TupleVersionStep<T, C, D>, Exception> failedTasks,
 																			Map<T, C> versionedContexts,
 																			Map<T, D> versionedConfigs,
+																			Map<IPipeline.TupleVersionStep<T, C, D>, AtomicInteger> remainingDependencies,
+																			Map<IPipeline.TupleVersionStep<T, C, D>, Long> priorities,
+																			Map<ResourceClass, Queue<IPipeline.TupleVersionStep<T, C, D>>> readyTasks,
+																			Map<IStep<T, ?, C, D>, Queue<IPipeline.TupleVersionStep<T, C, D>>> deferredTasks,
+																			Queue<IPipeline.TupleVersionStep<T, C, D>> heapDeferredTasks,
+																			Map<IPipeline.TupleVersionStep<T, C, D>, Long> heapCosts,
+																			Map<IPipeline.TupleVersionStep<T, C, D>, Long> admittedHeapCosts,
 																			Object executionLock,
 																			Object conditionalVar) {
 
 	public static <T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> InFlightExecutionPlan<T, C, D> create(PipelineDescription<T, C, D> description, AbstractVersionGraph<T> versionGraph) {
-		return new InFlightExecutionPlan<>(PipelineExecutionGraph.populate(description, versionGraph), ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new Object(), new Object());
+		return create(description, versionGraph, step -> 1L);
 	}
 
-	private void runSingleTask(ExecutorService executor, IPipeline.TupleVersionStep<T, C, D> task, IPipeline<T, C, D> pipeline, RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
-		if (executor.isShutdown()) {
+	public static <T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> InFlightExecutionPlan<T, C, D> create(PipelineDescription<T, C, D> description, AbstractVersionGraph<T> versionGraph, ToLongFunction<IStep<T, ?, C, D>> stepWeight) {
+		PipelineExecutionGraph<T, C, D> executionGraph = PipelineExecutionGraph.populate(description, versionGraph);
+		// Tuples are equality-keyed records, so the pending dependency counters are kept alongside the graph instead of inside the tuple
+		Map<IPipeline.TupleVersionStep<T, C, D>, AtomicInteger> remainingDependencies = new ConcurrentHashMap<>();
+		for (IPipeline.TupleVersionStep<T, C, D> tuple : executionGraph.stepVersionSubsetVertices()) {
+			remainingDependencies.put(tuple, new AtomicInteger(executionGraph.dependencyCount(tuple)));
+		}
+		Map<IPipeline.TupleVersionStep<T, C, D>, Long> priorities = Map.copyOf(executionGraph.criticalPathLengths(stepWeight));
+		// one queue per resource class, so that tasks waiting for an exhausted resource class do not block tasks of other resource classes
+		Map<ResourceClass, Queue<IPipeline.TupleVersionStep<T, C, D>>> readyTasks = new EnumMap<>(ResourceClass.class);
+		for (ResourceClass resourceClass : ResourceClass.values()) {
+			readyTasks.put(resourceClass, new PriorityQueue<>(priorityOrder(priorities)));
+		}
+		return new InFlightExecutionPlan<>(executionGraph, ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), remainingDependencies, priorities, readyTasks, new ConcurrentHashMap<>(), new ArrayDeque<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new Object(), new Object());
+	}
+
+	private static <T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> Comparator<IPipeline.TupleVersionStep<T, C, D>> priorityOrder(Map<IPipeline.TupleVersionStep<T, C, D>, Long> priorities) {
+		// longest remaining critical path first
+		return Comparator.<IPipeline.TupleVersionStep<T, C, D>>comparingLong(tuple -> priorities.getOrDefault(tuple, 0L)).reversed();
+	}
+
+	/**
+	 * Marks a task as ready, whose dependencies are all completed. Ready tasks are dispatched by {@link #dispatchReadyTasks}.
+	 * Tasks of steps that are restricted to sequential execution are deferred, if another task of the same step is currently executing.
+	 * Must be called while holding the execution lock.
+	 *
+	 * @param task Task that is ready to be executed
+	 */
+	private void enqueueTask(IPipeline.TupleVersionStep<T, C, D> task) {
+		if (task.step().getParallelismPolicy().isRestrictedToSequential() && !activeSteps.add(task.step())) {
+			deferredTasks.computeIfAbsent(task.step(), __ -> new PriorityQueue<>(priorityOrder(this.priorities))).add(task);
 			return;
 		}
+		readyTasks.get(task.step().getResourceClass()).add(task);
+	}
 
-		executor.execute(() -> {
-			synchronized (executionLock) {
-				if (executingSubset.contains(task) || completedSubset.contains(task)) {
+	/**
+	 * Dispatches ready tasks in order of their priority, as long as the heap budget, the thread limiter and the limiter of their resource class have capacity available.
+	 * Tasks that do not get a permit stay queued, until a running task releases its permit.
+	 * Tasks that do not fit in the heap budget are set aside before any permit is taken, so that cheaper tasks can be dispatched in the meantime.
+	 * They are queued again, once a running task completes. Heap costs are estimated by {@link #estimateHeapCosts} before tasks are queued.
+	 */
+	private void dispatchReadyTasks(ExecutorService executor, IPipeline<T, C, D> pipeline, RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
+		Comparator<IPipeline.TupleVersionStep<T, C, D>> order = priorityOrder(this.priorities);
+		Set<ResourceClass> exhaustedResourceClasses = EnumSet.noneOf(ResourceClass.class);
+		synchronized (executionLock) {
+			while (!executor.isShutdown()) {
+				ResourceClass selectedResourceClass = null;
+				for (Map.Entry<ResourceClass, Queue<IPipeline.TupleVersionStep<T, C, D>>> entry : readyTasks.entrySet()) {
+					if (entry.getValue().isEmpty() || exhaustedResourceClasses.contains(entry.getKey())) {
+						continue;
+					}
+					if (selectedResourceClass == null || order.compare(entry.getValue().peek(), readyTasks.get(selectedResourceClass).peek()) < 0) {
+						selectedResourceClass = entry.getKey();
+					}
+				}
+				if (selectedResourceClass == null) {
 					return;
 				}
-				if (task.step().getParallelismPolicy().isRestrictedToSequential() && activeSteps.contains(task.step())) {
+				IPipeline.TupleVersionStep<T, C, D> task = readyTasks.get(selectedResourceClass).peek();
+				long heapCost = heapCosts.getOrDefault(task, 0L);
+				if (heapCost > 0L && !pipeline.heapBudget().tryAcquire(heapCost)) {
+					readyTasks.get(selectedResourceClass).poll();
+					heapDeferredTasks.add(task);
+					continue;
+				}
+				Semaphore resourceLimiter = pipeline.resourceLimiter(selectedResourceClass);
+				if (resourceLimiter != null && !resourceLimiter.tryAcquire()) {
+					if (heapCost > 0L) {
+						pipeline.heapBudget().release(heapCost);
+					}
+					exhaustedResourceClasses.add(selectedResourceClass);
+					continue;
+				}
+				if (pipeline.threadLimiter() != null && !pipeline.threadLimiter().tryAcquire()) {
+					if (heapCost > 0L) {
+						pipeline.heapBudget().release(heapCost);
+					}
+					if (resourceLimiter != null) {
+						resourceLimiter.release();
+					}
 					return;
 				}
-
-				activeSteps.add(task.step());
+				readyTasks.get(selectedResourceClass).poll();
+				if (heapCost > 0L) {
+					heapCosts.remove(task);
+					admittedHeapCosts.put(task, heapCost);
+				}
 				executingSubset.add(task);
+				try {
+					executor.execute(() -> runSingleTask(executor, task, pipeline, repository, versionGraph));
+				} catch (RejectedExecutionException ignored) {
+					// another task failed concurrently and the executor is shutting down
+					executingSubset.remove(task);
+					releasePermits(task, pipeline);
+					return;
+				}
 			}
+		}
+	}
 
-			if (pipeline.threadLimiter() != null) {
-				pipeline.threadLimiter().acquireUninterruptibly();
+	/**
+	 * Estimates the heap cost of tasks, that became ready, once. The estimate is kept until the task is dispatched, also while it is set aside because of the heap budget.
+	 * Must be called without holding the execution lock, as estimating may create the context of a version and access the file system.
+	 *
+	 * @param tasks Tasks that became ready
+	 */
+	private void estimateHeapCosts(List<IPipeline.TupleVersionStep<T, C, D>> tasks, ExecutorService executor, IPipeline<T, C, D> pipeline, RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
+		for (IPipeline.TupleVersionStep<T, C, D> task : tasks) {
+			long heapCost = this.estimateHeapCost(task, executor, pipeline, repository, versionGraph);
+			if (heapCost > 0L) {
+				heapCosts.put(task, heapCost);
 			}
+		}
+	}
 
-			C context = this.versionedContexts().computeIfAbsent(task.version(), ctxVersion -> pipeline.getDescription().contextCreator().getContext(ctxVersion, repository, versionGraph, executor));
-			D config = this.versionedConfigs().computeIfAbsent(task.version(), pipeline.getDescription().configCreator());
-			Exception storedException = null;
+	private long estimateHeapCost(IPipeline.TupleVersionStep<T, C, D> task, ExecutorService executor, IPipeline<T, C, D> pipeline, RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
+		if (pipeline.heapBudget() == null) {
+			return 0L;
+		}
+		C context = this.getContext(task, executor, pipeline, repository, versionGraph);
+		if (pipeline.getDescription().skipVersion().apply(versionGraph, context)) {
+			return 0L;
+		}
+		return pipeline.estimateHeapCost(task, context, this.getConfig(task, pipeline));
+	}
 
-			try {
-				if (!pipeline.getDescription().skipVersion().apply(versionGraph, context)) {
-					pipeline.runSingleVersionSingleStep(task, context, config);
-				} else {
-					MiscHelper.println("Skipping step '%s' for %s (%s)...", task.step().getName(), context, config);
-				}
-				executingSubset.remove(task);
-				completedSubset.add(task);
-				activeSteps.remove(task.step());
-			} catch (Exception e) {
-				storedException = e;
-				MiscHelper.println("Step '%s' for %s (%s) failed: %s", task.step().getName(), context, config, e);
-				e.printStackTrace();
-			}
-			if (pipeline.threadLimiter() != null) {
-				pipeline.threadLimiter().release();
-			}
+	private C getContext(IPipeline.TupleVersionStep<T, C, D> task, ExecutorService executor, IPipeline<T, C, D> pipeline, RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
+		return this.versionedContexts().computeIfAbsent(task.version(), ctxVersion -> pipeline.getDescription().contextCreator().getContext(ctxVersion, repository, versionGraph, executor));
+	}
 
-			synchronized (executionLock) {
-				if (storedException == null) {
-					// success :)
-					executingSubset.remove(task);
-					activeSteps.remove(task.step());
-					completedSubset.add(task);
-				} else {
-					// failure :(
-					failedTasks.put(task, storedException);
-				}
+	private D getConfig(IPipeline.TupleVersionStep<T, C, D> task, IPipeline<T, C, D> pipeline) {
+		return this.versionedConfigs().computeIfAbsent(task.version(), pipeline.getDescription().configCreator());
+	}
 
-				signalUpdate();
+	private void releasePermits(IPipeline.TupleVersionStep<T, C, D> task, IPipeline<T, C, D> pipeline) {
+		Long heapCost = admittedHeapCosts.remove(task);
+		if (heapCost != null) {
+			pipeline.heapBudget().release(heapCost);
+		}
+		if (pipeline.resourceLimiter(task.step().getResourceClass()) != null) {
+			pipeline.resourceLimiter(task.step().getResourceClass()).release();
+		}
+		if (pipeline.threadLimiter() != null) {
+			pipeline.threadLimiter().release();
+		}
+	}
+
+	private void runSingleTask(ExecutorService executor, IPipeline.TupleVersionStep<T, C, D> task, IPipeline<T, C, D> pipeline, RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
+		C context = this.getContext(task, executor, pipeline, repository, versionGraph);
+		D config = this.getConfig(task, pipeline);
+		Exception storedException = null;
+
+		try {
+			if (!pipeline.getDescription().skipVersion().apply(versionGraph, context)) {
+				pipeline.runSingleVersionSingleStep(task, context, config);
+			} else {
+				MiscHelper.println("Skipping step '%s' for %s (%s)...", task.step().getName(), context, config);
+			}
+		} catch (Exception e) {
+			storedException = e;
+			MiscHelper.println("Step '%s' for %s (%s) failed: %s", task.step().getName(), context, config, e);
+			e.printStackTrace();
+		}
+		releasePermits(task, pipeline);
 
-				if (storedException == null) {
-					scanForTasks(executor, pipeline, repository, versionGraph);
+		if (storedException != null) {
+			// failure :(
+			failedTasks.put(task, storedException);
+			executor.shutdown();
+			signalUpdate();
+			return;
+		}
+
+		// success :)
+		List<IPipeline.TupleVersionStep<T, C, D>> readyDependents = new ArrayList<>();
+		for (IPipeline.TupleVersionStep<T, C, D> dependent : this.executionGraph.dependentTuples(task)) {
+			if (remainingDependencies.get(dependent).decrementAndGet() == 0) {
+				readyDependents.add(dependent);
+			}
+		}
+		this.estimateHeapCosts(readyDependents, executor, pipeline, repository, versionGraph);
+		synchronized (executionLock) {
+			executingSubset.remove(task);
+			completedSubset.add(task);
+			// the completed task may have released part of the heap budget
+			for (IPipeline.TupleVersionStep<T, C, D> heapDeferredTask = heapDeferredTasks.poll(); heapDeferredTask != null; heapDeferredTask = heapDeferredTasks.poll()) {
+				readyTasks.get(heapDeferredTask.step().getResourceClass()).add(heapDeferredTask);
+			}
+			if (task.step().getParallelismPolicy().isRestrictedToSequential()) {
+				Queue<IPipeline.TupleVersionStep<T, C, D>> deferred = deferredTasks.get(task.step());
+				IPipeline.TupleVersionStep<T, C, D> nextSequentialTask = deferred != null ? deferred.poll() : null;
+				if (nextSequentialTask != null) {
+					// the step stays active, hand it over to the next deferred task directly
+					readyTasks.get(nextSequentialTask.step().getResourceClass()).add(nextSequentialTask);
 				} else {
-					executor.shutdown();
+					activeSteps.remove(task.step());
 				}
 			}
-		});
+			for (IPipeline.TupleVersionStep<T, C, D> dependent : readyDependents) {
+				enqueueTask(dependent);
+			}
+		}
+		dispatchReadyTasks(executor, pipeline, repository, versionGraph);
+		signalUpdate();
 	}
 
-	private void scanForTasks(ExecutorService executor, IPipeline<T, C, D> pipeline, RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
-		// These are approximations of the set of tasks to execute; they should be equal or greater than the actual set; duplicate tasks get discarded later
-		for (IPipeline.TupleVersionStep<T, C, D> task : this.executionGraph.nextTuples(this.completedSubset)) {
-			this.runSingleTask(executor, task, pipeline, repository, versionGraph);
+	/**
+	 * Marks tuples as completed, that were completed in a previous run and are recorded in the completion journal of the pipeline.
+	 * A tuple is only restored, if all of its dependencies were restored as well, and its version is not skipped.
+	 */
+	private void restoreJournaledTasks(ExecutorService executor, IPipeline<T, C, D> pipeline, RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
+		Deque<IPipeline.TupleVersionStep<T, C, D>> candidates = new ArrayDeque<>(this.executionGraph.initialTuples());
+		while (!candidates.isEmpty()) {
+			IPipeline.TupleVersionStep<T, C, D> task = candidates.poll();
+			C context = this.getContext(task, executor, pipeline, repository, versionGraph);
+			D config = this.getConfig(task, pipeline);
+			if (pipeline.getDescription().skipVersion().apply(versionGraph, context) || !pipeline.restoreFromJournal(task, context, config)) {
+				continue;
+			}
+			completedSubset.add(task);
+			for (IPipeline.TupleVersionStep<T, C, D> dependent : this.executionGraph.dependentTuples(task)) {
+				if (remainingDependencies.get(dependent).decrementAndGet() == 0) {
+					candidates.add(dependent);
+				}
+			}
+		}
+		if (!completedSubset.isEmpty()) {
+			MiscHelper.println("Restored %s of %s tasks from the step completion journal", completedSubset.size(), this.executionGraph.stepVersionSubsetVertices().size());
 		}
 	}
 
 	public void run(ExecutorService executor, IPipeline<T, C, D> pipeline, RepoWrapper repository, AbstractVersionGraph<T> versionGraph) {
-		scanForTasks(executor, pipeline, repository, versionGraph);
+		if (pipeline.hasJournal()) {
+			restoreJournaledTasks(executor, pipeline, repository, versionGraph);
+		}
+		List<IPipeline.TupleVersionStep<T, C, D>> initialTasks = this.executionGraph.stepVersionSubsetVertices().stream()
+			.filter(task -> !completedSubset.contains(task) && remainingDependencies.get(task).get() == 0)
+			.toList();
+		this.estimateHeapCosts(initialTasks, executor, pipeline, repository, versionGraph);
+		synchronized (executionLock) {
+			for (IPipeline.TupleVersionStep<T, C, D> task : initialTasks) {
+				enqueueTask(task);
+			}
+		}
+		dispatchReadyTasks(executor, pipeline, repository, versionGraph);
 		await();
 	}
 
@@ -114,13 +304,8 @@ public record InFlightExecutionPlan<T extends AbstractVersion<T>, C extends ISte
 	}
 
 	private void await() {
-		while (true) {
-			synchronized (conditionalVar) {
-				try {
-					conditionalVar.wait();
-				} catch (InterruptedException ignored) {}
-			}
-			synchronized (executionLock) {
+		synchronized (conditionalVar) {
+			while (true) {
 				// Once everything is completed
 				if (this.completedSubset().size() == this.executionGraph().stepVersionSubsetVertices().size()) {
 					return;
@@ -130,6 +315,9 @@ public record InFlightExecutionPlan<T extends AbstractVersion<T>, C extends ISte
 					MiscHelper.println("Execution failed, waiting for existing tasks to complete...");
 					return;
 				}
+				try {
+					conditionalVar.wait();
+				} catch (InterruptedException ignored) {}
 			}
 		}
 	}
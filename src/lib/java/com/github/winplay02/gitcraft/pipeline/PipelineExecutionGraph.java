@@ -2,17 +2,21 @@ package com.github.winplay02.gitcraft.pipeline;
 
 import com.github.winplay02.gitcraft.graph.AbstractVersion;
 import com.github.winplay02.gitcraft.graph.AbstractVersionGraph;
-import com.github.winplay02.gitcraft.util.MiscHelper;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 public record PipelineExecutionGraph<T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig>
-	(Set<IPipeline.TupleVersionStep<T, C, D>> stepVersionSubsetVertices, Map<IPipeline.TupleVersionStep<T, C, D>, Set<IPipeline.TupleVersionStep<T, C, D>>> stepVersionSubsetEdges) {
+	(Set<IPipeline.TupleVersionStep<T, C, D>> stepVersionSubsetVertices,
+	 Map<IPipeline.TupleVersionStep<T, C, D>, Set<IPipeline.TupleVersionStep<T, C, D>>> stepVersionSubsetEdges,
+	 Map<IPipeline.TupleVersionStep<T, C, D>, Set<IPipeline.TupleVersionStep<T, C, D>>> stepVersionSubsetDependents) {
 
 	public static <T extends AbstractVersion<T>, C extends IStepContext<C, T>, D extends IStepConfig> PipelineExecutionGraph<T, C, D> populate(PipelineDescription<T, C, D> description, AbstractVersionGraph<T> versionGraph) {
 		Set<IPipeline.TupleVersionStep<T, C, D>> stepVersionSubsetVertices = new HashSet<>();
@@ -26,24 +30,86 @@ public record PipelineExecutionGraph<T extends AbstractVersion<T>, C extends ISt
 				// Inter-Version dependency: depend on previous version only; logically should depend on all previous versions
 				// but this is not necessary as this dependency applies transitively in a valid pipeline description (step depending on itself)
 				for (IStep<T, ?, C, D> interVersionDependencyStep : description.getInterVersionDependencies(step)) {
+					if (!description.steps().contains(interVersionDependencyStep)) {
+						continue;
+					}
 					for (T previousVersion : versionGraph.getPreviousVertices(version)) {
 						stepVersionSubsetEdges.get(node).add(new IPipeline.TupleVersionStep<>(interVersionDependencyStep, previousVersion));
 					}
 				}
-				// Intra-Version dependency
+				// Intra-Version dependency; optional steps that are not part of this pipeline can never complete, so they are not waited on
 				for (IStep<T, ?, C, D> intraVersionDependencyStep : description.getIntraVersionDependencies(step)) {
 					DependencyRelation depType = description.getDependencyType(step, intraVersionDependencyStep);
-					if (depType != null && depType.isDependency()) {
+					if (depType != null && depType.isDependency() && description.steps().contains(intraVersionDependencyStep)) {
 						stepVersionSubsetEdges.get(node).add(new IPipeline.TupleVersionStep<>(intraVersionDependencyStep, version));
 					}
 				}
 			}
 		}
+		// directed: (source, target)
+		Map<IPipeline.TupleVersionStep<T, C, D>, Set<IPipeline.TupleVersionStep<T, C, D>>> stepVersionSubsetDependents = new HashMap<>();
+		for (IPipeline.TupleVersionStep<T, C, D> node : stepVersionSubsetVertices) {
+			stepVersionSubsetDependents.computeIfAbsent(node, __ -> new HashSet<>());
+			for (IPipeline.TupleVersionStep<T, C, D> dependency : stepVersionSubsetEdges.get(node)) {
+				stepVersionSubsetDependents.computeIfAbsent(dependency, __ -> new HashSet<>()).add(node);
+			}
+		}
 		// TODO validate execution graph
-		return new PipelineExecutionGraph<>(Collections.unmodifiableSet(stepVersionSubsetVertices), Collections.unmodifiableMap(stepVersionSubsetEdges));
+		return new PipelineExecutionGraph<>(Collections.unmodifiableSet(stepVersionSubsetVertices), Collections.unmodifiableMap(stepVersionSubsetEdges), Collections.unmodifiableMap(stepVersionSubsetDependents));
+	}
+
+	/**
+	 * @param tuple Subject tuple
+	 * @return Amount of tuples that need to be completed before the provided tuple can be executed
+	 */
+	protected int dependencyCount(IPipeline.TupleVersionStep<T, C, D> tuple) {
+		return this.stepVersionSubsetEdges.getOrDefault(tuple, Set.of()).size();
+	}
+
+	/**
+	 * @param tuple Subject tuple
+	 * @return Tuples that directly depend on the provided tuple
+	 */
+	protected Set<IPipeline.TupleVersionStep<T, C, D>> dependentTuples(IPipeline.TupleVersionStep<T, C, D> tuple) {
+		return this.stepVersionSubsetDependents.getOrDefault(tuple, Set.of());
 	}
 
-	protected Set<IPipeline.TupleVersionStep<T, C, D>> nextTuples(Set<IPipeline.TupleVersionStep<T, C, D>> completedSubset) {
-		return stepVersionSubsetEdges.entrySet().stream().filter(entry -> !completedSubset.contains(entry.getKey())).filter(entry -> MiscHelper.calculateAsymmetricSetDifference(entry.getValue(), completedSubset).isEmpty()).map(java.util.Map.Entry::getKey).collect(Collectors.toUnmodifiableSet());
+	/**
+	 * @return Tuples without any dependencies, which can be executed immediately
+	 */
+	protected Set<IPipeline.TupleVersionStep<T, C, D>> initialTuples() {
+		return this.stepVersionSubsetEdges.entrySet().stream().filter(entry -> entry.getValue().isEmpty()).map(Map.Entry::getKey).collect(Collectors.toUnmodifiableSet());
+	}
+
+	/**
+	 * Calculates the length of the longest path from each tuple to the end of the pipeline (including the tuple itself).
+	 * Tuples with a longer remaining path are on the critical path (e.g. the sequential decompile/commit chain through all versions) and should be executed first.
+	 *
+	 * @param stepWeight Estimated cost of a single execution of a step
+	 * @return Map of tuples to their remaining critical path length
+	 */
+	protected Map<IPipeline.TupleVersionStep<T, C, D>, Long> criticalPathLengths(ToLongFunction<IStep<T, ?, C, D>> stepWeight) {
+		Map<IPipeline.TupleVersionStep<T, C, D>, Long> pathLengths = new HashMap<>();
+		Map<IPipeline.TupleVersionStep<T, C, D>, Integer> remainingDependents = new HashMap<>();
+		Deque<IPipeline.TupleVersionStep<T, C, D>> processable = new ArrayDeque<>();
+		for (IPipeline.TupleVersionStep<T, C, D> tuple : this.stepVersionSubsetVertices) {
+			int dependents = this.dependentTuples(tuple).size();
+			remainingDependents.put(tuple, dependents);
+			if (dependents == 0) {
+				processable.add(tuple);
+			}
+		}
+		// reverse topological order: a tuple is processed once the lengths of all its dependents are known
+		while (!processable.isEmpty()) {
+			IPipeline.TupleVersionStep<T, C, D> tuple = processable.poll();
+			long longestDependentPath = this.dependentTuples(tuple).stream().mapToLong(pathLengths::get).max().orElse(0L);
+			pathLengths.put(tuple, longestDependentPath + stepWeight.applyAsLong(tuple.step()));
+			for (IPipeline.TupleVersionStep<T, C, D> dependency : this.stepVersionSubsetEdges.get(tuple)) {
+				if (remainingDependents.merge(dependency, -1, Integer::sum) == 0) {
+					processable.add(dependency);
+				}
+			}
+		}
+		return pathLengths;
 	}
 }
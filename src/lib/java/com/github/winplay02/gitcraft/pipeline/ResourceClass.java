@@ -0,0 +1,44 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+import com.github.winplay02.gitcraft.config.GlobalConfiguration;
+
+public enum ResourceClass {
+	/**
+	 * Execution is mostly bound by network transfers (e.g. fetching artifacts, libraries or assets).
+	 */
+	NETWORK,
+
+	/**
+	 * Execution is mostly bound by computation (e.g. remapping or decompiling).
+	 */
+	CPU,
+
+	/**
+	 * Execution requires large amounts of memory (e.g. running separate JVM subprocesses).
+	 */
+	HEAVY_MEMORY,
+
+	/**
+	 * Execution operates on the git repository.
+	 */
+	GIT,
+
+	/**
+	 * Execution is mostly bound by local filesystem operations (e.g. unpacking or linking files).
+	 */
+	DISK_IO;
+
+	/**
+	 * @param configuration Global Configuration
+	 * @return Max amount of steps of this resource class that can be processed in parallel (0 means unlimited)
+	 */
+	public int maxParallelSteps(GlobalConfiguration configuration) {
+		return switch (this) {
+			case NETWORK -> configuration.maxParallelNetworkSteps();
+			case CPU -> configuration.maxParallelCpuSteps();
+			case HEAVY_MEMORY -> configuration.maxParallelHeavyMemorySteps();
+			case GIT -> configuration.maxParallelGitSteps();
+			case DISK_IO -> configuration.maxParallelDiskIoSteps();
+		};
+	}
+}
@@ -0,0 +1,178 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+import com.github.winplay02.gitcraft.pipeline.key.ArtifactKey;
+import com.github.winplay02.gitcraft.pipeline.key.DirectoryKey;
+import com.github.winplay02.gitcraft.pipeline.key.KeyInformation;
+import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
+import com.github.winplay02.gitcraft.util.SerializationHelper;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Append-only journal of successfully completed (step, version, config) tuples of journaled steps of a pipeline, see {@link IStep#isJournaled()}.
+ * Each entry records the results of the step together with a fingerprint (size and modification time) of each result file,
+ * so that a restarted pipeline can mark tuples as completed without running their workers again, as long as their results still exist and are untouched.
+ * Tuples without any result file are not journaled, as nothing could show that their effects are still present.
+ * Later entries for the same tuple supersede earlier ones.
+ */
+public final class StepCompletionJournal {
+
+	/**
+	 * @param step Step name
+	 * @param version Version, see {@link com.github.winplay02.gitcraft.graph.AbstractVersion#pathName()}
+	 * @param config Config fingerprint, see {@link IStepConfig#fingerprint()}
+	 * @param results Results of the step, mapped to their fingerprints
+	 */
+	record Entry(String step, String version, String config, Map<String, String> results) {
+		String tupleKey() {
+			return tupleKey(this.step, this.version, this.config);
+		}
+
+		static String tupleKey(String step, String version, String config) {
+			return String.join("\u0000", step, version, config);
+		}
+	}
+
+	private final Path journalPath;
+	private final Map<String, StorageKey> knownKeys;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private StepCompletionJournal(Path journalPath, Map<String, StorageKey> knownKeys) {
+		this.journalPath = journalPath;
+		this.knownKeys = knownKeys;
+	}
+
+	/**
+	 * Opens (or creates) a journal.
+	 *
+	 * @param journalPath Path of the journal file
+	 * @param knownKeys All storage keys that may be referenced by entries
+	 * @return Journal
+	 * @throws IOException If the journal cannot be read
+	 */
+	public static StepCompletionJournal open(Path journalPath, Collection<StorageKey> knownKeys) throws IOException {
+		Map<String, StorageKey> keysById = new HashMap<>();
+		for (StorageKey key : knownKeys) {
+			String id = keyId(key);
+			if (id != null) {
+				keysById.put(id, key);
+			}
+		}
+		StepCompletionJournal journal = new StepCompletionJournal(journalPath, keysById);
+		if (Files.exists(journalPath)) {
+			try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.isBlank()) {
+						continue;
+					}
+					try {
+						Entry entry = SerializationHelper.deserialize(line, Entry.class);
+						journal.entries.put(entry.tupleKey(), entry);
+					} catch (JsonParseException ignored) {
+						// incomplete line of an interrupted run
+					}
+				}
+			}
+		}
+		return journal;
+	}
+
+	private static String keyId(StorageKey key) {
+		return switch (key) {
+			case DirectoryKey directoryKey -> "dir:" + directoryKey.type();
+			case ArtifactKey artifactKey -> "artifact:" + String.join("/", artifactKey.keys());
+			case KeyInformation<?> ignored -> null;
+		};
+	}
+
+	private static String fingerprint(Path path) {
+		try {
+			if (path == null || !Files.exists(path)) {
+				return null;
+			}
+			// directories are usually shared between versions, so their modification time would invalidate entries of unrelated versions
+			if (Files.isDirectory(path)) {
+				return "dir";
+			}
+			return String.format("%s:%s", Files.size(path), Files.getLastModifiedTime(path).toMillis());
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Looks up a completed tuple, and validates its results against their current fingerprints.
+	 *
+	 * @param step Step name
+	 * @param version Version
+	 * @param config Config fingerprint
+	 * @param pathResolver Resolver for paths of results
+	 * @return Results of the completed tuple, or empty if the tuple is not journaled or any of its results changed
+	 */
+	public Optional<Set<StorageKey>> lookup(String step, String version, String config, Function<StorageKey, Path> pathResolver) {
+		Entry entry = this.entries.get(Entry.tupleKey(step, version, config));
+		if (entry == null || entry.results().isEmpty()) {
+			return Optional.empty();
+		}
+		Set<StorageKey> results = new HashSet<>();
+		for (Map.Entry<String, String> result : entry.results().entrySet()) {
+			StorageKey key = this.knownKeys.get(result.getKey());
+			if (key == null || !result.getValue().equals(fingerprint(pathResolver.apply(key)))) {
+				return Optional.empty();
+			}
+			results.add(key);
+		}
+		return Optional.of(results);
+	}
+
+	/**
+	 * Appends a completed tuple to the journal. Tuples without results, or with results that cannot be fingerprinted, are not journaled.
+	 * Directory results that do not exist anymore (temporary directories, that were deleted after the step) are left out of the entry.
+	 *
+	 * @param step Step name
+	 * @param version Version
+	 * @param config Config fingerprint
+	 * @param results Results of the step
+	 * @param pathResolver Resolver for paths of results
+	 * @throws IOException If the journal cannot be written
+	 */
+	public void append(String step, String version, String config, Set<StorageKey> results, Function<StorageKey, Path> pathResolver) throws IOException {
+		Map<String, String> fingerprints = new HashMap<>();
+		for (StorageKey key : results) {
+			String id = keyId(key);
+			Path path = pathResolver.apply(key);
+			if (key instanceof DirectoryKey && (path == null || !Files.exists(path))) {
+				continue;
+			}
+			String fingerprint = fingerprint(path);
+			if (id == null || !this.knownKeys.containsKey(id) || fingerprint == null) {
+				return;
+			}
+			fingerprints.put(id, fingerprint);
+		}
+		if (fingerprints.isEmpty()) {
+			return;
+		}
+		Entry entry = new Entry(step, version, config, fingerprints);
+		synchronized (this) {
+			Files.createDirectories(this.journalPath.getParent());
+			Files.writeString(this.journalPath, SerializationHelper.serializeSingleLine(entry) + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			this.entries.put(entry.tupleKey(), entry);
+		}
+	}
+}
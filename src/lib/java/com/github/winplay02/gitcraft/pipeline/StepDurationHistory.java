@@ -0,0 +1,55 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+import com.github.winplay02.gitcraft.LibraryPaths;
+import com.github.winplay02.gitcraft.util.SerializationHelper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Historical durations of steps, which are used to prioritize tasks on the critical path of a pipeline.
+ *
+ * @param averageDurationsMillis Moving average of the duration of successful executions, keyed by step name
+ */
+public record StepDurationHistory(ConcurrentHashMap<String, Long> averageDurationsMillis) {
+	private static final long DEFAULT_DURATION_MILLIS = 1000L;
+
+	public StepDurationHistory {
+		if (averageDurationsMillis == null) {
+			averageDurationsMillis = new ConcurrentHashMap<>();
+		}
+	}
+
+	public StepDurationHistory() {
+		this(new ConcurrentHashMap<>());
+	}
+
+	public void record(IStep<?, ?, ?, ?> step, Duration duration) {
+		// exponential moving average, so that a single slow run (e.g. with cold caches) fades out over time
+		this.averageDurationsMillis.merge(step.getName(), Math.max(duration.toMillis(), 1L), (previous, current) -> (previous * 3 + current) / 4);
+	}
+
+	public long estimateMillis(IStep<?, ?, ?, ?> step) {
+		return this.averageDurationsMillis.getOrDefault(step.getName(), DEFAULT_DURATION_MILLIS);
+	}
+
+	public static StepDurationHistory load() throws IOException {
+		if (LibraryPaths.STEP_DURATIONS != null && Files.exists(LibraryPaths.STEP_DURATIONS)) {
+			return SerializationHelper.deserialize(SerializationHelper.fetchAllFromPath(LibraryPaths.STEP_DURATIONS), StepDurationHistory.class);
+		}
+		return new StepDurationHistory();
+	}
+
+	public void save() throws IOException {
+		if (LibraryPaths.STEP_DURATIONS == null) {
+			return;
+		}
+		try {
+			SerializationHelper.writeAllToPath(LibraryPaths.STEP_DURATIONS, SerializationHelper.serialize(this));
+		} catch (NoSuchFileException ignored) {}
+		// Same as the maven cache: if it can't save, priorities of the next run will just be less accurate
+	}
+}
@@ -0,0 +1,58 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+/**
+ * Budget of threads, shared by concurrently running jobs of the same kind (e.g. decompilation).
+ * Each job is granted a share of the threads according to its weight (e.g. the size of its input) relative to all running jobs, but at least one thread.
+ * No job is granted more than the capacity divided by the expected amount of concurrent jobs, so that the first job does not occupy all threads.
+ * A job only waits, if no thread is free at all, so that sequential phases of running jobs can overlap with new jobs.
+ */
+public final class ThreadBudget {
+	private final int capacity;
+	private final int maxShare;
+	private int used = 0;
+	private long activeWeight = 0L;
+
+	/**
+	 * @param capacity Amount of threads shared by all jobs
+	 * @param expectedJobs Expected amount of concurrently running jobs
+	 */
+	public ThreadBudget(int capacity, int expectedJobs) {
+		this.capacity = Math.max(1, capacity);
+		this.maxShare = Math.max(1, (int) Math.ceil((double) this.capacity / Math.max(1, expectedJobs)));
+	}
+
+	public int capacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Acquires threads for a job. The acquired threads have to be released using {@link #release(int, long)} once the job finished.
+	 *
+	 * @param weight Weight of the job
+	 * @return Amount of threads, the job may use
+	 * @throws InterruptedException If interrupted while waiting for a free thread
+	 */
+	public synchronized int acquire(long weight) throws InterruptedException {
+		while (this.used >= this.capacity) {
+			this.wait();
+		}
+		long clampedWeight = Math.max(1L, weight);
+		int share = Math.min(this.maxShare, (int) Math.ceil((double) this.capacity * clampedWeight / (clampedWeight + this.activeWeight)));
+		int threads = Math.max(1, Math.min(share, this.capacity - this.used));
+		this.used += threads;
+		this.activeWeight += clampedWeight;
+		return threads;
+	}
+
+	/**
+	 * Releases threads of a job.
+	 *
+	 * @param threads Amount of threads, that were acquired
+	 * @param weight Weight of the job, that was used to acquire the threads
+	 */
+	public synchronized void release(int threads, long weight) {
+		this.used -= threads;
+		this.activeWeight -= Math.max(1L, weight);
+		this.notifyAll();
+	}
+}
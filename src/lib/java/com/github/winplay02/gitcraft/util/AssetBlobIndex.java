@@ -0,0 +1,115 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.github.winplay02.gitcraft.LibraryPaths;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+/**
+ * Persistent index of the git blobs, that asset objects are stored as in the repository.
+ * Assets are identified by their SHA1 checksum (as listed in the assets index) and the variant of their content (e.g. whether it was transformed before being inserted),
+ * so that assets shared by many versions are only inserted into the object database once.
+ * <p>
+ * The index file is loaded lazily on first use, new entries are appended by {@link #save()}.
+ * Blobs may be missing from a repository (e.g. if it was recreated), so users have to check for their existence.
+ */
+public final class AssetBlobIndex {
+	private static final Map<String, ObjectId> blobs = new ConcurrentHashMap<>();
+	private static final ConcurrentLinkedQueue<String> pendingEntries = new ConcurrentLinkedQueue<>();
+	private static volatile boolean loaded = false;
+
+	private AssetBlobIndex() {}
+
+	/**
+	 * @param assetHash SHA1 checksum of the asset
+	 * @param variant Variant of the content
+	 * @return Id of the blob, the asset was stored as, or empty if it is unknown
+	 */
+	public static Optional<ObjectId> lookup(String assetHash, String variant) {
+		return Optional.ofNullable(getBlobs().get(key(assetHash, variant)));
+	}
+
+	/**
+	 * Records the blob, an asset was stored as.
+	 *
+	 * @param assetHash SHA1 checksum of the asset
+	 * @param variant Variant of the content
+	 * @param blobId Id of the blob
+	 */
+	public static void record(String assetHash, String variant, ObjectId blobId) {
+		String key = key(assetHash, variant);
+		ObjectId previousBlobId = getBlobs().put(key, blobId);
+		if (!blobId.equals(previousBlobId)) {
+			pendingEntries.add(key + "\t" + blobId.getName());
+		}
+	}
+
+	/**
+	 * Appends all newly recorded entries to the index file. Nothing is written, if there is no index file.
+	 *
+	 * @throws IOException If the index file cannot be written
+	 */
+	public static synchronized void save() throws IOException {
+		Path indexFile = getIndexFile();
+		List<String> entries = new ArrayList<>();
+		String entry;
+		while ((entry = pendingEntries.poll()) != null) {
+			entries.add(entry);
+		}
+		if (entries.isEmpty() || indexFile == null) {
+			return;
+		}
+		Files.createDirectories(indexFile.getParent());
+		Files.write(indexFile, entries, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+	}
+
+	private static String key(String assetHash, String variant) {
+		return assetHash + "\t" + variant;
+	}
+
+	private static Path getIndexFile() {
+		return LibraryPaths.MAIN_ARTIFACT_STORE != null ? LibraryPaths.MAIN_ARTIFACT_STORE.resolve("asset-blobs.tsv") : null;
+	}
+
+	private static Map<String, ObjectId> getBlobs() {
+		if (!loaded) {
+			synchronized (AssetBlobIndex.class) {
+				if (!loaded) {
+					load();
+					loaded = true;
+				}
+			}
+		}
+		return blobs;
+	}
+
+	private static void load() {
+		Path indexFile = getIndexFile();
+		if (indexFile == null || !Files.exists(indexFile)) {
+			return;
+		}
+		try (Stream<String> lines = Files.lines(indexFile, StandardCharsets.UTF_8)) {
+			// later lines are newer and replace earlier entries of the same asset
+			lines.forEach(line -> {
+				int separator = line.lastIndexOf('\t');
+				if (separator > 0 && ObjectId.isId(line.substring(separator + 1))) {
+					blobs.put(line.substring(0, separator), ObjectId.fromString(line.substring(separator + 1)));
+				}
+			});
+		} catch (IOException | UncheckedIOException e) {
+			MiscHelper.println("Asset blob index %s could not be read and is ignored: %s", indexFile, e);
+		}
+	}
+}
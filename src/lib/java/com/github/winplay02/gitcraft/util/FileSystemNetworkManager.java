@@ -10,19 +10,31 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -79,11 +91,15 @@ public class FileSystemNetworkManager {
 				if (completedJobs.containsKey(localFileInfo.targetFile())) {
 					MiscHelper.panic("Cannot fulfill download to %s, there are multiple requests with different outcomes to the same file", localFileInfo.targetFile());
 				}
+				if (Library.CONF_GLOBAL.offline()) {
+					MiscHelper.panic("%s %s is not available locally and cannot be fetched from %s in offline mode", localFileInfo.outputFileKind(), localFileInfo.outputFileId(), url);
+				}
+				boolean verifiedWhileFetching = false;
 				do {
 					try {
 						MiscHelper.println("Fetching %s %s from: %s", localFileInfo.outputFileKind(), localFileInfo.outputFileId(), url);
 						try {
-							FileSystemNetworkManager.fetchFileAsync(url, localFileInfo.targetFile(), concurrentLimit).get();
+							verifiedWhileFetching = FileSystemNetworkManager.fetchFileAsync(url, localFileInfo, concurrentLimit).get();
 							if (!retry) {
 								break;
 							}
@@ -92,16 +108,18 @@ public class FileSystemNetworkManager {
 						}
 					} catch (FileNotFoundException | URISyntaxException e1) {
 						MiscHelper.println("\u001B[31mFailed to fetch URL: %s (%s)\u001B[0m", url, e1);
+						discardIncompleteDownload(localFileInfo.targetFile());
 						MiscHelper.deleteFile(localFileInfo.targetFile());
 						MiscHelper.panicBecause(e1, "File download failed");
 					} catch (Throwable e1) {
 						MiscHelper.println("\u001B[31mFailed to fetch URL (retrying in %sms): %s (%s)\u001B[0m", Library.CONF_GLOBAL.failedFetchRetryInterval(), url, e1);
 						e1.printStackTrace();
+						// an incomplete download file is kept, so that the next attempt can resume it
 						MiscHelper.deleteFile(localFileInfo.targetFile());
 						MiscHelper.sleep(Library.CONF_GLOBAL.failedFetchRetryInterval());
 					}
-				} while (!checksumCheckFileIsValidAndExists(localFileInfo, true, true));
-				if (!retry && !checksumCheckFileIsValidAndExists(localFileInfo, true, true)) {
+				} while (!verifiedWhileFetching && !checksumCheckFileIsValidAndExists(localFileInfo, true, true));
+				if (!retry && !verifiedWhileFetching && !checksumCheckFileIsValidAndExists(localFileInfo, true, true)) {
 					MiscHelper.panic("File download failed");
 				}
 				try (LockGuard $$ = acquireDownloadJobsReadLock()) {
@@ -119,8 +137,193 @@ public class FileSystemNetworkManager {
 
 	protected static final Map<String, Semaphore> connectionLimiter = new ConcurrentHashMap<>();
 
-	protected static CompletableFuture<HttpResponse<Path>> fetchFileAsync(URI uri, Path targetFile, int concurrentLimit) {
-		HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+	/**
+	 * @param targetFile Final path of a download
+	 * @return Path the download is written to, before it is moved to its final path
+	 */
+	protected static Path downloadFile(Path targetFile) {
+		return targetFile.resolveSibling(targetFile.getFileName() + ".download");
+	}
+
+	/**
+	 * @param targetFile Final path of a download
+	 * @return Path of the file storing the {@link ResumeInfo} of an incomplete download
+	 */
+	protected static Path resumeInfoFile(Path targetFile) {
+		return targetFile.resolveSibling(targetFile.getFileName() + ".download.resume");
+	}
+
+	/**
+	 * Information to resume an incomplete download using a range request.
+	 *
+	 * @param validator Strong ETag or Last-Modified value of the original response, sent as If-Range so that a changed resource is fetched completely
+	 * @param length Total length of the resource in bytes
+	 */
+	protected record ResumeInfo(String validator, long length) {
+		protected static ResumeInfo of(HttpHeaders headers, long length) {
+			if (length < 0) {
+				return null;
+			}
+			Optional<String> etag = headers.firstValue("ETag").filter(value -> !value.startsWith("W/"));
+			return etag.or(() -> headers.firstValue("Last-Modified")).map(validator -> new ResumeInfo(validator, length)).orElse(null);
+		}
+
+		protected static ResumeInfo read(Path file) {
+			try {
+				List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+				return lines.size() == 2 ? new ResumeInfo(lines.get(0), Long.parseLong(lines.get(1))) : null;
+			} catch (IOException | NumberFormatException e) {
+				return null;
+			}
+		}
+
+		protected void write(Path file) throws IOException {
+			Files.write(file, List.of(this.validator(), String.valueOf(this.length())), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Removes an incomplete download, so that the next attempt starts from the beginning.
+	 *
+	 * @param targetFile Final path of a download
+	 */
+	protected static void discardIncompleteDownload(Path targetFile) {
+		MiscHelper.deleteFile(resumeInfoFile(targetFile));
+		MiscHelper.deleteFile(downloadFile(targetFile));
+	}
+
+	/**
+	 * @param targetFile Final path of a download
+	 * @param resumeInfo Information stored by the previous attempt, or null
+	 * @return Offset to resume an incomplete download at, or 0 if there is nothing to resume
+	 */
+	private static long resumeOffset(Path targetFile, ResumeInfo resumeInfo) {
+		Path downloadFile = downloadFile(targetFile);
+		if (resumeInfo == null || !Files.isRegularFile(downloadFile)) {
+			return 0;
+		}
+		try {
+			long size = Files.size(downloadFile);
+			return size < resumeInfo.length() ? size : 0;
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * @param contentRange Value of a Content-Range header, e.g. {@code bytes 100-199/200}
+	 * @param offset Expected start of the range
+	 * @param length Expected total length
+	 * @return Whether the range starts at the expected offset and the resource has the expected total length
+	 */
+	private static boolean contentRangeMatches(String contentRange, long offset, long length) {
+		return contentRange != null && contentRange.startsWith(String.format("bytes %s-", offset)) && contentRange.endsWith("/" + length);
+	}
+
+	/**
+	 * Body subscriber, that writes the body to a file and calculates its checksum while the bytes arrive.
+	 */
+	protected static final class ChecksumFileBodySubscriber implements HttpResponse.BodySubscriber<String> {
+		private final FileChannel channel;
+		private final IntegrityAlgorithm.StreamingChecksum checksum;
+		private final CompletableFuture<String> result = new CompletableFuture<>();
+		private Flow.Subscription subscription;
+
+		/**
+		 * @param file File to write to
+		 * @param append Whether the body continues the existing contents of the file, which are then also fed into the checksum
+		 * @param checksum Checksum to calculate, or null
+		 * @throws IOException If the file cannot be opened or read
+		 */
+		protected ChecksumFileBodySubscriber(Path file, boolean append, IntegrityAlgorithm.StreamingChecksum checksum) throws IOException {
+			this.channel = append ?
+				FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE) :
+				FileChannel.open(file, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			this.checksum = checksum;
+			if (append) {
+				ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+				while (this.channel.read(buffer) >= 0) {
+					buffer.flip();
+					if (this.checksum != null) {
+						this.checksum.update(buffer);
+					}
+					buffer.clear();
+				}
+			}
+		}
+
+		@Override
+		public CompletionStage<String> getBody() {
+			return this.result;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(1);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> items) {
+			try {
+				for (ByteBuffer item : items) {
+					if (this.checksum != null) {
+						this.checksum.update(item.duplicate());
+					}
+					while (item.hasRemaining()) {
+						this.channel.write(item);
+					}
+				}
+				this.subscription.request(1);
+			} catch (IOException e) {
+				this.subscription.cancel();
+				this.onError(e);
+			}
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			this.closeChannel();
+			this.result.completeExceptionally(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			this.closeChannel();
+			this.result.complete(this.checksum != null ? this.checksum.finish() : null);
+		}
+
+		private void closeChannel() {
+			try {
+				this.channel.close();
+			} catch (IOException e) {
+				this.result.completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * Fetches a file. The file is first written to a separate download file, while calculating its checksum (if supported by the integrity algorithm).
+	 * Only if the checksum matches (or cannot be calculated while downloading), the download file is atomically moved to the target file.
+	 * If a previous attempt left an incomplete download file, only the missing bytes are requested using a range request, provided that the resource did not change since.
+	 *
+	 * @param uri URI to fetch
+	 * @param localFileInfo Information about the target file
+	 * @param concurrentLimit Max amount of concurrent requests to the origin, or a non-positive value to use the configured limit
+	 * @return Future, which completes with whether the target file was verified while downloading, so that it does not need to be checked again
+	 */
+	protected static CompletableFuture<Boolean> fetchFileAsync(URI uri, LocalFileInfo localFileInfo, int concurrentLimit) {
+		Path targetFile = localFileInfo.targetFile();
+		Path downloadFile = downloadFile(targetFile);
+		Path resumeInfoFile = resumeInfoFile(targetFile);
+		ResumeInfo previousResumeInfo = ResumeInfo.read(resumeInfoFile);
+		long resumeOffset = resumeOffset(targetFile, previousResumeInfo);
+		HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri).GET();
+		if (resumeOffset > 0) {
+			MiscHelper.println("Resuming download of %s %s at byte %s of %s", localFileInfo.outputFileKind(), localFileInfo.outputFileId(), resumeOffset, previousResumeInfo.length());
+			requestBuilder.header("Range", String.format("bytes=%s-", resumeOffset)).header("If-Range", previousResumeInfo.validator());
+		}
+		HttpRequest request = requestBuilder.build();
 		final Semaphore semaphore = connectionLimiter.computeIfAbsent(uri.getHost().toLowerCase(Locale.ROOT), $ ->
 				new Semaphore(concurrentLimit > 0 ?
 						Math.min(concurrentLimit, Library.CONF_GLOBAL.maxConcurrentHttpRequestsPerOrigin())
@@ -132,15 +335,180 @@ public class FileSystemNetworkManager {
 				MiscHelper.panicBecause(e, "Cannot create directories to store artifact %s in", targetFile);
 			}
 		}
+		boolean verifyChecksum = localFileInfo.checksum() != null && localFileInfo.integrityAlgorithm() != null && Library.CONF_INTEGRITY.verifyChecksums();
+		HttpResponse.BodyHandler<String> bodyHandler = responseInfo -> {
+			if (responseInfo.statusCode() < 200 || responseInfo.statusCode() >= 300) {
+				return HttpResponse.BodySubscribers.replacing(null);
+			}
+			try {
+				boolean resumed = responseInfo.statusCode() == 206;
+				long length;
+				if (resumed) {
+					// partial content is only requested for resources with a known length
+					if (resumeOffset == 0 || !contentRangeMatches(responseInfo.headers().firstValue("Content-Range").orElse(null), resumeOffset, previousResumeInfo.length())) {
+						discardIncompleteDownload(targetFile);
+						throw new IOException(String.format("Unexpected Content-Range for %s, restarting download", uri));
+					}
+					length = previousResumeInfo.length();
+				} else {
+					length = responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1L);
+					ResumeInfo resumeInfo = ResumeInfo.of(responseInfo.headers(), length);
+					if (resumeInfo != null) {
+						resumeInfo.write(resumeInfoFile);
+					} else {
+						Files.deleteIfExists(resumeInfoFile);
+					}
+				}
+				return new ChecksumFileBodySubscriber(downloadFile, resumed, verifyChecksum ? localFileInfo.integrityAlgorithm().createStreamingChecksum(length) : null);
+			} catch (IOException e) {
+				MiscHelper.throwUnchecked(e);
+				return null;
+			}
+		};
 		semaphore.acquireUninterruptibly();
-		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofFile(targetFile, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE, StandardOpenOption.WRITE)).thenApply(response -> {
+		return httpClient.sendAsync(request, bodyHandler).thenApply(response -> {
 			if (response.statusCode() == 404) {
 				MiscHelper.throwUnchecked(new FileNotFoundException(uri.toString()));
 			}
-			return response;
+			if (response.statusCode() == 416) {
+				discardIncompleteDownload(targetFile);
+			}
+			if (response.statusCode() < 200 || response.statusCode() >= 300) {
+				MiscHelper.throwUnchecked(new IOException(String.format("Unexpected HTTP status %s for %s", response.statusCode(), uri)));
+			}
+			try {
+				Files.deleteIfExists(resumeInfoFile);
+				return completeDownload(localFileInfo, downloadFile, response.body());
+			} catch (IOException e) {
+				MiscHelper.throwUnchecked(e);
+				return false;
+			}
 		}).whenComplete(($, $$) -> semaphore.release());
 	}
 
+	private static boolean completeDownload(LocalFileInfo localFileInfo, Path downloadFile, String actualChecksum) throws IOException {
+		if (actualChecksum != null && !actualChecksum.equalsIgnoreCase(localFileInfo.checksum())) {
+			if (Library.CONF_GLOBAL.checksumRemoveInvalidFiles()) {
+				MiscHelper.println("%s-Checksum of downloaded %s %s is %s, expected %s. The mismatching file will now be removed \u001B[31m(checksums mismatch)\u001B[0m", localFileInfo.integrityAlgorithm().getAlgorithmName(), localFileInfo.outputFileKind(), localFileInfo.outputFileId(), actualChecksum, localFileInfo.checksum());
+				Files.deleteIfExists(downloadFile);
+				return false;
+			}
+			MiscHelper.println("%s-Checksum of downloaded %s %s is %s, expected %s. \u001B[31m(checksums mismatch)\u001B[0m", localFileInfo.integrityAlgorithm().getAlgorithmName(), localFileInfo.outputFileKind(), localFileInfo.outputFileId(), actualChecksum, localFileInfo.checksum());
+			Files.move(downloadFile, localFileInfo.targetFile(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			localFileInfo.integrityAlgorithm().invalidateFile(localFileInfo.targetFile());
+			return true;
+		}
+		Files.move(downloadFile, localFileInfo.targetFile(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		if (actualChecksum == null) {
+			if (localFileInfo.integrityAlgorithm() != null) {
+				localFileInfo.integrityAlgorithm().invalidateFile(localFileInfo.targetFile());
+			}
+			return false;
+		}
+		localFileInfo.integrityAlgorithm().seedChecksumFile(localFileInfo.targetFile(), actualChecksum.toLowerCase(Locale.ROOT));
+		MiscHelper.println("Downloaded %s %s is valid \u001B[32m(checksums match)\u001B[0m", localFileInfo.outputFileKind(), localFileInfo.outputFileId());
+		return true;
+	}
+
+	/**
+	 * Validators of a cached response, which are sent with a conditional request to revalidate the cached response.
+	 *
+	 * @param etag Value of the ETag header, or null
+	 * @param lastModified Value of the Last-Modified header, or null
+	 */
+	protected record HttpValidators(String etag, String lastModified) {
+	}
+
+	/**
+	 * Fetches the contents of an URL like {@link #fetchAllFromURLSync(URL)}, but keeps a copy of the response along with its validators (ETag / Last-Modified).
+	 * If a copy exists, a conditional request is sent and the copy is used if the server reports it as not modified.
+	 * If the network is unavailable, the server responds with an error or offline mode is enabled, the copy is used instead.
+	 *
+	 * @param url URL to fetch
+	 * @param cacheDirectory Directory to keep copies of responses in
+	 * @return Contents of the URL
+	 * @throws IOException If the URL cannot be fetched (or the server responds with an error) and no copy exists
+	 * @throws URISyntaxException If the URL is invalid
+	 * @throws InterruptedException If interrupted while waiting for the response
+	 */
+	public static String fetchAllFromURLCached(URL url, Path cacheDirectory) throws IOException, URISyntaxException, InterruptedException {
+		String cacheKey;
+		try {
+			cacheKey = HexFormat.of().formatHex(MessageDigest.getInstance("SHA1").digest(url.toString().getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+		Path bodyFile = cacheDirectory.resolve(cacheKey + ".body");
+		Path validatorsFile = cacheDirectory.resolve(cacheKey + ".validators.json");
+		boolean cached = Files.exists(bodyFile);
+		if (Library.CONF_GLOBAL.offline()) {
+			if (!cached) {
+				throw new IOException(String.format("%s was never fetched and cannot be fetched in offline mode", url));
+			}
+			return Files.readString(bodyFile, StandardCharsets.UTF_8);
+		}
+		HttpResponse<String> response;
+		try {
+			response = httpClient.send(createConditionalRequest(url, cached ? validatorsFile : null), HttpResponse.BodyHandlers.ofString());
+			if (response.statusCode() == 304 && !Files.exists(bodyFile)) {
+				// Not modified, but the copy is gone, so the full response is required
+				cached = false;
+				response = httpClient.send(createConditionalRequest(url, null), HttpResponse.BodyHandlers.ofString());
+			}
+		} catch (IOException e) {
+			if (!cached) {
+				throw e;
+			}
+			MiscHelper.println("\u001B[31mFailed to fetch URL: %s (%s), using the previously fetched response\u001B[0m", url, e);
+			return Files.readString(bodyFile, StandardCharsets.UTF_8);
+		}
+		if (response.statusCode() == 304 && cached) {
+			return Files.readString(bodyFile, StandardCharsets.UTF_8);
+		}
+		if (response.statusCode() == 404) {
+			throw new FileNotFoundException(url.toString());
+		}
+		if (response.statusCode() < 200 || response.statusCode() >= 300) {
+			if (!cached) {
+				throw new IOException(String.format("Failed to fetch URL: %s, status code was: %s", url, response.statusCode()));
+			}
+			MiscHelper.println("\u001B[31mFailed to fetch URL: %s (status code %s), using the previously fetched response\u001B[0m", url, response.statusCode());
+			return Files.readString(bodyFile, StandardCharsets.UTF_8);
+		}
+		Files.createDirectories(cacheDirectory);
+		Path tmpBodyFile = bodyFile.resolveSibling(bodyFile.getFileName() + ".tmp");
+		Files.writeString(tmpBodyFile, response.body(), StandardCharsets.UTF_8);
+		Files.move(tmpBodyFile, bodyFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		HttpValidators validators = new HttpValidators(response.headers().firstValue("ETag").orElse(null), response.headers().firstValue("Last-Modified").orElse(null));
+		if (validators.etag() != null || validators.lastModified() != null) {
+			SerializationHelper.writeAllToPath(validatorsFile, SerializationHelper.serialize(validators));
+		} else {
+			Files.deleteIfExists(validatorsFile);
+		}
+		return response.body();
+	}
+
+	/**
+	 * @param url URL to fetch
+	 * @param validatorsFile Validators of a cached response to revalidate, or null (or not existing) for an unconditional request
+	 * @return Request
+	 * @throws IOException If the validators cannot be read
+	 * @throws URISyntaxException If the URL is invalid
+	 */
+	private static HttpRequest createConditionalRequest(URL url, Path validatorsFile) throws IOException, URISyntaxException {
+		HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(url.toURI()).GET();
+		if (validatorsFile != null && Files.exists(validatorsFile)) {
+			HttpValidators validators = SerializationHelper.deserialize(SerializationHelper.fetchAllFromPath(validatorsFile), HttpValidators.class);
+			if (validators.etag() != null) {
+				requestBuilder.header("If-None-Match", validators.etag());
+			}
+			if (validators.lastModified() != null) {
+				requestBuilder.header("If-Modified-Since", validators.lastModified());
+			}
+		}
+		return requestBuilder.build();
+	}
+
 	public static String fetchAllFromURLSync(URL url) throws IOException, URISyntaxException, InterruptedException {
 		HttpRequest request = HttpRequest.newBuilder(url.toURI()).GET().build();
 		HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
@@ -0,0 +1,148 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Canonicalizes JSON documents by sorting the keys of all objects with {@link String#compareTo(String)}, i.e. by UTF-16 code units.
+ * The output is indented with tabs and HTML-safe, like the output of Gson. Number literals are copied unchanged, they are not normalized.
+ * Members with a null value are omitted (null elements of arrays are kept), and duplicate keys keep their last value.
+ * Each object is read completely, including everything nested in it, before it is written. Only arrays outside of any object are copied element by element.
+ */
+public final class JsonCanonicalizer {
+	private static final Object NULL = new Object();
+
+	/**
+	 * Literal of a number, which is written as-is.
+	 *
+	 * @param literal Literal
+	 */
+	private record NumberLiteral(String literal) {
+	}
+
+	private JsonCanonicalizer() {}
+
+	/**
+	 * @param json JSON document
+	 * @return Canonical JSON document
+	 * @throws JsonSyntaxException If the document is not valid JSON
+	 */
+	public static String canonicalize(String json) {
+		return new String(canonicalize(json.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param json UTF-8 encoded JSON document
+	 * @return UTF-8 encoded canonical JSON document
+	 * @throws JsonSyntaxException If the document is not valid JSON
+	 */
+	public static byte[] canonicalize(byte[] json) {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(json.length + json.length / 8);
+		try (Reader reader = new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8); Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
+			JsonReader jsonReader = new JsonReader(reader);
+			jsonReader.setLenient(true);
+			JsonWriter jsonWriter = new JsonWriter(writer);
+			// same settings as Gson applies when serializing
+			jsonWriter.setIndent("\t");
+			jsonWriter.setHtmlSafe(true);
+			jsonWriter.setSerializeNulls(false);
+			if (jsonReader.peek() == JsonToken.END_DOCUMENT) {
+				throw new JsonSyntaxException("Empty JSON document");
+			}
+			copyValue(jsonReader, jsonWriter);
+			if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+				throw new JsonSyntaxException("JSON document was not fully consumed");
+			}
+			jsonWriter.flush();
+		} catch (IOException | IllegalStateException | NumberFormatException e) {
+			throw new JsonSyntaxException(e);
+		}
+		return outputStream.toByteArray();
+	}
+
+	private static void copyValue(JsonReader in, JsonWriter out) throws IOException {
+		if (in.peek() == JsonToken.BEGIN_ARRAY) {
+			in.beginArray();
+			out.beginArray();
+			while (in.hasNext()) {
+				copyValue(in, out);
+			}
+			in.endArray();
+			out.endArray();
+		} else {
+			writeValue(out, readValue(in));
+		}
+	}
+
+	private static Object readValue(JsonReader in) throws IOException {
+		return switch (in.peek()) {
+			case BEGIN_OBJECT -> {
+				Map<String, Object> members = new TreeMap<>();
+				in.beginObject();
+				while (in.hasNext()) {
+					// later members replace earlier members with the same key
+					members.put(in.nextName(), readValue(in));
+				}
+				in.endObject();
+				yield members;
+			}
+			case BEGIN_ARRAY -> {
+				List<Object> elements = new ArrayList<>();
+				in.beginArray();
+				while (in.hasNext()) {
+					elements.add(readValue(in));
+				}
+				in.endArray();
+				yield elements;
+			}
+			case STRING -> in.nextString();
+			case NUMBER -> new NumberLiteral(in.nextString());
+			case BOOLEAN -> in.nextBoolean();
+			case NULL -> {
+				in.nextNull();
+				yield NULL;
+			}
+			default -> throw new IllegalStateException("Unexpected JSON token: " + in.peek());
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void writeValue(JsonWriter out, Object value) throws IOException {
+		switch (value) {
+			case Map<?, ?> members -> {
+				out.beginObject();
+				for (Map.Entry<String, Object> member : ((Map<String, Object>) members).entrySet()) {
+					out.name(member.getKey());
+					writeValue(out, member.getValue());
+				}
+				out.endObject();
+			}
+			case List<?> elements -> {
+				out.beginArray();
+				for (Object element : elements) {
+					writeValue(out, element);
+				}
+				out.endArray();
+			}
+			case String string -> out.value(string);
+			case NumberLiteral number -> out.jsonValue(number.literal());
+			case Boolean bool -> out.value(bool);
+			default -> out.nullValue();
+		}
+	}
+}
@@ -2,6 +2,7 @@ package com.github.winplay02.gitcraft.util;
 
 import com.github.winplay02.gitcraft.Library;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -36,6 +37,8 @@ import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class MiscHelper {
 	public static void sleep(long ms) {
@@ -98,6 +101,37 @@ public class MiscHelper {
 		}
 	}
 
+	/**
+	 * Writes all files of a directory into a new zip archive, streaming each file directly into the archive instead of copying it into a zip file system first.
+	 * Entries are written in sorted order, including entries for all directories.
+	 * The archive is only moved to its final location once it is complete, so that an interrupted run does not leave a partial archive behind.
+	 *
+	 * @param source Directory to pack
+	 * @param archive Zip archive to create, an existing archive is replaced
+	 * @param targetPrefix Directory inside the archive, the contents of the source directory are placed in
+	 * @throws IOException If the directory cannot be read or the archive cannot be written
+	 */
+	public static void packDirectory(Path source, Path archive, String targetPrefix) throws IOException {
+		Path partialArchive = archive.resolveSibling(archive.getFileName().toString() + ".partial");
+		try (Stream<Path> walk = Files.walk(source);
+			 ZipOutputStream outputStream = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(partialArchive)))) {
+			for (Path path : (Iterable<? extends Path>) walk.sorted()::iterator) {
+				String relativeName = source.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+				String entryName = relativeName.isEmpty() ? targetPrefix : targetPrefix + "/" + relativeName;
+				if (Files.isDirectory(path)) {
+					outputStream.putNextEntry(new ZipEntry(entryName + "/"));
+				} else if (Files.isRegularFile(path)) {
+					outputStream.putNextEntry(new ZipEntry(entryName));
+					Files.copy(path, outputStream);
+				} else {
+					continue;
+				}
+				outputStream.closeEntry();
+			}
+		}
+		Files.move(partialArchive, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
 	public static void copyLargeDirExcept(Path source, Path target, List<Path> exceptions) {
 		Map<Path, Integer> pathUsage = new HashMap<>();
 		try (Stream<Path> walk = Files.walk(source)) {
@@ -211,14 +245,6 @@ public class MiscHelper {
 		}
 	}
 
-	public static List<Path> listRecursivelyFilteredExtension(Path directory, String extension) throws IOException {
-		try (Stream<Path> walk = Files.walk(directory)) {
-			return walk.sorted(Comparator.naturalOrder())
-				.filter(path -> path.toString().endsWith(extension))
-				.collect(Collectors.toList());
-		}
-	}
-
 	public static Optional<Path> findRecursivelyByName(Path directory, String name) throws IOException {
 		try (Stream<Path> walk = Files.walk(directory)) {
 			return walk.sorted(Comparator.naturalOrder())
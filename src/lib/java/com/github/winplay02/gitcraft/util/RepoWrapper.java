@@ -19,15 +19,23 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TimeZone;
 
 public class RepoWrapper implements Closeable {
 	private final Git git;
 	private final Path root_path;
+	/**
+	 * Index of all commits reachable from any ref, by their full commit message.
+	 * It is populated on the first lookup and incrementally updated whenever the ref tips change.
+	 */
+	private final Map<String, ObjectId> commitsByMessage = new HashMap<>();
+	private final Set<ObjectId> indexedTips = new HashSet<>();
 
 	public Git getGit() {
 		return this.git;
@@ -59,11 +67,83 @@ public class RepoWrapper implements Closeable {
 		}
 	}
 
+	private Set<ObjectId> currentTips() throws IOException {
+		Set<ObjectId> tips = new HashSet<>();
+		try (RevWalk walk = new RevWalk(this.git.getRepository())) {
+			for (Ref ref : this.git.getRepository().getRefDatabase().getRefs()) {
+				ObjectId objectId = ref.getObjectId();
+				if (objectId == null) {
+					continue;
+				}
+				try {
+					tips.add(walk.parseCommit(objectId).copy());
+				} catch (MissingObjectException | IncorrectObjectTypeException ignored) {
+				}
+			}
+		}
+		return tips;
+	}
+
+	private boolean isReachableFromAny(ObjectId commitId, Set<ObjectId> tips) throws IOException {
+		try (RevWalk walk = new RevWalk(this.git.getRepository())) {
+			RevCommit commit;
+			try {
+				commit = walk.parseCommit(commitId);
+			} catch (MissingObjectException | IncorrectObjectTypeException e) {
+				return false;
+			}
+			for (ObjectId tip : tips) {
+				if (walk.isMergedInto(commit, walk.parseCommit(tip))) {
+					return true;
+				}
+				walk.reset();
+			}
+			return false;
+		}
+	}
+
+	private synchronized Map<String, ObjectId> getCommitIndex() throws IOException {
+		Set<ObjectId> tips = this.currentTips();
+		if (tips.equals(this.indexedTips)) {
+			return this.commitsByMessage;
+		}
+		// Only walk commits that are new since the last update, unless a previously indexed tip is gone (e.g. a ref was deleted or reset)
+		boolean incremental = !this.indexedTips.isEmpty();
+		for (ObjectId indexedTip : this.indexedTips) {
+			if (incremental && !tips.contains(indexedTip) && !this.isReachableFromAny(indexedTip, tips)) {
+				incremental = false;
+			}
+		}
+		if (!incremental) {
+			this.commitsByMessage.clear();
+		}
+		Map<String, ObjectId> discoveredCommits = new HashMap<>();
+		try (RevWalk walk = new RevWalk(this.git.getRepository())) {
+			for (ObjectId tip : tips) {
+				walk.markStart(walk.parseCommit(tip));
+			}
+			if (incremental) {
+				for (ObjectId indexedTip : this.indexedTips) {
+					if (this.git.getRepository().getObjectDatabase().has(indexedTip)) {
+						walk.markUninteresting(walk.parseCommit(indexedTip));
+					}
+				}
+			}
+			for (RevCommit commit : walk) {
+				discoveredCommits.putIfAbsent(commit.getFullMessage(), commit.copy());
+			}
+		}
+		this.commitsByMessage.putAll(discoveredCommits);
+		this.indexedTips.clear();
+		this.indexedTips.addAll(tips);
+		return this.commitsByMessage;
+	}
+
 	public boolean existsRevWithCommitMessage(String commitMessage) throws GitAPIException, IOException {
 		if (this.git.getRepository().resolve(Constants.HEAD) == null) {
 			return false;
 		}
-		return this.git.log().all().setRevFilter(new CommitMsgFilter(commitMessage)).call().iterator().hasNext();
+		return this.getCommitIndex().containsKey(commitMessage);
 	}
 
 	public boolean existsRevWithCommitMessageNoExcept(String commitMessage) {
@@ -76,11 +156,11 @@ public class RepoWrapper implements Closeable {
 	}
 
 	public RevCommit findRevByCommitMessage(String commitMessage) throws GitAPIException, IOException {
-		Iterator<RevCommit> iterator = this.git.log().all().setRevFilter(new CommitMsgFilter(commitMessage)).call().iterator();
-		if (iterator.hasNext()) {
-			return iterator.next();
+		ObjectId commitId = this.getCommitIndex().get(commitMessage);
+		if (commitId == null) {
+			return null;
 		}
-		return null;
+		return this.git.getRepository().parseCommit(commitId);
 	}
 
 	public boolean doesBranchExist(String target_branch) throws IOException {
@@ -117,6 +197,10 @@ public class RepoWrapper implements Closeable {
 		this.git.commit().setMessage(message).setAuthor(author).setCommitter(author).setSign(false).call();
 	}
 
+	public TreeCommitBuilder createTreeCommitBuilder(MiscHelper.PathContentTransformer contentTransformer) {
+		return new TreeCommitBuilder(this.git.getRepository(), contentTransformer);
+	}
+
 	public void createBranchFromCurrentCommit(String branchName) throws GitAPIException, IOException {
 		try (RevWalk walk = new RevWalk(this.git.getRepository())) {
 			ObjectId commitId = this.git.getRepository().resolve(Constants.HEAD);
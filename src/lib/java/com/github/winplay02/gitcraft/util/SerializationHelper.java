@@ -2,9 +2,6 @@ package com.github.winplay02.gitcraft.util;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.gson.TypeAdapter;
 import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
@@ -25,10 +22,8 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
 import java.util.function.Function;
 
 public class SerializationHelper {
@@ -108,6 +103,12 @@ public class SerializationHelper {
 		return writer.toString();
 	}
 
+	public static <T> String serializeSingleLine(T objectToSerialize) {
+		StringWriter writer = new StringWriter();
+		gson.toJson(objectToSerialize, objectToSerialize.getClass(), new JsonWriter(writer));
+		return writer.toString();
+	}
+
 	public static void writeAllToPath(Path path, String json) throws IOException {
 		Files.writeString(path, json, StandardCharsets.UTF_8);
 	}
@@ -127,26 +128,4 @@ public class SerializationHelper {
 		}
 		return outStream.toString(StandardCharsets.UTF_8);
 	}
-
-	private static JsonElement sortJsonElement(JsonElement element) {
-		Queue<JsonElement> queue = new LinkedList<>();
-		queue.add(element);
-		while (!queue.isEmpty()) {
-			JsonElement subject = queue.poll();
-			if (subject instanceof final JsonObject object) {
-				Map<String, JsonElement> mappings = new HashMap<>(object.asMap());
-				object.asMap().clear();
-				mappings.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach((entry) -> object.add(entry.getKey(), entry.getValue()));
-				mappings.values().stream().filter(entry -> entry instanceof JsonObject || entry instanceof JsonArray).forEach(queue::add);
-			}
-			if (subject instanceof final JsonArray array) {
-				array.asList().stream().filter(entry -> entry instanceof JsonObject || entry instanceof JsonArray).forEach(queue::add);
-			}
-		}
-		return element;
-	}
-
-	public static void sortJSONFile(Path path) throws IOException {
-		writeAllToPath(path, serialize(sortJsonElement(gson.fromJson(fetchAllFromPath(path), JsonElement.class))));
-	}
 }
@@ -0,0 +1,183 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.github.winplay02.gitcraft.Library;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Process-wide index of library jars, shared by all pipeline steps (of all versions) using the same library.
+ * Libraries are identified by the SHA1 checksum of their contents, so that identical jars are opened only once, even if they are stored at different paths.
+ * A library stays open as long as any step holds a reference to it. Data derived from a library (e.g. class resolvers) can be attached to it and is shared as well.
+ * Libraries without references are kept open (including their attachments) for later steps, only the least recently released ones are closed once there are too many of them.
+ */
+public final class SharedLibraryIndex {
+	private static final int MAX_UNREFERENCED_LIBRARIES = 64;
+
+	private static final Map<String, SharedLibrary> libraries = new HashMap<>();
+	// access-ordered, the first entry is the least recently released library
+	private static final LinkedHashMap<String, SharedLibrary> unreferencedLibraries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private SharedLibraryIndex() {}
+
+	private static final class SharedLibrary {
+		private final String key;
+		private final Path jar;
+		private final FileSystem fileSystem;
+		private final Map<String, Object> attachments = new ConcurrentHashMap<>();
+		private int references = 0;
+
+		private SharedLibrary(String key, Path jar, FileSystem fileSystem) {
+			this.key = key;
+			this.jar = jar;
+			this.fileSystem = fileSystem;
+		}
+	}
+
+	/**
+	 * Acquires a reference to a library, opening it if it is not open yet.
+	 *
+	 * @param jar Library jar
+	 * @return Reference, that must be closed once the library is no longer used
+	 * @throws IOException If the library cannot be opened
+	 */
+	public static Handle acquire(Path jar) throws IOException {
+		String key = Library.IA_SHA1.getChecksumFileUnconditionally(jar);
+		synchronized (libraries) {
+			SharedLibrary library = libraries.get(key);
+			if (library == null) {
+				library = new SharedLibrary(key, jar, FileSystems.newFileSystem(jar));
+				libraries.put(key, library);
+			} else if (library.references == 0) {
+				unreferencedLibraries.remove(key);
+			}
+			++library.references;
+			return new Handle(library);
+		}
+	}
+
+	/**
+	 * Acquires references to multiple libraries, see {@link #acquire(Path)}.
+	 *
+	 * @param jars Library jars
+	 * @return References in the order of the provided jars, that must be closed once the libraries are no longer used
+	 * @throws IOException If any library cannot be opened, already acquired references are released in this case
+	 */
+	public static Handles acquireAll(Collection<Path> jars) throws IOException {
+		List<Handle> handles = new ArrayList<>(jars.size());
+		try {
+			for (Path jar : jars) {
+				handles.add(acquire(jar));
+			}
+		} catch (IOException | RuntimeException e) {
+			new Handles(handles).close();
+			throw e;
+		}
+		return new Handles(handles);
+	}
+
+	private static void release(SharedLibrary library) throws IOException {
+		SharedLibrary evictedLibrary;
+		synchronized (libraries) {
+			if (--library.references > 0) {
+				return;
+			}
+			unreferencedLibraries.put(library.key, library);
+			if (unreferencedLibraries.size() <= MAX_UNREFERENCED_LIBRARIES) {
+				return;
+			}
+			Iterator<SharedLibrary> iterator = unreferencedLibraries.values().iterator();
+			evictedLibrary = iterator.next();
+			iterator.remove();
+			libraries.remove(evictedLibrary.key);
+		}
+		evictedLibrary.fileSystem.close();
+	}
+
+	/**
+	 * Reference to a shared library.
+	 */
+	public static final class Handle implements Closeable {
+		private final SharedLibrary library;
+		private boolean closed = false;
+
+		private Handle(SharedLibrary library) {
+			this.library = library;
+		}
+
+		/**
+		 * @return Path of the jar, the library was opened from
+		 */
+		public Path jar() {
+			return this.library.jar;
+		}
+
+		/**
+		 * @return Root of the opened library
+		 */
+		public Path root() {
+			return this.library.fileSystem.getPath("/");
+		}
+
+		/**
+		 * Gets data derived from the library, or derives it if it was not derived by any user of the library yet.
+		 * Derived data must be safe to be used concurrently.
+		 *
+		 * @param name    Name identifying the kind of derived data
+		 * @param factory Derives the data from the root of the library
+		 * @param <T>     Type of derived data
+		 * @return Derived data
+		 */
+		@SuppressWarnings("unchecked")
+		public <T> T attachment(String name, Function<Path, T> factory) {
+			return (T) this.library.attachments.computeIfAbsent(name, $ -> factory.apply(this.root()));
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+			release(this.library);
+		}
+	}
+
+	/**
+	 * References to multiple shared libraries.
+	 *
+	 * @param handles References
+	 */
+	public record Handles(List<Handle> handles) implements Closeable {
+		@Override
+		public void close() throws IOException {
+			IOException exception = null;
+			for (Handle handle : this.handles) {
+				try {
+					handle.close();
+				} catch (IOException e) {
+					if (exception == null) {
+						exception = e;
+					} else {
+						exception.addSuppressed(e);
+					}
+				}
+			}
+			if (exception != null) {
+				throw exception;
+			}
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.util.FS;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Builds a commit directly from files and archives, without writing them to the working tree or the index of the repository.
+ * Blobs are streamed into the object database while files are added, the trees are written from an in-core dir cache once the commit is created.
+ * All added content and trees are hashed for every commit; unchanged files and subtrees hash to the objects of the parent commit, which are already present and therefore not written again.
+ */
+public final class TreeCommitBuilder implements Closeable {
+	private final Repository repository;
+	private final ObjectInserter inserter;
+	private final MiscHelper.PathContentTransformer contentTransformer;
+	private final Map<String, TreeEntry> entries = new TreeMap<>();
+
+	private record TreeEntry(ObjectId blobId, FileMode fileMode) {
+	}
+
+	TreeCommitBuilder(Repository repository, MiscHelper.PathContentTransformer contentTransformer) {
+		this.repository = repository;
+		this.inserter = repository.newObjectInserter();
+		this.contentTransformer = contentTransformer;
+	}
+
+	/**
+	 * Adds a single file. A file previously added to the same target is replaced.
+	 * Whether the content is transformed, depends on the target path (source files, like asset objects, may not have a meaningful name).
+	 * Executable files are added as executable, if the file system supports it.
+	 *
+	 * @param source File to add
+	 * @param target Path of the file in the repository, separated by '/'
+	 * @return Id of the inserted blob
+	 * @throws IOException If the file cannot be read or inserted
+	 */
+	public ObjectId addFile(Path source, String target) throws IOException {
+		FS fs = this.repository.getFS();
+		FileMode fileMode = fs.supportsExecute() && fs.canExecute(source.toFile()) ? FileMode.EXECUTABLE_FILE : FileMode.REGULAR_FILE;
+		try (InputStream inputStream = Files.newInputStream(source)) {
+			return this.addContent(Path.of(target), inputStream, Files.size(source), target, fileMode);
+		}
+	}
+
+	/**
+	 * Adds a blob, that is already present in the object database, without reading or inserting any content.
+	 * A file previously added to the same target is replaced.
+	 *
+	 * @param blobId Id of the blob
+	 * @param target Path of the file in the repository, separated by '/'
+	 */
+	public void addBlob(ObjectId blobId, String target) {
+		this.entries.put(target, new TreeEntry(blobId.copy(), FileMode.REGULAR_FILE));
+	}
+
+	/**
+	 * @param objectId Id of an object
+	 * @return Whether the object database already contains the object (objects inserted by this builder are only included once committed)
+	 * @throws IOException If the object database cannot be read
+	 */
+	public boolean hasObject(ObjectId objectId) throws IOException {
+		return this.repository.getObjectDatabase().has(objectId);
+	}
+
+	/**
+	 * @param source File
+	 * @return Whether the content of the file is transformed when it is added
+	 */
+	public boolean isTransformed(Path source) {
+		return this.contentTransformer != null && this.contentTransformer.shouldTransform(source);
+	}
+
+	/**
+	 * @param length Length of the content, or -1 if unknown
+	 */
+	private ObjectId addContent(Path source, InputStream content, long length, String target, FileMode fileMode) throws IOException {
+		ObjectId blobId;
+		if (this.isTransformed(source)) {
+			blobId = this.inserter.insert(Constants.OBJ_BLOB, this.contentTransformer.transform(source, content.readAllBytes()));
+		} else if (length >= 0) {
+			// streamed, so that large files are not held in memory
+			blobId = this.inserter.insert(Constants.OBJ_BLOB, length, content);
+		} else {
+			blobId = this.inserter.insert(Constants.OBJ_BLOB, content.readAllBytes());
+		}
+		this.entries.put(target, new TreeEntry(blobId, fileMode));
+		return blobId;
+	}
+
+	/**
+	 * Adds all entries of an archive below a directory, see {@link ZipExtractor#extract(Path, String, Path, Predicate)}.
+	 *
+	 * @param archive Zip archive
+	 * @param sourceDirectory Directory inside the archive to add, empty or "." to add the whole archive
+	 * @param target Path of the directory in the repository, separated by '/'
+	 * @param filter Filter on the entry names relative to the source directory, or null to add all entries
+	 * @throws IOException If the archive cannot be read or any entry cannot be inserted
+	 */
+	public void addArchive(Path archive, String sourceDirectory, String target, Predicate<String> filter) throws IOException {
+		String prefix = ZipExtractor.normalizePrefix(sourceDirectory);
+		try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+			for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements(); ) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.isDirectory() || !entry.getName().startsWith(prefix)) {
+					continue;
+				}
+				String relativeName = entry.getName().substring(prefix.length());
+				if (filter != null && !filter.test(relativeName)) {
+					continue;
+				}
+				String entryTarget = target.isEmpty() ? relativeName : target + "/" + relativeName;
+				// extracted entries are regular files as well
+				try (InputStream inputStream = zipFile.getInputStream(entry)) {
+					this.addContent(Path.of(entryTarget), inputStream, entry.getSize(), entryTarget, FileMode.REGULAR_FILE);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a commit of all added files on top of HEAD (and any pending MERGE_HEAD), and advances HEAD to the new commit.
+	 *
+	 * @param author Author and committer
+	 * @param message Commit message
+	 * @return Id of the created commit
+	 * @throws IOException If the commit cannot be written
+	 */
+	public ObjectId commit(PersonIdent author, String message) throws IOException {
+		DirCache dirCache = DirCache.newInCore();
+		DirCacheBuilder dirCacheBuilder = dirCache.builder();
+		for (Map.Entry<String, TreeEntry> entry : this.entries.entrySet()) {
+			DirCacheEntry dirCacheEntry = new DirCacheEntry(entry.getKey());
+			dirCacheEntry.setFileMode(entry.getValue().fileMode());
+			dirCacheEntry.setObjectId(entry.getValue().blobId());
+			dirCacheBuilder.add(dirCacheEntry);
+		}
+		dirCacheBuilder.finish();
+		ObjectId treeId = dirCache.writeTree(this.inserter);
+
+		ObjectId headId = this.repository.resolve(Constants.HEAD);
+		List<ObjectId> parentIds = new ArrayList<>();
+		if (headId != null) {
+			parentIds.add(headId);
+		}
+		List<ObjectId> mergeHeads = this.repository.readMergeHeads();
+		if (mergeHeads != null) {
+			parentIds.addAll(mergeHeads);
+		}
+		CommitBuilder commitBuilder = new CommitBuilder();
+		commitBuilder.setTreeId(treeId);
+		commitBuilder.setParentIds(parentIds);
+		commitBuilder.setAuthor(author);
+		commitBuilder.setCommitter(author);
+		commitBuilder.setMessage(message);
+		ObjectId commitId = this.inserter.insert(commitBuilder);
+		this.inserter.flush();
+
+		RefUpdate refUpdate = this.repository.updateRef(Constants.HEAD);
+		refUpdate.setNewObjectId(commitId);
+		refUpdate.setExpectedOldObjectId(headId != null ? headId : ObjectId.zeroId());
+		refUpdate.setRefLogMessage("commit: " + message.lines().findFirst().orElse(""), false);
+		RefUpdate.Result result = refUpdate.update();
+		if (result != RefUpdate.Result.NEW && result != RefUpdate.Result.FAST_FORWARD && result != RefUpdate.Result.FORCED) {
+			MiscHelper.panic("Unsuccessfully advanced HEAD to %s, result was: %s", commitId.getName(), result);
+		}
+		this.repository.writeMergeHeads(null);
+		return commitId;
+	}
+
+	@Override
+	public void close() {
+		this.inserter.close();
+	}
+}
@@ -0,0 +1,180 @@
+package com.github.winplay02.gitcraft.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts zip archives to directories. In contrast to walking a zip file system, the central directory is read once,
+ * all directories are created in a single pass, and entries are decompressed and written in parallel batches.
+ * Files at the destination, that already match the size and CRC of their entry, are not written again.
+ * Optionally, the contents of entries can be transformed while they are extracted, so that they are written only once.
+ */
+public final class ZipExtractor {
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int ENTRIES_PER_BATCH = 256;
+	private static final int MAX_PARALLEL_BATCHES = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+	private ZipExtractor() {}
+
+	private record ExtractEntry(ZipEntry entry, Path target) {
+	}
+
+	/**
+	 * Extracts all entries of an archive below a prefix. The prefix is removed from the target paths,
+	 * so that {@code extract(archive, "data", target, null)} behaves like copying the directory {@code data} of the archive to {@code target}.
+	 *
+	 * @param archive Zip archive
+	 * @param sourcePrefix Directory inside the archive to extract, empty or "." to extract the whole archive
+	 * @param target Target directory
+	 * @param filter Filter on the entry names relative to the prefix (directories end with '/'), or null to extract all entries
+	 * @return Amount of written files, files that were already up to date are not counted
+	 * @throws IOException If the archive cannot be read or any file cannot be written
+	 */
+	public static int extract(Path archive, String sourcePrefix, Path target, Predicate<String> filter) throws IOException {
+		return extract(archive, sourcePrefix, target, filter, null);
+	}
+
+	/**
+	 * Extracts all entries of an archive below a prefix, see {@link #extract(Path, String, Path, Predicate)}, transforming the contents of matching entries.
+	 * Transformed files, whose current content already equals the transformed content, are not written again.
+	 *
+	 * @param archive Zip archive
+	 * @param sourcePrefix Directory inside the archive to extract, empty or "." to extract the whole archive
+	 * @param target Target directory
+	 * @param filter Filter on the entry names relative to the prefix (directories end with '/'), or null to extract all entries
+	 * @param contentTransformer Transformer, that is asked with the target path of each file, or null to extract all contents as-is
+	 * @return Amount of written files, files that were already up to date are not counted
+	 * @throws IOException If the archive cannot be read or any file cannot be written
+	 */
+	public static int extract(Path archive, String sourcePrefix, Path target, Predicate<String> filter, MiscHelper.PathContentTransformer contentTransformer) throws IOException {
+		Path normalizedTarget = target.toAbsolutePath().normalize();
+		String prefix = normalizePrefix(sourcePrefix);
+		List<ExtractEntry> files = new ArrayList<>();
+		Set<Path> directories = new HashSet<>();
+		directories.add(normalizedTarget);
+		try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+			for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements(); ) {
+				ZipEntry entry = entries.nextElement();
+				if (!entry.getName().startsWith(prefix)) {
+					continue;
+				}
+				String relativeName = entry.getName().substring(prefix.length());
+				if (relativeName.isEmpty() || (filter != null && !filter.test(relativeName))) {
+					continue;
+				}
+				Path entryTarget = normalizedTarget.resolve(relativeName).normalize();
+				if (!entryTarget.startsWith(normalizedTarget)) {
+					MiscHelper.panic("Entry %s of archive %s would be extracted outside of %s", entry.getName(), archive, target);
+				}
+				if (entry.isDirectory()) {
+					directories.add(entryTarget);
+				} else {
+					directories.add(entryTarget.getParent());
+					files.add(new ExtractEntry(entry, entryTarget));
+				}
+			}
+			for (Path directory : directories) {
+				Files.createDirectories(directory);
+			}
+			List<Callable<Integer>> batches = new ArrayList<>();
+			for (int i = 0; i < files.size(); i += ENTRIES_PER_BATCH) {
+				List<ExtractEntry> batch = files.subList(i, Math.min(i + ENTRIES_PER_BATCH, files.size()));
+				batches.add(() -> extractBatch(zipFile, batch, contentTransformer));
+			}
+			try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Zip-Extractor").factory())) {
+				return MiscHelper.runTasksInParallelAndAwaitResult(MAX_PARALLEL_BATCHES, executor, batches).stream().mapToInt(Integer::intValue).sum();
+			}
+		}
+	}
+
+	/**
+	 * @param archive Zip archive
+	 * @param directory Directory inside the archive
+	 * @return Whether the archive contains any entry inside the directory
+	 * @throws IOException If the archive cannot be read
+	 */
+	public static boolean containsDirectory(Path archive, String directory) throws IOException {
+		String prefix = normalizePrefix(directory);
+		try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+			return zipFile.stream().anyMatch(entry -> entry.getName().startsWith(prefix));
+		}
+	}
+
+	static String normalizePrefix(String prefix) {
+		String normalizedPrefix = prefix;
+		while (normalizedPrefix.startsWith("/") || normalizedPrefix.startsWith("./")) {
+			normalizedPrefix = normalizedPrefix.substring(normalizedPrefix.startsWith("/") ? 1 : 2);
+		}
+		if (normalizedPrefix.isEmpty() || normalizedPrefix.equals(".")) {
+			return "";
+		}
+		return normalizedPrefix.endsWith("/") ? normalizedPrefix : normalizedPrefix + "/";
+	}
+
+	private static int extractBatch(ZipFile zipFile, List<ExtractEntry> batch, MiscHelper.PathContentTransformer contentTransformer) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int written = 0;
+		for (ExtractEntry extractEntry : batch) {
+			if (contentTransformer != null && contentTransformer.shouldTransform(extractEntry.target())) {
+				if (extractTransformed(zipFile, extractEntry, contentTransformer)) {
+					++written;
+				}
+				continue;
+			}
+			if (isUpToDate(extractEntry, buffer)) {
+				continue;
+			}
+			try (InputStream inputStream = zipFile.getInputStream(extractEntry.entry()); OutputStream outputStream = Files.newOutputStream(extractEntry.target())) {
+				int length;
+				while ((length = inputStream.read(buffer)) > 0) {
+					outputStream.write(buffer, 0, length);
+				}
+			}
+			++written;
+		}
+		return written;
+	}
+
+	private static boolean extractTransformed(ZipFile zipFile, ExtractEntry extractEntry, MiscHelper.PathContentTransformer contentTransformer) throws IOException {
+		byte[] content;
+		try (InputStream inputStream = zipFile.getInputStream(extractEntry.entry())) {
+			content = contentTransformer.transform(extractEntry.target(), inputStream.readAllBytes());
+		}
+		if (Files.isRegularFile(extractEntry.target()) && Files.size(extractEntry.target()) == content.length && Arrays.equals(Files.readAllBytes(extractEntry.target()), content)) {
+			return false;
+		}
+		Files.write(extractEntry.target(), content);
+		return true;
+	}
+
+	private static boolean isUpToDate(ExtractEntry extractEntry, byte[] buffer) throws IOException {
+		ZipEntry entry = extractEntry.entry();
+		if (entry.getSize() < 0 || entry.getCrc() < 0 || !Files.isRegularFile(extractEntry.target()) || Files.size(extractEntry.target()) != entry.getSize()) {
+			return false;
+		}
+		CRC32 crc = new CRC32();
+		try (InputStream inputStream = Files.newInputStream(extractEntry.target())) {
+			int length;
+			while ((length = inputStream.read(buffer)) > 0) {
+				crc.update(buffer, 0, length);
+			}
+		}
+		return crc.getValue() == entry.getCrc();
+	}
+}
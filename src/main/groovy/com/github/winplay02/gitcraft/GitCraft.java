@@ -7,6 +7,7 @@ import com.github.winplay02.gitcraft.config.RepositoryConfiguration;
 import com.github.winplay02.gitcraft.config.TransientApplicationConfiguration;
 import com.github.winplay02.gitcraft.manifest.metadata.VersionInfo;
 import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineDescription;
+import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemRoot;
 import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
 import com.github.winplay02.gitcraft.pipeline.IPipeline;
 import com.github.winplay02.gitcraft.util.MiscHelper;
@@ -48,6 +49,10 @@ public class GitCraft extends GitCraftApplication {
 				IPipeline.run(GitCraftPipelineDescription.RESET_PIPELINE, GitCraftPipelineFilesystemStorage.DEFAULT.get(), repo, versionGraph);
 			}
 			IPipeline.run(GitCraftPipelineDescription.DEFAULT_PIPELINE, GitCraftPipelineFilesystemStorage.DEFAULT.get(), repo, versionGraph);
+			int evictedObjects = GitCraftPipelineFilesystemRoot.createContentAddressedStore(GitCraftPipelineFilesystemStorage.DEFAULT.get().rootFilesystem()).evictUnreferenced(GitCraftPipelineFilesystemRoot.MAX_UNREFERENCED_CONTENT_ADDRESSED_BYTES);
+			if (evictedObjects > 0) {
+				MiscHelper.println("Evicted %s outdated objects from the content-addressed store", evictedObjects);
+			}
 			if (getRepositoryConfiguration().gcAfterRun()) {
 				IPipeline.run(GitCraftPipelineDescription.GC_PIPELINE, GitCraftPipelineFilesystemStorage.DEFAULT.get(), repo, versionGraph);
 			}
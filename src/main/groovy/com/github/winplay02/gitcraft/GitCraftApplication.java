@@ -62,6 +62,10 @@ public abstract class GitCraftApplication {
 				throw new RuntimeException(e);
 			}
 		}, "Shutdown-Hook-Maven-Cache-Saver"));
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			Library.IA_SHA1.savePersistentCache();
+			Library.IA_GIT_BLOB_SHA1.savePersistentCache();
+		}, "Shutdown-Hook-Checksum-Cache-Saver"));
 		// Create Graph
 		try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Manifest-Metadata-Input").factory())) {
 			versionGraph = MinecraftVersionGraph.createFromMetadata(executor, getApplicationConfiguration().manifestSource().getMetadataProvider());
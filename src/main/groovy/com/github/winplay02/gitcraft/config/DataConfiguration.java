@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import static com.github.winplay02.gitcraft.config.Configuration.Utils._null;
 import static com.github.winplay02.gitcraft.config.Configuration.Utils.prim;
 
 /**
@@ -17,13 +18,23 @@ import static com.github.winplay02.gitcraft.config.Configuration.Utils.prim;
  * @param readableNbt Whether raw NBT files should be converted to the readable SNBT format and additionally included in versioning
  * @param loadDatagenRegistry Whether datagenerated registry artifacts should be included in versioning
  * @param sortJsonObjects Whether JSON files should be sorted in a deterministic order to make them more comparable
+ * @param datagenSingleInvocation Whether SNBT conversion and reports should be generated by a single datagen process, instead of one process each
+ * @param datagenClassDataSharing Whether a class data sharing (CDS) archive should be created by the first datagen process of a version and reused by the following ones, to reduce their startup time.
+ *                                Only useful if more than one datagen process runs per version (i.e. without single invocation). Bundled server jars (since 21w39a) are extracted to the temporary datagen directory
+ *                                and run from the classpath instead, as classes loaded by the bundler are not covered by the archive
+ * @param maxConcurrentDatagenProcesses Maximum number of datagen processes running at the same time, independent of the parallelism of the pipeline, or 0 to only be limited by the parallelism of the pipeline
+ * @param datagenScratchDirectory Directory (e.g. on a tmpfs) for temporary files of datagen processes, or null to place them in the artifact store
  */
 public record DataConfiguration(boolean loadIntegratedDatapack,
 								boolean loadAssets,
 								boolean loadAssetsExtern,
 								boolean readableNbt,
 								boolean loadDatagenRegistry,
-								boolean sortJsonObjects)
+								boolean sortJsonObjects,
+								boolean datagenSingleInvocation,
+								boolean datagenClassDataSharing,
+								int maxConcurrentDatagenProcesses,
+								String datagenScratchDirectory)
 	implements Configuration {
 
 	public static final DataConfiguration DEFAULT = new DataConfiguration(
@@ -32,7 +43,11 @@ public record DataConfiguration(boolean loadIntegratedDatapack,
 		true,
 		true,
 		true,
-		false
+		false,
+		true,
+		false,
+		0,
+		null
 	);
 
 	@Override
@@ -43,7 +58,11 @@ public record DataConfiguration(boolean loadIntegratedDatapack,
 			"loadAssetsExtern", prim(this.loadAssetsExtern()),
 			"readableNbt", prim(this.readableNbt()),
 			"loadDatagenRegistry", prim(this.loadDatagenRegistry()),
-			"sortJsonObjects", prim(this.sortJsonObjects())
+			"sortJsonObjects", prim(this.sortJsonObjects()),
+			"datagenSingleInvocation", prim(this.datagenSingleInvocation()),
+			"datagenClassDataSharing", prim(this.datagenClassDataSharing()),
+			"maxConcurrentDatagenProcesses", prim(this.maxConcurrentDatagenProcesses()),
+			"datagenScratchDirectory", this.datagenScratchDirectory() == null ? _null() : prim(this.datagenScratchDirectory())
 		);
 	}
 
@@ -54,8 +73,14 @@ public record DataConfiguration(boolean loadIntegratedDatapack,
 			String.format("Asset versioning is: %s", this.loadAssets() ? "enabled" : "disabled"),
 			String.format("External asset versioning is: %s", this.loadAssetsExtern() ? (this.loadAssets() ? "enabled" : "implicitely disabled") : "disabled"),
 			String.format("Conversion of NBT data is: %s", this.readableNbt() ? "enabled" : "disabled"),
-			String.format("Data-generation from registries is: %s", this.loadDatagenRegistry() ? "enabled" : "disabled")
+			String.format("Data-generation from registries is: %s", this.loadDatagenRegistry() ? "enabled" : "disabled"),
+			String.format("Data-generation runs as a single process per version: %s", this.datagenSingleInvocation() ? "enabled" : "disabled"),
+			String.format("Class data sharing for data-generation is: %s", this.datagenClassDataSharing() ? "enabled" : "disabled"),
+			String.format("Maximum concurrent data-generation processes: %s", this.maxConcurrentDatagenProcesses() > 0 ? this.maxConcurrentDatagenProcesses() : "limited by pipeline parallelism")
 		));
+		if (this.datagenScratchDirectory() != null) {
+			info.add(String.format("Temporary data-generation files are placed in: %s", this.datagenScratchDirectory()));
+		}
 		if (this.sortJsonObjects()) {
 			info.add("JSON files (JSON objects) will be sorted in natural order.");
 		}
@@ -69,7 +94,11 @@ public record DataConfiguration(boolean loadIntegratedDatapack,
 			Utils.getBoolean(map, "loadAssetsExtern", DEFAULT.loadAssetsExtern()),
 			Utils.getBoolean(map, "readableNbt", DEFAULT.readableNbt()),
 			Utils.getBoolean(map, "loadDatagenRegistry", DEFAULT.loadDatagenRegistry()),
-			Utils.getBoolean(map, "sortJsonObjects", DEFAULT.sortJsonObjects())
+			Utils.getBoolean(map, "sortJsonObjects", DEFAULT.sortJsonObjects()),
+			Utils.getBoolean(map, "datagenSingleInvocation", DEFAULT.datagenSingleInvocation()),
+			Utils.getBoolean(map, "datagenClassDataSharing", DEFAULT.datagenClassDataSharing()),
+			Utils.getInt(map, "maxConcurrentDatagenProcesses", DEFAULT.maxConcurrentDatagenProcesses()),
+			Utils.getString(map, "datagenScratchDirectory", DEFAULT.datagenScratchDirectory())
 		);
 	}
 }
@@ -2,6 +2,7 @@ package com.github.winplay02.gitcraft.config;
 
 import com.google.gson.JsonElement;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -16,13 +17,15 @@ import static com.github.winplay02.gitcraft.config.Configuration.Utils.prim;
  * @param createVersionBranches Whether branches should be created for all versions
  * @param createStableVersionBranches Whether branches should be created for stable versions
  * @param gcAfterRun Whether garbage-collection should be run after completing a run
+ * @param commitWithoutWorkingTree Whether commits are built directly from the pipeline artifacts, without writing the files to the working tree of the repository
  */
 public record RepositoryConfiguration(String gitUser,
 									  String gitMail,
 									  String gitMainlineLinearBranch,
 									  boolean createVersionBranches,
 									  boolean createStableVersionBranches,
-									  boolean gcAfterRun)
+									  boolean gcAfterRun,
+									  boolean commitWithoutWorkingTree)
 	implements Configuration {
 
 	public static final RepositoryConfiguration DEFAULT = new RepositoryConfiguration(
@@ -31,7 +34,8 @@ public record RepositoryConfiguration(String gitUser,
 		"master",
 		false,
 		false,
-		true
+		true,
+		false
 	);
 
 	@Override
@@ -42,18 +46,23 @@ public record RepositoryConfiguration(String gitUser,
 			"gitMainlineLinearBranch", prim(this.gitMainlineLinearBranch()),
 			"createVersionBranches", prim(this.createVersionBranches()),
 			"createStableVersionBranches", prim(this.createStableVersionBranches()),
-			"gcAfterRun", prim(this.gcAfterRun())
+			"gcAfterRun", prim(this.gcAfterRun()),
+			"commitWithoutWorkingTree", prim(this.commitWithoutWorkingTree())
 		);
 	}
 
 	@Override
 	public List<String> generateInfo() {
+		List<String> info = new ArrayList<>();
 		if (createVersionBranches) {
-			return List.of("A separate branch will be created for each version.");
+			info.add("A separate branch will be created for each version.");
 		} else if (createStableVersionBranches) {
-			return List.of("A separate branch will be created for each stable version.");
+			info.add("A separate branch will be created for each stable version.");
 		}
-		return List.of();
+		if (commitWithoutWorkingTree) {
+			info.add("Commits will be built without writing the working tree of the repository.");
+		}
+		return info;
 	}
 
 	public static RepositoryConfiguration deserialize(Map<String, JsonElement> map) {
@@ -63,7 +72,8 @@ public record RepositoryConfiguration(String gitUser,
 			Utils.getString(map, "gitMainlineLinearBranch", DEFAULT.gitMainlineLinearBranch()),
 			Utils.getBoolean(map, "createVersionBranches", DEFAULT.createVersionBranches()),
 			Utils.getBoolean(map, "createStableVersionBranches", DEFAULT.createStableVersionBranches()),
-			Utils.getBoolean(map, "gcAfterRun", DEFAULT.gcAfterRun())
+			Utils.getBoolean(map, "gcAfterRun", DEFAULT.gcAfterRun()),
+			Utils.getBoolean(map, "commitWithoutWorkingTree", DEFAULT.commitWithoutWorkingTree())
 		);
 	}
 }
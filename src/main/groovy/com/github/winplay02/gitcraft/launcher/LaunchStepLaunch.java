@@ -20,13 +20,12 @@ import com.github.winplay02.gitcraft.types.Artifact;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
 import com.github.winplay02.gitcraft.unpick.Unpick;
 import com.github.winplay02.gitcraft.util.MiscHelper;
+import com.github.winplay02.gitcraft.util.ZipExtractor;
 import groovy.lang.Tuple2;
-import net.fabricmc.loom.util.FileSystemUtil;
 
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -35,11 +34,9 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public record LaunchStepLaunch(GitCraftStepConfig config) implements GitCraftStepWorker<LaunchStepLaunch.Inputs> {
 
@@ -232,23 +229,8 @@ public record LaunchStepLaunch(GitCraftStepConfig config) implements GitCraftSte
 		args.put("arch", LauncherUtils.getArch());
 		// Extract
 		for (Map.Entry<Path, LibraryMetadata.Extract> entry : extractInfo.entrySet()) {
-			try (
-				FileSystemUtil.Delegate toExtractJar = FileSystemUtil.getJarFileSystem(entry.getKey());
-				Stream<Path> extractStream = Files.list(toExtractJar.getRoot());
-			) {
-				Set<Path> exclusions = entry.getValue().exclude().stream().map(exclusion -> toExtractJar.getRoot().resolve(exclusion)).collect(Collectors.toSet());
-				for (Path toExtractPath : extractStream.toList()) {
-					Path outputPath = MiscHelper.crossResolvePath(nativesPath, toExtractJar.getRoot().relativize(toExtractPath));
-					if (exclusions.contains(toExtractPath)) {
-						continue;
-					}
-					if (Files.isRegularFile(toExtractPath)) {
-						Files.copy(toExtractPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
-					} else if (Files.isDirectory(toExtractPath)) {
-						MiscHelper.copyLargeDirExcept(toExtractPath, outputPath, exclusions.stream().toList());
-					}
-				}
-			}
+			List<String> exclusions = entry.getValue().exclude().stream().map(exclusion -> exclusion.endsWith("/") ? exclusion.substring(0, exclusion.length() - 1) : exclusion).toList();
+			ZipExtractor.extract(entry.getKey(), "", nativesPath, name -> exclusions.stream().noneMatch(exclusion -> name.equals(exclusion) || name.startsWith(exclusion + "/")));
 		}
 		// Launch
 		String os = LauncherUtils.getOperatingSystem();
@@ -187,7 +187,7 @@ public abstract class BaseMetadataProvider<M extends VersionsManifest<E>, E exte
 
 	private final M fetchVersionsManifest(MetadataSources.RemoteVersionsManifest<M, E> manifestSource) throws IOException {
 		try {
-			return SerializationHelper.deserialize(FileSystemNetworkManager.fetchAllFromURLSync(new URI(manifestSource.url()).toURL()), manifestSource.manifestClass());
+			return SerializationHelper.deserialize(FileSystemNetworkManager.fetchAllFromURLCached(new URI(manifestSource.url()).toURL(), GitCraftPipelineFilesystemRoot.getHttpValidationCache().apply(GitCraftPipelineFilesystemStorage.DEFAULT.get().rootFilesystem())), manifestSource.manifestClass());
 		} catch (MalformedURLException | URISyntaxException | InterruptedException e) {
 			throw new IOException("unable to fetch versions manifest", e);
 		}
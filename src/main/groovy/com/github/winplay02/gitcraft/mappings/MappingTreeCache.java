@@ -0,0 +1,128 @@
+package com.github.winplay02.gitcraft.mappings;
+
+import com.github.winplay02.gitcraft.pipeline.key.MinecraftJar;
+import com.github.winplay02.gitcraft.types.OrderedVersion;
+import net.fabricmc.mappingio.tree.VisitableMappingTree;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of mapping trees, so that mappings used by multiple steps (e.g. remapping, unpicking, nesting) are only read once per version.
+ * Trees derived from cached trees (inverted, fused, with renamed namespaces) are cached as well, keyed by the operation and the keys of their sources.
+ * <p>
+ * Each tree is created at most once at a time, concurrent users of the same key wait for it to be created.
+ * <p>
+ * Trees are only softly referenced and may be reclaimed by the garbage collector, in which case they are created again when needed.
+ * Cached trees are shared, so they must not be modified by their users.
+ */
+public final class MappingTreeCache {
+	private static final Map<Object, CachedTree> trees = new ConcurrentHashMap<>();
+	// keys of cached trees, to key trees derived from them; mapping trees do not override equals, so they are compared by identity
+	private static final Map<VisitableMappingTree, Object> treeKeys = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private MappingTreeCache() {}
+
+	@FunctionalInterface
+	public interface TreeFactory {
+		VisitableMappingTree create() throws IOException;
+	}
+
+	/**
+	 * Key of a mapping tree read from mapping files.
+	 *
+	 * @param mapping     Mapping implementation
+	 * @param version     Version
+	 * @param jar         Minecraft jar
+	 * @param fingerprint Size and last-modified timestamp of the mapping file, so that a changed file is read again
+	 */
+	private record MappingKey(Mapping mapping, OrderedVersion version, MinecraftJar jar, String fingerprint) {
+	}
+
+	/**
+	 * Key of a mapping tree derived from other trees.
+	 *
+	 * @param sources   Keys of the source trees
+	 * @param operation Operation and its arguments
+	 */
+	private record DerivedKey(List<Object> sources, String operation) {
+	}
+
+	private static final class CachedTree {
+		private SoftReference<VisitableMappingTree> tree = new SoftReference<>(null);
+
+		private synchronized VisitableMappingTree getOrCreate(Object key, TreeFactory factory) throws IOException {
+			VisitableMappingTree cachedTree = this.tree.get();
+			if (cachedTree == null) {
+				cachedTree = factory.create();
+				this.tree = new SoftReference<>(cachedTree);
+				treeKeys.put(cachedTree, key);
+			}
+			return cachedTree;
+		}
+	}
+
+	/**
+	 * Gets the mapping tree of a mapping implementation for a version and jar, or creates it if it is not cached.
+	 *
+	 * @param mapping Mapping implementation
+	 * @param version Version
+	 * @param jar     Minecraft jar
+	 * @param factory Creates the tree
+	 * @return Mapping tree, that must not be modified
+	 * @throws IOException If the tree cannot be created
+	 */
+	public static VisitableMappingTree get(Mapping mapping, OrderedVersion version, MinecraftJar jar, TreeFactory factory) throws IOException {
+		return getOrCreate(new MappingKey(mapping, version, jar, fingerprint(mapping.getMappingsPath(version, jar))), factory);
+	}
+
+	/**
+	 * Gets a mapping tree derived from other mapping trees, or derives it if it is not cached.
+	 * If any of the sources is not a cached tree, the derived tree is not cached either.
+	 *
+	 * @param sources   Source trees
+	 * @param operation Operation (including all its arguments), that derives the tree from the sources
+	 * @param factory   Derives the tree
+	 * @return Mapping tree, that must not be modified
+	 * @throws IOException If the tree cannot be derived
+	 */
+	public static VisitableMappingTree derive(List<VisitableMappingTree> sources, String operation, TreeFactory factory) throws IOException {
+		List<Object> sourceKeys = new ArrayList<>(sources.size());
+		for (VisitableMappingTree source : sources) {
+			Object sourceKey = treeKeys.get(source);
+			if (sourceKey == null) {
+				return factory.create();
+			}
+			sourceKeys.add(sourceKey);
+		}
+		return getOrCreate(new DerivedKey(sourceKeys, operation), factory);
+	}
+
+	/**
+	 * Removes all cached trees.
+	 */
+	public static void clear() {
+		trees.clear();
+		treeKeys.clear();
+	}
+
+	private static VisitableMappingTree getOrCreate(Object key, TreeFactory factory) throws IOException {
+		return trees.computeIfAbsent(key, $ -> new CachedTree()).getOrCreate(key, factory);
+	}
+
+	private static String fingerprint(Optional<Path> mappingsPath) throws IOException {
+		if (mappingsPath.isEmpty() || !Files.exists(mappingsPath.get())) {
+			return "";
+		}
+		return String.format("%s:%s", Files.size(mappingsPath.get()), Files.getLastModifiedTime(mappingsPath.get()).toMillis());
+	}
+}
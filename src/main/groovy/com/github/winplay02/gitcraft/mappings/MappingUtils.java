@@ -22,10 +22,12 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -88,13 +90,16 @@ public class MappingUtils {
 		if (!mapping.canMappingsBeUsedOn(version, mcJar)) {
 			MiscHelper.panic("Tried to use %s-mappings for version %s, %s jar. These mappings can not be used for this version.", mapping, version.launcherFriendlyVersionName(), mcJar.name().toLowerCase());
 		}
-		MemoryMappingTree mappings = new MemoryMappingTree();
 		try {
-			mapping.visit(version, mcJar, mappings);
+			return MappingTreeCache.get(mapping, version, mcJar, () -> {
+				MemoryMappingTree mappings = new MemoryMappingTree();
+				mapping.visit(version, mcJar, mappings);
+				return mappings;
+			});
 		} catch (IOException e) {
 			MiscHelper.panicBecause(e, "An error occurred while getting mapping information for %s (version %s)", mapping, version.launcherFriendlyVersionName());
+			return null;
 		}
-		return mappings;
 	}
 
 	public static Stream<String> getNamespaces(VisitableMappingTree mapping) {
@@ -113,9 +118,11 @@ public class MappingUtils {
 	}
 
 	public static VisitableMappingTree renameNamespace(VisitableMappingTree mapping, Map<String, String> renames) throws IOException {
-		MemoryMappingTree outMappingTree = new MemoryMappingTree();
-		mapping.accept(new MappingNsRenamer(outMappingTree, renames));
-		return outMappingTree;
+		return MappingTreeCache.derive(List.of(mapping), String.format("rename:%s", new TreeMap<>(renames)), () -> {
+			MemoryMappingTree outMappingTree = new MemoryMappingTree();
+			mapping.accept(new MappingNsRenamer(outMappingTree, renames));
+			return outMappingTree;
+		});
 	}
 
 	public static VisitableMappingTree invert(VisitableMappingTree mapping) throws IOException {
@@ -127,9 +134,11 @@ public class MappingUtils {
 	}
 
 	public static VisitableMappingTree invert(VisitableMappingTree mapping, String newSrc, boolean allowNamespaceMerge) throws IOException {
-		MemoryMappingTree outMappingTree = new MemoryMappingTree();
-		mapping.accept(new MappingSourceNsSwitch(outMappingTree, newSrc, !allowNamespaceMerge));
-		return outMappingTree;
+		return MappingTreeCache.derive(List.of(mapping), String.format("invert:%s:%s", newSrc, allowNamespaceMerge), () -> {
+			MemoryMappingTree outMappingTree = new MemoryMappingTree();
+			mapping.accept(new MappingSourceNsSwitch(outMappingTree, newSrc, !allowNamespaceMerge));
+			return outMappingTree;
+		});
 	}
 
 	public static VisitableMappingTree fuseKeep(VisitableMappingTree mappingAtoB, VisitableMappingTree mappingBtoC, boolean allowNamespaceMerge) throws IOException {
@@ -148,6 +157,10 @@ public class MappingUtils {
 	}
 
 	public static VisitableMappingTree fuse(VisitableMappingTree mappingAtoB, VisitableMappingTree mappingBtoC, boolean allowNamespaceMerge) throws IOException {
+		return MappingTreeCache.derive(List.of(mappingAtoB, mappingBtoC), String.format("fuse:%s", allowNamespaceMerge), () -> fuseUncached(mappingAtoB, mappingBtoC, allowNamespaceMerge));
+	}
+
+	private static VisitableMappingTree fuseUncached(VisitableMappingTree mappingAtoB, VisitableMappingTree mappingBtoC, boolean allowNamespaceMerge) throws IOException {
 		MemoryMappingTree intermediateMappingTree = new MemoryMappingTree();
 		// do not create unwanted mixtures of mappings
 		Map<String, String> fallbackMappingsToCommon = MiscHelper.concatStreams(
@@ -10,6 +10,8 @@ import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemRoot;
+import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
 import com.github.winplay02.gitcraft.util.FileSystemNetworkManager;
 import com.github.winplay02.gitcraft.util.SerializationHelper;
 import com.google.gson.reflect.TypeToken;
@@ -30,7 +32,7 @@ public class RemoteVersionMetaSource<M extends VersionMeta<M>> implements Versio
 
 	public M getLatest(String clas) throws IOException, URISyntaxException, InterruptedException {
 		if (latestVersions == null) {
-			List<M> allVersions = SerializationHelper.deserialize(FileSystemNetworkManager.fetchAllFromURLSync(new URL(url)), metaType);
+			List<M> allVersions = SerializationHelper.deserialize(FileSystemNetworkManager.fetchAllFromURLCached(new URL(url), GitCraftPipelineFilesystemRoot.getHttpValidationCache().apply(GitCraftPipelineFilesystemStorage.DEFAULT.get().rootFilesystem())), metaType);
 			Map<String, List<M>> groupedVersions = allVersions.stream().collect(Collectors.groupingBy(classifier));
 
 			latestVersions = groupedVersions.values().stream().map(versions -> versions.stream().max(Comparator.naturalOrder())).filter(Optional::isPresent).map(Optional::get).collect(Collectors.toMap(classifier, Function.identity()));
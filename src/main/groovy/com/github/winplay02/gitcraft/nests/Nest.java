@@ -8,13 +8,14 @@ import java.nio.file.StandardCopyOption;
 import java.util.Optional;
 
 import com.github.winplay02.gitcraft.mappings.MappingFlavour;
+import com.github.winplay02.gitcraft.mappings.MappingUtils;
 import com.github.winplay02.gitcraft.pipeline.IStepContext;
 import com.github.winplay02.gitcraft.pipeline.StepStatus;
 import com.github.winplay02.gitcraft.pipeline.key.MinecraftJar;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
 import com.github.winplay02.gitcraft.util.MiscHelper;
 
-import net.fabricmc.mappingio.tree.MemoryMappingTree;
+import net.fabricmc.mappingio.tree.VisitableMappingTree;
 import net.ornithemc.nester.nest.NesterIo;
 import net.ornithemc.nester.nest.Nests;
 
@@ -51,8 +52,7 @@ public abstract class Nest {
 	protected final StepStatus mapNests(OrderedVersion mcVersion, MinecraftJar minecraftJar, MappingFlavour mappingFlavour, Path srcPath, Path dstPath) {
 		try {
 			if (mappingFlavour.canBeUsedOn(mcVersion, minecraftJar)) {
-				MemoryMappingTree mappings = new MemoryMappingTree();
-				mappingFlavour.visit(mcVersion, minecraftJar, mappings);
+				VisitableMappingTree mappings = MappingUtils.createTreeFromMappingFlavour(mappingFlavour, mcVersion, minecraftJar);
 
 				return NestsMapper.mapNests(srcPath, dstPath, mappings, mappingFlavour.getDestinationNS());
 			} else {
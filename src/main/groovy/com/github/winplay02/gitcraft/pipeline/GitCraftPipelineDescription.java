@@ -1,6 +1,7 @@
 package com.github.winplay02.gitcraft.pipeline;
 
 import com.github.winplay02.gitcraft.GitCraft;
+import com.github.winplay02.gitcraft.Library;
 import com.github.winplay02.gitcraft.exceptions.ExceptionsFlavour;
 import com.github.winplay02.gitcraft.graph.AbstractVersionGraph;
 import com.github.winplay02.gitcraft.launcher.LaunchPrepareLaunchableFile;
@@ -78,6 +79,16 @@ public final class GitCraftPipelineDescription {
 		GitCraftPipelineDescription::getConfig
 	);
 
+	private static StepDependencies<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> getDecompileDependencies() {
+		StepDependencies<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> intraVersionDependencies = StepDependencies.ofIntraVersion(Set.of(GitCraftStep.FETCH_ARTIFACTS, GitCraftStep.FETCH_LIBRARIES), Set.of(GitCraftStep.UNPACK_ARTIFACTS, GitCraftStep.MERGE_OBFUSCATED_JARS, GitCraftStep.PATCH_LOCAL_VARIABLE_TABLES, GitCraftStep.APPLY_EXCEPTIONS, GitCraftStep.APPLY_SIGNATURES, GitCraftStep.REMAP_JARS, GitCraftStep.MERGE_REMAPPED_JARS, GitCraftStep.UNPICK_JARS, GitCraftStep.APPLY_NESTS, GitCraftStep.PREEN_JARS));
+		if (Library.CONF_GLOBAL.incrementalDecompilation()) {
+			// incremental decompilation reuses the decompiled jars of previous versions, so they have to be decompiled first
+			return StepDependencies.merge(intraVersionDependencies, StepDependencies.ofInterVersion(GitCraftStep.DECOMPILE_JARS));
+		}
+		// otherwise, concurrent decompile jobs share the decompiler threads
+		return intraVersionDependencies;
+	}
+
 	public static final PipelineDescription<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> DEFAULT_PIPELINE = new PipelineDescription<>("Default",
 		List.of(
 			GitCraftStep.FETCH_ARTIFACTS,
@@ -154,7 +165,7 @@ public final class GitCraftPipelineDescription {
 				GitCraftStep.PROVIDE_NESTS, StepDependencies.ofHardIntraVersionOnly(GitCraftStep.PROVIDE_MAPPINGS),
 				GitCraftStep.APPLY_NESTS, StepDependencies.ofIntraVersion(Set.of(GitCraftStep.REMAP_JARS, GitCraftStep.PROVIDE_NESTS), Set.of(GitCraftStep.MERGE_REMAPPED_JARS, GitCraftStep.UNPICK_JARS)),
 				GitCraftStep.PREEN_JARS, StepDependencies.ofIntraVersion(Set.of(GitCraftStep.REMAP_JARS), Set.of(GitCraftStep.MERGE_REMAPPED_JARS, GitCraftStep.UNPICK_JARS, GitCraftStep.APPLY_NESTS)),
-				GitCraftStep.DECOMPILE_JARS, StepDependencies.merge(StepDependencies.ofIntraVersion(Set.of(GitCraftStep.FETCH_ARTIFACTS, GitCraftStep.FETCH_LIBRARIES), Set.of(GitCraftStep.UNPACK_ARTIFACTS, GitCraftStep.MERGE_OBFUSCATED_JARS, GitCraftStep.PATCH_LOCAL_VARIABLE_TABLES, GitCraftStep.APPLY_EXCEPTIONS, GitCraftStep.APPLY_SIGNATURES, GitCraftStep.REMAP_JARS, GitCraftStep.MERGE_REMAPPED_JARS, GitCraftStep.UNPICK_JARS, GitCraftStep.APPLY_NESTS, GitCraftStep.PREEN_JARS)), StepDependencies.ofInterVersion(GitCraftStep.DECOMPILE_JARS)), // only allow one decompile job concurrently
+				GitCraftStep.DECOMPILE_JARS, getDecompileDependencies(),
 				GitCraftStep.COMMIT, StepDependencies.merge(StepDependencies.ofIntraVersion(Set.of(GitCraftStep.FETCH_ARTIFACTS, GitCraftStep.DECOMPILE_JARS), Set.of(GitCraftStep.UNPACK_ARTIFACTS, GitCraftStep.FETCH_ASSETS, GitCraftStep.DATAGEN)), StepDependencies.ofInterVersion(GitCraftStep.COMMIT))
 			)
 		),
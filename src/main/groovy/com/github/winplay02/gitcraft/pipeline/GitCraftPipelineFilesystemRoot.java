@@ -7,6 +7,11 @@ import java.util.function.Function;
 
 public final class GitCraftPipelineFilesystemRoot {
 
+	/**
+	 * Maximum amount of bytes, that objects of the content-addressed store may take, which are not present as an output anymore.
+	 */
+	public static final long MAX_UNREFERENCED_CONTENT_ADDRESSED_BYTES = 4L << 30;
+
 	private GitCraftPipelineFilesystemRoot() {}
 
 	public static Function<IPipelineFilesystemRoot, Path> getDecompiled() {
@@ -29,6 +34,10 @@ public final class GitCraftPipelineFilesystemRoot {
 		return root -> root.getByIndex("mc-meta");
 	}
 
+	public static Function<IPipelineFilesystemRoot, Path> getHttpValidationCache() {
+		return root -> getMcMetaStore().apply(root).resolve("http-cache");
+	}
+
 	public static Function<IPipelineFilesystemRoot, Path> getMcExtraVersionStore() {
 		return root -> root.getByIndex("extra-versions");
 	}
@@ -65,11 +74,20 @@ public final class GitCraftPipelineFilesystemRoot {
 		return root -> root.getByIndex("runtime");
 	}
 
+	public static Function<IPipelineFilesystemRoot, Path> getContentAddressedStore() {
+		return root -> root.getByIndex("content-addressed");
+	}
+
+	public static ContentAddressedStore createContentAddressedStore(IPipelineFilesystemRoot root) {
+		return new ContentAddressedStore(getContentAddressedStore().apply(root), root.getRoot());
+	}
+
 	public static void initialize(IPipelineFilesystemRoot fsRoot) throws IOException {
 		Files.createDirectories(getDecompiled().apply(fsRoot));
 		Files.createDirectories(getMappings().apply(fsRoot));
 		Files.createDirectories(getMcVersionStore().apply(fsRoot));
 		Files.createDirectories(getMcMetaStore().apply(fsRoot));
+		Files.createDirectories(getHttpValidationCache().apply(fsRoot));
 		Files.createDirectories(getMcMetaDownloads().apply(fsRoot));
 		Files.createDirectories(getMcExtraVersionStore().apply(fsRoot));
 		Files.createDirectories(getLibraryStore().apply(fsRoot));
@@ -79,5 +97,6 @@ public final class GitCraftPipelineFilesystemRoot {
 		Files.createDirectories(getPatchesStore().apply(fsRoot));
 		Files.createDirectories(getPatchedStore().apply(fsRoot));
 		Files.createDirectories(getRuntimeDirectory().apply(fsRoot));
+		Files.createDirectories(getContentAddressedStore().apply(fsRoot));
 	}
 }
@@ -31,44 +31,46 @@ import java.util.function.Function;
 
 public enum GitCraftStep implements IStep<OrderedVersion, StepInput, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> {
 
-	RESET("Reset", ParallelismPolicy.UNSAFE_RESTRICTED_TO_SEQUENTIAL, Resetter::new),
-	FETCH_ARTIFACTS("Fetch Artifacts", ArtifactsFetcher::new),
-	FETCH_LIBRARIES("Fetch Libraries", LibrariesFetcher::new),
-	FETCH_ASSETS("Fetch Assets", AssetsFetcher::new),
-	UNPACK_ARTIFACTS("Unpack Artifacts", ArtifactsUnpacker::new),
-	MERGE_OBFUSCATED_JARS("Merge Obfuscated Jars", cfg -> new JarsMerger(true, cfg)),
-	DATAGEN("Datagen", DataGenerator::new),
-	PATCH_LOCAL_VARIABLE_TABLES("Patch Local Variable Tables", LvtPatcher::new),
-	PROVIDE_EXCEPTIONS("Provide Exceptions", ExceptionsProvider::new),
-	APPLY_EXCEPTIONS("Apply Exceptions", JarsExceptor::new),
-	PROVIDE_SIGNATURES("Provide Signatures", SignaturesProvider::new),
-	APPLY_SIGNATURES("Apply Signatures", JarsSignatureChanger::new),
-	PROVIDE_MAPPINGS("Provide Mappings", MappingsProvider::new),
-	PROVIDE_UNPICK("Provide Unpick Information", UnpickProvider::new),
-	REMAP_JARS("Remap Jars", Remapper::new),
-	MERGE_REMAPPED_JARS("Merge Remapped Jars", cfg -> new JarsMerger(false, cfg)),
-	UNPICK_JARS("Unpick Jars", Unpicker::new),
-	PROVIDE_NESTS("Provide Nests", NestsProvider::new),
-	APPLY_NESTS("Apply Nests", JarsNester::new),
-	PREEN_JARS("Preen Jars", Preener::new),
-	DECOMPILE_JARS("Decompile Jars", ParallelismPolicy.UNSAFE_RESTRICTED_TO_SEQUENTIAL, Decompiler::new),
-	COMMIT("Commit to repository", ParallelismPolicy.UNSAFE_RESTRICTED_TO_SEQUENTIAL, Committer::new),
-	REPO_GARBAGE_COLLECTOR("GC repository", ParallelismPolicy.UNSAFE_RESTRICTED_TO_SEQUENTIAL, RepoGarbageCollector::new),
-	LAUNCH_PREPARE_HARDLINK_ASSETS("Hardlink Assets to Launch Environment", ParallelismPolicy.UNSAFE_RESTRICTED_TO_SEQUENTIAL, LaunchStepHardlinkAssets::new),
-	LAUNCH_PREPARE_CONSTRUCT_LAUNCHABLE_FILE("Construct a launchable file", LaunchPrepareLaunchableFile::new),
-	LAUNCH_CLIENT("Launch Client", ParallelismPolicy.UNSAFE_RESTRICTED_TO_SEQUENTIAL, LaunchStepLaunch::new);
+	RESET("Reset", ParallelismPolicy.UNSAFE_RESTRICTED_TO_SEQUENTIAL, ResourceClass.GIT, Resetter::new),
+	FETCH_ARTIFACTS("Fetch Artifacts", ResourceClass.NETWORK, ArtifactsFetcher::new),
+	FETCH_LIBRARIES("Fetch Libraries", ResourceClass.NETWORK, LibrariesFetcher::new),
+	FETCH_ASSETS("Fetch Assets", ResourceClass.NETWORK, AssetsFetcher::new),
+	UNPACK_ARTIFACTS("Unpack Artifacts", ResourceClass.DISK_IO, ArtifactsUnpacker::new),
+	MERGE_OBFUSCATED_JARS("Merge Obfuscated Jars", ResourceClass.CPU, cfg -> new JarsMerger(true, cfg)),
+	DATAGEN("Datagen", ResourceClass.HEAVY_MEMORY, DataGenerator::new),
+	PATCH_LOCAL_VARIABLE_TABLES("Patch Local Variable Tables", ResourceClass.CPU, LvtPatcher::new),
+	PROVIDE_EXCEPTIONS("Provide Exceptions", ResourceClass.NETWORK, ExceptionsProvider::new),
+	APPLY_EXCEPTIONS("Apply Exceptions", ResourceClass.CPU, JarsExceptor::new),
+	PROVIDE_SIGNATURES("Provide Signatures", ResourceClass.NETWORK, SignaturesProvider::new),
+	APPLY_SIGNATURES("Apply Signatures", ResourceClass.CPU, JarsSignatureChanger::new),
+	PROVIDE_MAPPINGS("Provide Mappings", ResourceClass.NETWORK, MappingsProvider::new),
+	PROVIDE_UNPICK("Provide Unpick Information", ResourceClass.NETWORK, UnpickProvider::new),
+	REMAP_JARS("Remap Jars", ResourceClass.CPU, Remapper::new),
+	MERGE_REMAPPED_JARS("Merge Remapped Jars", ResourceClass.CPU, cfg -> new JarsMerger(false, cfg)),
+	UNPICK_JARS("Unpick Jars", ResourceClass.CPU, Unpicker::new),
+	PROVIDE_NESTS("Provide Nests", ResourceClass.NETWORK, NestsProvider::new),
+	APPLY_NESTS("Apply Nests", ResourceClass.CPU, JarsNester::new),
+	PREEN_JARS("Preen Jars", ResourceClass.CPU, Preener::new),
+	DECOMPILE_JARS("Decompile Jars", ResourceClass.CPU, Decompiler::new),
+	COMMIT("Commit to repository", ParallelismPolicy.UNSAFE_RESTRICTED_TO_SEQUENTIAL, ResourceClass.GIT, Committer::new),
+	REPO_GARBAGE_COLLECTOR("GC repository", ParallelismPolicy.UNSAFE_RESTRICTED_TO_SEQUENTIAL, ResourceClass.GIT, RepoGarbageCollector::new),
+	LAUNCH_PREPARE_HARDLINK_ASSETS("Hardlink Assets to Launch Environment", ParallelismPolicy.UNSAFE_RESTRICTED_TO_SEQUENTIAL, ResourceClass.DISK_IO, LaunchStepHardlinkAssets::new),
+	LAUNCH_PREPARE_CONSTRUCT_LAUNCHABLE_FILE("Construct a launchable file", ResourceClass.DISK_IO, LaunchPrepareLaunchableFile::new),
+	LAUNCH_CLIENT("Launch Client", ParallelismPolicy.UNSAFE_RESTRICTED_TO_SEQUENTIAL, ResourceClass.HEAVY_MEMORY, LaunchStepLaunch::new);
 
 	private final String name;
 	private final ParallelismPolicy parallelismPolicy;
+	private final ResourceClass resourceClass;
 	private final Function<GitCraftStepConfig, GitCraftStepWorker<StepInput>> workerFactory;
 
-	GitCraftStep(String name, Function<GitCraftStepConfig, GitCraftStepWorker<?>> workerFactory) {
-		this(name, ParallelismPolicy.SAFELY_FULLY_PARALLEL, workerFactory);
+	GitCraftStep(String name, ResourceClass resourceClass, Function<GitCraftStepConfig, GitCraftStepWorker<?>> workerFactory) {
+		this(name, ParallelismPolicy.SAFELY_FULLY_PARALLEL, resourceClass, workerFactory);
 	}
 
-	GitCraftStep(String name, ParallelismPolicy parallelismPolicy, Function<GitCraftStepConfig, GitCraftStepWorker<?>> workerFactory) {
+	GitCraftStep(String name, ParallelismPolicy parallelismPolicy, ResourceClass resourceClass, Function<GitCraftStepConfig, GitCraftStepWorker<?>> workerFactory) {
 		this.name = name;
 		this.parallelismPolicy = parallelismPolicy;
+		this.resourceClass = resourceClass;
 		this.workerFactory = (Function<GitCraftStepConfig, GitCraftStepWorker<StepInput>>) (Object) workerFactory;
 	}
 
@@ -80,6 +82,19 @@ public enum GitCraftStep implements IStep<OrderedVersion, StepInput, IStepContex
 		return this.parallelismPolicy;
 	}
 
+	public ResourceClass getResourceClass() {
+		return this.resourceClass;
+	}
+
+	@Override
+	public boolean isJournaled() {
+		return switch (this) {
+			// these steps operate on the repository or the launch environment, which is not captured by their results
+			case RESET, COMMIT, REPO_GARBAGE_COLLECTOR, LAUNCH_PREPARE_HARDLINK_ASSETS, LAUNCH_PREPARE_CONSTRUCT_LAUNCHABLE_FILE, LAUNCH_CLIENT -> false;
+			default -> true;
+		};
+	}
+
 	public IStepWorker<OrderedVersion, StepInput, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> createWorker(GitCraftStepConfig config) {
 		return workerFactory.apply(config);
 	}
@@ -1,5 +1,6 @@
 package com.github.winplay02.gitcraft.pipeline;
 
+import com.github.winplay02.gitcraft.GitCraft;
 import com.github.winplay02.gitcraft.exceptions.ExceptionsFlavour;
 import com.github.winplay02.gitcraft.mappings.MappingFlavour;
 import com.github.winplay02.gitcraft.nests.NestsFlavour;
@@ -14,6 +15,7 @@ import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 public record GitCraftStepConfig(Map<MinecraftJar, String> identifier, MappingFlavour mappingFlavour,
@@ -39,6 +41,12 @@ public record GitCraftStepConfig(Map<MinecraftJar, String> identifier, MappingFl
 		return String.join(", ", flavours);
 	}
 
+	@Override
+	public String fingerprint() {
+		// data and repository options change the outputs of steps as well, although they are not part of the flavours
+		return String.format("%s; %s; %s; %s", new TreeMap<>(this.identifier()), this, new TreeMap<>(GitCraft.getDataConfiguration().serialize()), new TreeMap<>(GitCraft.getRepositoryConfiguration().serialize()));
+	}
+
 	public String createArtifactComponentString(KeyInformation<?> dist, KeyInformation<?>... matchingFlavours) {
 		return createArtifactComponentString((MinecraftJar) dist, Arrays.stream(matchingFlavours).map(FlavourMatcher.class::cast).toArray(FlavourMatcher[]::new));
 	}
@@ -2,12 +2,106 @@ package com.github.winplay02.gitcraft.pipeline;
 
 import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
+import com.github.winplay02.gitcraft.util.MiscHelper;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface GitCraftStepWorker<S extends StepInput> extends IStepWorker<OrderedVersion, S, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> {
 
 	record JarTupleInput(Optional<StorageKey> mergedJar, Optional<StorageKey> clientJar, Optional<StorageKey> serverJar) implements StepInput {
 	}
 
+	@FunctionalInterface
+	interface JarProducer {
+		void produce() throws Exception;
+	}
+
+	/**
+	 * Produces an output jar, unless an output produced from the same inputs already exists or can be restored from the content-addressed store.
+	 * Existing outputs, that were produced from different inputs, are replaced. Existing outputs without any record of their inputs (e.g. produced before the store existed) are adopted.
+	 * The output is identified by the step, the output file name (jar type and flavours) and the {@link #contentAddressedFingerprint() fingerprint} of the worker.
+	 *
+	 * @param pipeline Pipeline
+	 * @param jarOut Output jar
+	 * @param producer Producer of the output jar, only called if the output cannot be reused
+	 * @param inputs All input files contributing to the output jar, absent (null) inputs are ignored
+	 * @return {@link StepStatus#UP_TO_DATE} if the output was reused, otherwise {@link StepStatus#SUCCESS}
+	 * @throws Exception If the output cannot be produced
+	 */
+	default StepStatus produceContentAddressed(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, Path jarOut, JarProducer producer, Path... inputs) throws Exception {
+		IPipelineFilesystemRoot rootFilesystem = pipeline.getFilesystemStorage().rootFilesystem();
+		if (rootFilesystem == null) {
+			if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
+				return StepStatus.UP_TO_DATE;
+			}
+			Files.deleteIfExists(jarOut);
+			producer.produce();
+			return StepStatus.SUCCESS;
+		}
+		ContentAddressedStore store = GitCraftPipelineFilesystemRoot.createContentAddressedStore(rootFilesystem);
+		String key = store.createKey(this.getClass().getSimpleName(), String.join("\u0000", jarOut.getFileName().toString(), this.contentAddressedFingerprint()), Stream.of(inputs).filter(Objects::nonNull).filter(Files::isRegularFile).toList());
+		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
+			Optional<String> producedKey = store.producedKey(jarOut);
+			if (producedKey.isEmpty()) {
+				MiscHelper.println("Inputs of %s are unknown, existing output is adopted", jarOut.getFileName());
+				store.store(key, jarOut);
+				return StepStatus.UP_TO_DATE;
+			} else if (producedKey.get().equals(key)) {
+				return StepStatus.UP_TO_DATE;
+			} else {
+				MiscHelper.println("Inputs of %s changed, output is stale", jarOut.getFileName());
+			}
+		}
+		Files.deleteIfExists(jarOut);
+		if (store.restore(key, jarOut)) {
+			return StepStatus.SUCCESS;
+		}
+		producer.produce();
+		if (Files.exists(jarOut)) {
+			store.store(key, jarOut);
+		}
+		return StepStatus.SUCCESS;
+	}
+
+	/**
+	 * Flavours of the configuration are already part of the output file name, so only state of the worker, that is not reflected there, needs to be fingerprinted.
+	 *
+	 * @return Fingerprint of the worker, that is relevant for its outputs, used to key the content-addressed store
+	 */
+	default String contentAddressedFingerprint() {
+		return "";
+	}
+
+	/**
+	 * Estimates the peak heap cost of processing a jar tuple. Jars of a tuple are processed one after another, so only the largest one is relevant.
+	 *
+	 * @param pipeline Pipeline
+	 * @param context Context
+	 * @param input Jar tuple
+	 * @param heapBytesPerJarByte Heap memory required per byte of (compressed) input jar
+	 * @return Estimated peak heap cost in bytes
+	 */
+	default long estimateJarTupleHeapCost(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, JarTupleInput input, long heapBytesPerJarByte) {
+		long largestJarSize = 0L;
+		for (Optional<StorageKey> jar : List.of(input.mergedJar(), input.clientJar(), input.serverJar())) {
+			if (jar.isEmpty()) {
+				continue;
+			}
+			Path jarPath = pipeline.getStoragePath(jar.get(), context, this.config());
+			try {
+				if (jarPath != null && Files.exists(jarPath)) {
+					largestJarSize = Math.max(largestJarSize, Files.size(jarPath));
+				}
+			} catch (IOException ignored) {
+				// no estimate for this jar
+			}
+		}
+		return largestJarSize * heapBytesPerJarByte;
+	}
 }
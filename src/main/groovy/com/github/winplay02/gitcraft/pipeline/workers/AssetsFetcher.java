@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.concurrent.Callable;
 
 import com.github.winplay02.gitcraft.GitCraft;
+import com.github.winplay02.gitcraft.Library;
 import com.github.winplay02.gitcraft.manifest.metadata.AssetsIndexMetadata;
 import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
 import com.github.winplay02.gitcraft.pipeline.IPipeline;
@@ -44,6 +45,11 @@ public record AssetsFetcher(GitCraftStepConfig config) implements GitCraftStepWo
 		statuses.add(ArtifactsFetcher.fetchArtifact(pipeline, context, this.config, context.targetVersion().assetsIndex(), GitCraftPipelineFilesystemStorage.ASSETS_INDEX_JSON, "assets index"));
 		AssetsIndex assetsIndex = AssetsIndex.from(SerializationHelper.deserialize(SerializationHelper.fetchAllFromPath(assetsIndexPath), AssetsIndexMetadata.class));
 
+		// Hash existing objects into the checksum cache up front, bounded by the available processors instead of the network concurrency below
+		if (Library.CONF_INTEGRITY.cacheChecksums()) {
+			Library.IA_SHA1.getChecksumFiles(assetsIndex.assets().stream().map(assetObject -> assetObject.resolve(assetsObjectsDir)).distinct().filter(Files::isRegularFile).toList());
+		}
+
 		int maxRunningTasks = 32;
 		statuses.addAll(
 			MiscHelper.runTasksInParallelAndAwaitResult(
@@ -15,30 +15,38 @@ import com.github.winplay02.gitcraft.pipeline.GitCraftStepWorker;
 import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
 import com.github.winplay02.gitcraft.types.AssetsIndex;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
+import com.github.winplay02.gitcraft.util.AssetBlobIndex;
+import com.github.winplay02.gitcraft.util.JsonCanonicalizer;
 import com.github.winplay02.gitcraft.util.MiscHelper;
 import com.github.winplay02.gitcraft.util.RepoWrapper;
 import com.github.winplay02.gitcraft.util.SerializationHelper;
+import com.github.winplay02.gitcraft.util.TreeCommitBuilder;
+import com.github.winplay02.gitcraft.util.ZipExtractor;
 import com.google.gson.JsonSyntaxException;
-import net.fabricmc.loom.util.FileSystemUtil;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.function.Predicate;
 import java.util.stream.StreamSupport;
 
 public record Committer(GitCraftStepConfig config) implements GitCraftStepWorker<Committer.Inputs> {
@@ -55,31 +63,35 @@ public record Committer(GitCraftStepConfig config) implements GitCraftStepWorker
 		}
 		// Check validity of prepared args
 		Objects.requireNonNull(context.repository());
+		boolean commitWithoutWorkingTree = GitCraft.getRepositoryConfiguration().commitWithoutWorkingTree();
 		// Clean First
-		MiscHelper.executeTimedStep("Clearing working directory...", context.repository()::clearWorkingTree);
+		if (!commitWithoutWorkingTree) {
+			MiscHelper.executeTimedStep("Clearing working directory...", context.repository()::clearWorkingTree);
+		}
 		// Switch Branch
 		Optional<String> target_branch = switchBranchIfNeeded(context.targetVersion(), context.versionGraph(), context.repository());
 		if (target_branch.isEmpty()) {
 			return StepOutput.ofEmptyResultSet(StepStatus.UP_TO_DATE);
 		}
-		// Copy to repository
-		MiscHelper.executeTimedStep("Moving files to repo...", () -> {
-			// Copy decompiled MC code to repo directory
-			copyCode(pipeline, context, input);
-			// Copy assets & data (it makes sense to track them, atleast the data)
-			copyAssets(pipeline, context, input);
-			// External Assets
-			copyExternalAssets(pipeline, context, input);
-		});
-		// Optionally sort copied JSON files
-		if (GitCraft.getDataConfiguration().sortJsonObjects()) {
-			MiscHelper.executeTimedStep("Sorting JSON files...", () -> {
-				// Sort them
-				sortJSONFiles(context.repository());
-			});
+		MiscHelper.PathContentTransformer contentTransformer = GitCraft.getDataConfiguration().sortJsonObjects() ? new JsonSortingTransformer(context.repository().getGit().getRepository()) : null;
+		if (commitWithoutWorkingTree) {
+			try (TreeCommitBuilder treeCommitBuilder = context.repository().createTreeCommitBuilder(contentTransformer)) {
+				// Insert files into the object database, sorting JSON files on the fly
+				MiscHelper.executeTimedStep("Inserting files into repo...", () -> copyAll(pipeline, context, input, new TreeContents(treeCommitBuilder)));
+				// Commit
+				MiscHelper.executeTimedStep("Committing files to repo...", () -> treeCommitBuilder.commit(createAuthor(context.targetVersion()), context.targetVersion().toCommitMessage()));
+			}
+			try {
+				AssetBlobIndex.save();
+			} catch (IOException e) {
+				MiscHelper.println("WARNING: Asset blob index could not be saved: %s", e);
+			}
+		} else {
+			// Copy to repository, sorting JSON files on the fly
+			MiscHelper.executeTimedStep("Moving files to repo...", () -> copyAll(pipeline, context, input, new WorkingTreeContents(context.repository(), contentTransformer)));
+			// Commit
+			MiscHelper.executeTimedStep("Committing files to repo...", () -> createCommit(context.targetVersion(), context.repository()));
 		}
-		// Commit
-		MiscHelper.executeTimedStep("Committing files to repo...", () -> createCommit(context.targetVersion(), context.repository()));
 		MiscHelper.println("Committed %s to the repository! (Target Branch is %s)", context.targetVersion().launcherFriendlyVersionName(), target_branch.orElseThrow() + (GitCraft.versionGraph.isOnMainBranch(context.targetVersion()) ? "" : " (non-linear)"));
 
 		// Create branch for linear version
@@ -110,6 +122,138 @@ public record Committer(GitCraftStepConfig config) implements GitCraftStepWorker
 	) implements StepInput {
 	}
 
+	/**
+	 * Destination of the files of a commit.
+	 */
+	private interface CommitContents {
+		void extractArchive(Path archive, String sourceDirectory, String target, Predicate<String> filter) throws IOException;
+
+		void copyFile(Path source, String target, boolean allowHardlink) throws IOException;
+
+		/**
+		 * Copies an asset object, whose SHA1 checksum is already known from the assets index.
+		 */
+		default void copyAsset(Path source, String assetHash, String target, boolean allowHardlink) throws IOException {
+			this.copyFile(source, target, allowHardlink);
+		}
+	}
+
+	/**
+	 * Files are copied to the working tree, which is committed afterwards.
+	 * Contents are transformed while they are copied, files to be transformed are therefore never hardlinked.
+	 */
+	private record WorkingTreeContents(RepoWrapper repo, MiscHelper.PathContentTransformer contentTransformer) implements CommitContents {
+		@Override
+		public void extractArchive(Path archive, String sourceDirectory, String target, Predicate<String> filter) throws IOException {
+			ZipExtractor.extract(archive, sourceDirectory, this.repo.getRootPath().resolve(target), filter, this.contentTransformer);
+		}
+
+		@Override
+		public void copyFile(Path source, String target, boolean allowHardlink) throws IOException {
+			Path targetPath = this.repo.getRootPath().resolve(target);
+			Files.createDirectories(targetPath.getParent());
+			if (this.contentTransformer != null && this.contentTransformer.shouldTransform(targetPath)) {
+				Files.write(targetPath, this.contentTransformer.transform(targetPath, Files.readAllBytes(source)));
+			} else if (allowHardlink && Library.CONF_GLOBAL.useHardlinks() && source.getFileSystem().equals(targetPath.getFileSystem())) {
+				Files.createLink(targetPath, source);
+			} else {
+				Files.copy(source, targetPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	/**
+	 * Files are inserted into the object database directly, bypassing the working tree.
+	 */
+	private record TreeContents(TreeCommitBuilder builder) implements CommitContents {
+		@Override
+		public void extractArchive(Path archive, String sourceDirectory, String target, Predicate<String> filter) throws IOException {
+			this.builder.addArchive(archive, sourceDirectory, target, filter);
+		}
+
+		@Override
+		public void copyFile(Path source, String target, boolean allowHardlink) throws IOException {
+			this.builder.addFile(source, target);
+		}
+
+		/**
+		 * Assets already stored in the repository are added by their blob id, without reading them again.
+		 * The blob id of an untransformed asset not yet recorded in the index is calculated from the asset object, as it may already be stored nonetheless.
+		 */
+		@Override
+		public void copyAsset(Path source, String assetHash, String target, boolean allowHardlink) throws IOException {
+			boolean transformed = this.builder.isTransformed(Path.of(target));
+			String variant = transformed ? "transformed" : "raw";
+			Optional<ObjectId> blobId = AssetBlobIndex.lookup(assetHash, variant);
+			if (blobId.isEmpty() && !transformed) {
+				blobId = Optional.of(ObjectId.fromString(Library.IA_GIT_BLOB_SHA1.getChecksumFileUnconditionally(source)));
+				AssetBlobIndex.record(assetHash, variant, blobId.get());
+			}
+			if (blobId.isPresent() && this.builder.hasObject(blobId.get())) {
+				this.builder.addBlob(blobId.get(), target);
+				return;
+			}
+			AssetBlobIndex.record(assetHash, variant, this.builder.addFile(source, target));
+		}
+	}
+
+	private static final int MAX_SORTED_JSON_BLOBS = 1 << 16;
+
+	/**
+	 * Blob ids of sorted JSON contents, mapped by the blob ids of the unsorted contents, so that files unchanged from previous versions are not parsed again.
+	 * Access-ordered and bounded, the least recently used entries are evicted first.
+	 */
+	private static final Map<ObjectId, ObjectId> SORTED_JSON_BLOBS = Collections.synchronizedMap(new LinkedHashMap<ObjectId, ObjectId>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ObjectId, ObjectId> eldest) {
+			return this.size() > MAX_SORTED_JSON_BLOBS;
+		}
+	});
+
+	/**
+	 * Sorts JSON files, unless the same content was already sorted for a previous version.
+	 * In that case, the sorted content is read from the repository, where it was committed to, without parsing the content again.
+	 */
+	private record JsonSortingTransformer(Repository repository) implements MiscHelper.PathContentTransformer {
+		@Override
+		public boolean shouldTransform(Path path) {
+			return path.toString().endsWith(".json");
+		}
+
+		@Override
+		public byte[] transform(Path path, byte[] content) throws IOException {
+			ObjectId contentId = new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, content);
+			ObjectId sortedContentId = SORTED_JSON_BLOBS.get(contentId);
+			if (sortedContentId != null) {
+				if (sortedContentId.equals(contentId)) {
+					// already sorted
+					return content;
+				}
+				if (this.repository.getObjectDatabase().has(sortedContentId)) {
+					return this.repository.open(sortedContentId, Constants.OBJ_BLOB).getCachedBytes(Integer.MAX_VALUE);
+				}
+			}
+			byte[] sortedContent;
+			try {
+				sortedContent = JsonCanonicalizer.canonicalize(content);
+			} catch (final JsonSyntaxException e) {
+				MiscHelper.println("WARNING: File %s cannot be sorted, skipping...", path);
+				return content;
+			}
+			SORTED_JSON_BLOBS.put(contentId, new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, sortedContent));
+			return sortedContent;
+		}
+	}
+
+	private void copyAll(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, Committer.Inputs input, CommitContents contents) throws IOException {
+		// Copy decompiled MC code to repo directory
+		copyCode(pipeline, context, input, contents);
+		// Copy assets & data (it makes sense to track them, atleast the data)
+		copyAssets(pipeline, context, input, contents);
+		// External Assets
+		copyExternalAssets(pipeline, context, input, contents);
+	}
+
 	private String getBranchNameForVersion(OrderedVersion mcVersion) {
 		OrderedVersion branch = GitCraft.versionGraph.walkBackToBranchPoint(mcVersion);
 		OrderedVersion root = GitCraft.versionGraph.walkBackToRoot(mcVersion);
@@ -191,97 +335,60 @@ public record Committer(GitCraftStepConfig config) implements GitCraftStepWorker
 		return resultRevs;
 	}
 
-	private void copyCode(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, Committer.Inputs input) throws IOException {
-		RepoWrapper repo = context.repository();
+	private void copyCode(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, Committer.Inputs input, CommitContents contents) throws IOException {
 		if (input.decompiledMerged().isPresent()) {
-			try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(pipeline.getStoragePath(input.decompiledMerged().orElseThrow(), context, this.config))) {
-				MiscHelper.copyLargeDir(fs.get().getPath("."), repo.getRootPath().resolve("minecraft").resolve("src"));
-			}
+			contents.extractArchive(pipeline.getStoragePath(input.decompiledMerged().orElseThrow(), context, this.config), "", "minecraft/src", null);
 			return;
 		}
 		if (input.decompiledClientOnly().isPresent()) {
-			try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(pipeline.getStoragePath(input.decompiledClientOnly().orElseThrow(), context, this.config))) {
-				MiscHelper.copyLargeDir(fs.get().getPath("."), repo.getRootPath().resolve("minecraft").resolve("client"));
-			}
+			contents.extractArchive(pipeline.getStoragePath(input.decompiledClientOnly().orElseThrow(), context, this.config), "", "minecraft/client", null);
 		}
 		if (input.decompiledServerOnly().isPresent()) {
-			try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(pipeline.getStoragePath(input.decompiledServerOnly().orElseThrow(), context, this.config))) {
-				MiscHelper.copyLargeDir(fs.get().getPath("."), repo.getRootPath().resolve("minecraft").resolve("server"));
-			}
+			contents.extractArchive(pipeline.getStoragePath(input.decompiledServerOnly().orElseThrow(), context, this.config), "", "minecraft/server", null);
 		}
 		if (input.decompiledClientOnly().isEmpty() && input.decompiledServerOnly().isEmpty()) {
 			MiscHelper.panic("A decompiled JAR for version %s does not exist", context.targetVersion().launcherFriendlyVersionName());
 		}
 	}
 
-	private void copyAssets(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, Committer.Inputs input) throws IOException {
-		RepoWrapper repo = context.repository();
+	private void copyAssets(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, Committer.Inputs input, CommitContents contents) throws IOException {
 		if (GitCraft.getDataConfiguration().loadAssets() || GitCraft.getDataConfiguration().loadIntegratedDatapack()) {
 			if (input.serverZip().isPresent()) {
 				Path artifactRootPath = pipeline.getStoragePath(input.serverZip().orElseThrow(), context, this.config);
-
-				try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(artifactRootPath)) {
-					for (Path rootPath : fs.get().getRootDirectories()) {
-						MiscHelper.copyLargeDirExcept(rootPath, repo.getRootPath().resolve("server-info"), List.of(rootPath.resolve(ArtifactsUnpacker.SERVER_ZIP_JAR_NAME)));
-					}
-				}
+				contents.extractArchive(artifactRootPath, "", "server-info", name -> !name.equals(ArtifactsUnpacker.SERVER_ZIP_JAR_NAME));
 			}
 			if (input.assetsDataJar().isPresent()) {
-				try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(pipeline.getStoragePath(input.assetsDataJar().orElseThrow(), context, this.config))) {
-					if (GitCraft.getDataConfiguration().loadAssets()) {
-						Path assetsSrcPath = fs.get().getPath("assets");
-						if (Files.exists(assetsSrcPath)) {
-							MiscHelper.copyLargeDir(fs.get().getPath("assets"), repo.getRootPath().resolve("minecraft").resolve("resources").resolve("assets"));
-						} else {
-							// Copy old (unstructured) assets
-							for (Path rootPath : fs.get().getRootDirectories()) {
-								MiscHelper.copyLargeDirExceptNoFileExt(rootPath, repo.getRootPath().resolve("minecraft").resolve("resources").resolve("assets"), List.of(rootPath.resolve("META-INF")), Set.of("class"));
-							}
-						}
-					}
-					if (GitCraft.getDataConfiguration().loadIntegratedDatapack()) {
-						Path dataSrcPath = fs.get().getPath("data");
-						if (Files.exists(dataSrcPath)) {
-							MiscHelper.copyLargeDir(fs.get().getPath("data"), repo.getRootPath().resolve("minecraft").resolve("resources").resolve("data"));
-						}
+				Path assetsDataJarPath = pipeline.getStoragePath(input.assetsDataJar().orElseThrow(), context, this.config);
+				if (GitCraft.getDataConfiguration().loadAssets()) {
+					if (ZipExtractor.containsDirectory(assetsDataJarPath, "assets")) {
+						contents.extractArchive(assetsDataJarPath, "assets", "minecraft/resources/assets", null);
+					} else {
+						// Copy old (unstructured) assets
+						contents.extractArchive(assetsDataJarPath, "", "minecraft/resources/assets", name -> !name.startsWith("META-INF/") && !name.endsWith(".class"));
 					}
 				}
+				if (GitCraft.getDataConfiguration().loadIntegratedDatapack()) {
+					contents.extractArchive(assetsDataJarPath, "data", "minecraft/resources/data", null);
+				}
 			}
 		}
 		if (GitCraft.getDataConfiguration().loadDatagenRegistry() || (GitCraft.getDataConfiguration().readableNbt() && GitCraft.getDataConfiguration().loadIntegratedDatapack())) {
 			if (GitCraft.getDataConfiguration().loadDatagenRegistry() && input.datagenArtifactsReportsJar().isPresent()) {
 				Path datagenReportsArchive = pipeline.getStoragePath(input.datagenArtifactsReportsJar().orElseThrow(), context, this.config);
-				try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(datagenReportsArchive)) {
-					MiscHelper.copyLargeDir(fs.getPath("reports"), repo.getRootPath().resolve("minecraft").resolve("resources").resolve("datagen-reports"));
-				}
+				contents.extractArchive(datagenReportsArchive, "reports", "minecraft/resources/datagen-reports", null);
 				if (input.datagenExperimentalVanillaDatapack().isPresent()) {
 					Path experimentalWorldgenPackPath = pipeline.getStoragePath(input.datagenExperimentalVanillaDatapack().orElseThrow(), context, this.config);
-					try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(experimentalWorldgenPackPath)) {
-						MiscHelper.copyLargeDir(fs.get().getPath("."), repo.getRootPath().resolve("minecraft").resolve("resources").resolve("exp-vanilla-worldgen"));
-					}
+					contents.extractArchive(experimentalWorldgenPackPath, "", "minecraft/resources/exp-vanilla-worldgen", null);
 				}
 			}
 			if (GitCraft.getDataConfiguration().readableNbt() && GitCraft.getDataConfiguration().loadIntegratedDatapack() && input.datagenArtifactsSnbtJar().isPresent()) {
 				Path datagenSnbtArchive = pipeline.getStoragePath(input.datagenArtifactsSnbtJar().orElseThrow(), context, this.config);
-				try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(datagenSnbtArchive)) {
-					MiscHelper.copyLargeDir(fs.getPath("data"), repo.getRootPath().resolve("minecraft").resolve("resources").resolve("datagen-snbt"));
-				}
-			}
-		}
-	}
-
-	private void sortJSONFiles(final RepoWrapper repo) throws IOException {
-		final List<Path> jsonFiles = MiscHelper.listRecursivelyFilteredExtension(repo.getRootPath(), ".json");
-		for (final Path jsonFile : jsonFiles) {
-			try {
-				SerializationHelper.sortJSONFile(jsonFile);
-			} catch (final JsonSyntaxException e) {
-				MiscHelper.println("WARNING: File %s cannot be sorted, skipping...", jsonFile);
+				contents.extractArchive(datagenSnbtArchive, "data", "minecraft/resources/datagen-snbt", null);
 			}
 		}
 	}
 
-	private void copyExternalAssets(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, Committer.Inputs input) throws IOException {
+	private void copyExternalAssets(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, Committer.Inputs input, CommitContents contents) throws IOException {
 		if (GitCraft.getDataConfiguration().loadAssets() && GitCraft.getDataConfiguration().loadAssetsExtern()) {
 			if (input.assetsIndexPath().isEmpty() || input.assetsObjectStore().isEmpty()) {
 				MiscHelper.panic("Assets for version %s do not exist", context.targetVersion().launcherFriendlyVersionName());
@@ -290,26 +397,18 @@ public record Committer(GitCraftStepConfig config) implements GitCraftStepWorker
 			Path artifactObjectStore = pipeline.getStoragePath(input.assetsObjectStore().orElseThrow(), context, this.config);
 
 			AssetsIndex assetsIndex = AssetsIndex.from(SerializationHelper.deserialize(SerializationHelper.fetchAllFromPath(assetsIndexPath), AssetsIndexMetadata.class));
-			// Copy Assets
-			Path targetRoot = context.repository().getRootPath().resolve("minecraft").resolve("external-resources").resolve("assets");
-			if (Library.CONF_GLOBAL.useHardlinks() && artifactObjectStore.getFileSystem().equals(targetRoot.getFileSystem()) && !GitCraft.getDataConfiguration().sortJsonObjects()) {
-				for (Map.Entry<String, AssetsIndexMetadata.Asset> entry : assetsIndex.assetsIndex().objects().entrySet()) {
-					Path sourcePath = artifactObjectStore.resolve(entry.getValue().hash());
-					Path targetPath = targetRoot.resolve(entry.getKey());
-					Files.createDirectories(targetPath.getParent());
-					Files.createLink(targetPath, sourcePath);
-				}
-			} else {
-				for (Map.Entry<String, AssetsIndexMetadata.Asset> entry : assetsIndex.assetsIndex().objects().entrySet()) {
-					Path sourcePath = artifactObjectStore.resolve(entry.getValue().hash());
-					Path targetPath = targetRoot.resolve(entry.getKey());
-					Files.createDirectories(targetPath.getParent());
-					Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
-				}
+			// Copy Assets, transformed (e.g. sorted) assets are written separately, so all other assets can be hardlinked
+			for (Map.Entry<String, AssetsIndexMetadata.Asset> entry : assetsIndex.assetsIndex().objects().entrySet()) {
+				Path sourcePath = artifactObjectStore.resolve(entry.getValue().hash());
+				contents.copyAsset(sourcePath, entry.getValue().hash(), "minecraft/external-resources/assets/" + entry.getKey(), true);
 			}
 		}
 	}
 
+	private PersonIdent createAuthor(OrderedVersion mcVersion) {
+		return new PersonIdent(GitCraft.getRepositoryConfiguration().gitUser(), GitCraft.getRepositoryConfiguration().gitMail(), Objects.requireNonNull(mcVersion.timestamp()).toInstant(), Objects.requireNonNull(mcVersion.timestamp()).getZone());
+	}
+
 	private void createCommit(OrderedVersion mcVersion, RepoWrapper repo) throws GitAPIException {
 		repo.createCommitUsingAllChanges(GitCraft.getRepositoryConfiguration().gitUser(), GitCraft.getRepositoryConfiguration().gitMail(), new Date(Objects.requireNonNull(mcVersion.timestamp()).toInstant().toEpochMilli()), TimeZone.getTimeZone(Objects.requireNonNull(mcVersion.timestamp()).getZone()), mcVersion.toCommitMessage());
 	}
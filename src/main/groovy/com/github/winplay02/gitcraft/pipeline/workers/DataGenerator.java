@@ -14,9 +14,10 @@ import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
 import com.github.winplay02.gitcraft.types.Artifact;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
 import com.github.winplay02.gitcraft.util.MiscHelper;
+import com.github.winplay02.gitcraft.util.ZipExtractor;
 import groovy.lang.Tuple2;
-import net.fabricmc.loom.util.FileSystemUtil;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -25,6 +26,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 public record DataGenerator(GitCraftStepConfig config) implements GitCraftStepWorker<DataGenerator.Inputs> {
 
@@ -33,6 +37,10 @@ public record DataGenerator(GitCraftStepConfig config) implements GitCraftStepWo
 	private static final String DATAGEN_BUNDLER_START_VERSION = "21w39a";
 	private static final String EXT_VANILLA_WORLDGEN_PACK_START = "20w28a";
 	private static final String EXT_VANILLA_WORLDGEN_PACK_END = "21w44a";
+	private static final String CDS_ARCHIVE_FILE = "datagen.jsa";
+	private static final String UNBUNDLED_DIRECTORY = "unbundled";
+
+	private static Semaphore datagenProcessPermits = null;
 
 	@Override
 	public boolean shouldExecute(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context) {
@@ -70,82 +78,181 @@ public record DataGenerator(GitCraftStepConfig config) implements GitCraftStepWo
 			MiscHelper.deleteJarIfEmpty(artifactReportsArchive);
 		}
 
-		if ((!GitCraft.getDataConfiguration().readableNbt() || Files.exists(artifactSnbtArchive))
-			&& (!GitCraft.getDataConfiguration().loadDatagenRegistry() || Files.exists(artifactReportsArchive))) {
+		boolean generateSnbt = GitCraft.getDataConfiguration().readableNbt() && !Files.exists(artifactSnbtArchive);
+		boolean generateReports = GitCraft.getDataConfiguration().loadDatagenRegistry() && !Files.exists(artifactReportsArchive);
+		if (!generateSnbt && !generateReports) {
 			return new StepOutput<>(StepStatus.UP_TO_DATE, results);
 		}
 
 		Path executablePath = pipeline.getStoragePath(input.serverJar(), context, this.config);
-		Path datagenDirectory = results.getPathForKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.ARTIFACTS_DATAGEN);
+		Path storageDatagenDirectory = results.getPathForKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.ARTIFACTS_DATAGEN);
+		Path datagenDirectory = GitCraft.getDataConfiguration().datagenScratchDirectory() != null
+			? Path.of(GitCraft.getDataConfiguration().datagenScratchDirectory()).resolve(String.format("datagen-%s", mcVersion.launcherFriendlyVersionName()))
+			: storageDatagenDirectory;
 		Files.createDirectories(datagenDirectory);
 
-		if (GitCraft.getDataConfiguration().readableNbt()) {
-			// Structures (& more)
-			{
-				Path dataJarPath = pipeline.getStoragePath(input.dataJar(), context, this.config);
-				Path nbtSourceDataDirectory = results.getPathForKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.TEMP_DATAGEN_NBT_SOURCE_DATA_DIRECTORY);
-				try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(dataJarPath)) {
-					MiscHelper.copyLargeDir(fs.get().getPath("data"), nbtSourceDataDirectory);
-				}
+		StepStatus status = null;
+		if (GitCraft.getDataConfiguration().loadDatagenRegistry()) {
+			Tuple2<OrderedVersion, Artifact> worldgenPack = EXTERNAL_WORLDGEN_PACKS.get(mcVersion);
+			if (worldgenPack != null) {
+				Path vanillaWorldgenDatapack = results.getPathForDifferentVersionKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.ARTIFACTS_VANILLA_WORLDGEN_DATAPACK_ZIP, worldgenPack.getV1());
+				status = worldgenPack.getV2().fetchArtifactToFile(context.executorService(), vanillaWorldgenDatapack, "vanilla worldgen datapack");
 			}
-			Path nbtSourceDirectory = results.getPathForKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.TEMP_DATAGEN_NBT_SOURCE_DIRECTORY);
+		}
+
+		// Temporary directories keep their layout below the datagen directory, even if it is relocated to the scratch directory
+		UnaryOperator<Path> temporaryPath = path -> datagenDirectory.resolve(storageDatagenDirectory.relativize(path).toString());
+		Path nbtSourceDirectory = temporaryPath.apply(results.getPathForKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.TEMP_DATAGEN_NBT_SOURCE_DIRECTORY));
+		Path nbtSourceDataDirectory = temporaryPath.apply(results.getPathForKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.TEMP_DATAGEN_NBT_SOURCE_DATA_DIRECTORY));
+		Path datagenSnbtOutput = temporaryPath.apply(results.getPathForKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.TEMP_DATAGEN_SNBT_DESTINATION_DIRECTORY));
+		Path datagenSnbtOutputData = temporaryPath.apply(results.getPathForKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.TEMP_DATAGEN_SNBT_DESTINATION_DATA_DIRECTORY));
+		Path datagenReportsOutput = temporaryPath.apply(results.getPathForKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.TEMP_DATAGEN_REPORTS_DIRECTORY));
+		if (generateSnbt) {
+			// Structures (& more), only NBT files are converted, so nothing else has to be extracted
+			Path dataJarPath = pipeline.getStoragePath(input.dataJar(), context, this.config);
+			ZipExtractor.extract(dataJarPath, "data", nbtSourceDataDirectory, name -> name.endsWith(".nbt"));
 			// Delete Output files, as some versions do not work, when files already exist
-			Path datagenSnbtOutput = results.getPathForKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.TEMP_DATAGEN_SNBT_DESTINATION_DIRECTORY);
 			MiscHelper.deleteDirectory(datagenSnbtOutput);
-			runDatagen(context.executorService(), mcVersion, datagenDirectory, executablePath, "--dev",
-				"--input", nbtSourceDirectory.toAbsolutePath().toString(),
-				"--output", datagenSnbtOutput.toAbsolutePath().toString()
-			);
+		}
+		if (generateReports) {
+			MiscHelper.deleteDirectory(datagenReportsOutput);
+		}
+
+		try {
+			if (generateSnbt && generateReports && GitCraft.getDataConfiguration().datagenSingleInvocation()) {
+				// Both tasks share one process, reports are written next to the converted files
+				runDatagen(context.executorService(), mcVersion, datagenDirectory, executablePath, "--dev", "--reports",
+					"--input", nbtSourceDirectory.toAbsolutePath().toString(),
+					"--output", datagenSnbtOutput.toAbsolutePath().toString()
+				);
+				Path combinedReportsOutput = datagenSnbtOutput.resolve("reports");
+				if (Files.isDirectory(combinedReportsOutput)) {
+					datagenReportsOutput = combinedReportsOutput;
+				} else {
+					// Version does not support generating reports together with SNBT conversion
+					runDatagen(context.executorService(), mcVersion, datagenDirectory, executablePath, "--reports");
+				}
+			} else {
+				if (generateSnbt) {
+					runDatagen(context.executorService(), mcVersion, datagenDirectory, executablePath, "--dev",
+						"--input", nbtSourceDirectory.toAbsolutePath().toString(),
+						"--output", datagenSnbtOutput.toAbsolutePath().toString()
+					);
+				}
+				if (generateReports) {
+					runDatagen(context.executorService(), mcVersion, datagenDirectory, executablePath, "--reports");
+				}
+			}
+		} finally {
+			// Extracted server jars and the class data sharing archive are only valid for the datagen processes of this version
+			MiscHelper.deleteDirectory(datagenDirectory.resolve(UNBUNDLED_DIRECTORY));
+			Files.deleteIfExists(datagenDirectory.resolve(CDS_ARCHIVE_FILE));
+		}
+
+		if (generateSnbt) {
 			// Delete input files, as they are no longer needed
 			MiscHelper.deleteDirectory(nbtSourceDirectory);
 			if (!Files.exists(datagenSnbtOutput) || !Files.isDirectory(datagenSnbtOutput)) {
 				MiscHelper.panic("Datagen step was required, but SNBT files were not generated");
 			}
-			Path datagenSnbtOutputData = results.getPathForKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.TEMP_DATAGEN_SNBT_DESTINATION_DATA_DIRECTORY);
-			// Copy to artifact jar
-			try (FileSystemUtil.Delegate snbtArchive = FileSystemUtil.getJarFileSystem(artifactSnbtArchive, true)) {
-				MiscHelper.copyLargeDir(datagenSnbtOutputData, snbtArchive.getPath("data"));
-			}
-			MiscHelper.deleteDirectory(datagenSnbtOutput);
+			// Write to artifact jar
+			MiscHelper.packDirectory(datagenSnbtOutputData, artifactSnbtArchive, "data");
 		}
-		if (GitCraft.getDataConfiguration().loadDatagenRegistry()) {
-			StepStatus status = null;
-			Tuple2<OrderedVersion, Artifact> worldgenPack = EXTERNAL_WORLDGEN_PACKS.get(mcVersion);
-			if (worldgenPack != null) {
-				Path vanillaWorldgenDatapack = results.getPathForDifferentVersionKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.ARTIFACTS_VANILLA_WORLDGEN_DATAPACK_ZIP, worldgenPack.getV1());
-				status = worldgenPack.getV2().fetchArtifactToFile(context.executorService(), vanillaWorldgenDatapack, "vanilla worldgen datapack");
-			}
-			// Datagen
-			Path datagenReportsOutput = results.getPathForKeyAndAdd(pipeline, context, this.config, GitCraftPipelineFilesystemStorage.TEMP_DATAGEN_REPORTS_DIRECTORY);
-			MiscHelper.deleteDirectory(datagenReportsOutput);
-			runDatagen(context.executorService(), mcVersion, datagenDirectory, executablePath, "--reports");
+		if (generateReports) {
 			if (!Files.exists(datagenReportsOutput) || !Files.isDirectory(datagenReportsOutput)) {
 				MiscHelper.panic("Datagen step was required, but reports were not generated");
 			}
-			// Copy to artifact jar
-			try (FileSystemUtil.Delegate reportsArchive = FileSystemUtil.getJarFileSystem(artifactReportsArchive, true)) {
-				MiscHelper.copyLargeDir(datagenReportsOutput, reportsArchive.getPath("reports"));
-			}
+			// Write to artifact jar
+			MiscHelper.packDirectory(datagenReportsOutput, artifactReportsArchive, "reports");
 			MiscHelper.deleteDirectory(datagenReportsOutput);
-			MiscHelper.deleteDirectory(datagenDirectory);
-			return new StepOutput<>(status != null ? status : StepStatus.SUCCESS, results);
 		}
+		MiscHelper.deleteDirectory(datagenSnbtOutput);
 		MiscHelper.deleteDirectory(datagenDirectory);
-		return new StepOutput<>(StepStatus.SUCCESS, results);
+		MiscHelper.deleteDirectory(storageDatagenDirectory);
+		return new StepOutput<>(status != null ? status : StepStatus.SUCCESS, results);
 	}
 
 	public record Inputs(StorageKey serverJar, StorageKey dataJar) implements StepInput {
 	}
 
+	/**
+	 * @return Permits for datagen processes, shared by all concurrently running datagen steps, or null if the number of processes is not limited
+	 */
+	private static synchronized Semaphore getDatagenProcessPermits() {
+		if (datagenProcessPermits == null && GitCraft.getDataConfiguration().maxConcurrentDatagenProcesses() > 0) {
+			datagenProcessPermits = new Semaphore(GitCraft.getDataConfiguration().maxConcurrentDatagenProcesses(), true);
+		}
+		return datagenProcessPermits;
+	}
+
+	private static String[] datagenJvmArgs(Path cwd, String... jvmArgs) {
+		List<String> args = new ArrayList<>(List.of(jvmArgs));
+		if (GitCraft.getDataConfiguration().datagenClassDataSharing()) {
+			// The archive is created when the first process exits, and is recreated automatically if it does not match the classpath or JVM anymore
+			args.add(String.format("-XX:SharedArchiveFile=%s", cwd.resolve(CDS_ARCHIVE_FILE).toAbsolutePath()));
+			args.add("-XX:+AutoCreateSharedArchive");
+		}
+		return args.toArray(String[]::new);
+	}
+
+	/**
+	 * Extracts the server jar and libraries of a bundled server jar to the datagen directory, where they are kept for all datagen processes of the version,
+	 * so that the classpath (and therefore the class data sharing archive) stays valid.
+	 *
+	 * @param executable Bundled server jar
+	 * @param cwd Datagen directory
+	 * @return Classpath of the unbundled server jar and its libraries
+	 * @throws IOException If the bundled server jar cannot be read or the jars cannot be extracted
+	 */
+	private static List<Path> unbundle(Path executable, Path cwd) throws IOException {
+		Path unbundledDirectory = cwd.resolve(UNBUNDLED_DIRECTORY);
+		ZipExtractor.extract(executable, "META-INF", unbundledDirectory, name -> name.startsWith("versions/") || name.startsWith("libraries/") || name.endsWith(".list"));
+		List<Path> classpath = new ArrayList<>();
+		// same order as the bundler: server jar first, libraries afterwards
+		for (String bundledDirectory : List.of("versions", "libraries")) {
+			Path listFile = unbundledDirectory.resolve(bundledDirectory + ".list");
+			if (!Files.exists(listFile)) {
+				MiscHelper.panic("Bundled server jar %s does not contain META-INF/%s.list", executable, bundledDirectory);
+			}
+			for (String line : Files.readAllLines(listFile)) {
+				// <sha256>\t<id>\t<path>
+				String[] columns = line.split("\t");
+				if (columns.length == 3) {
+					classpath.add(unbundledDirectory.resolve(bundledDirectory).resolve(columns[2]));
+				}
+			}
+		}
+		return classpath;
+	}
+
 	private void runDatagen(Executor executor, OrderedVersion mcVersion, Path cwd, Path executable, String... args) throws IOException, InterruptedException {
-		if (mcVersion.compareTo(GitCraft.getApplicationConfiguration().manifestSource().getMetadataProvider().getVersionByVersionID(DATAGEN_BUNDLER_START_VERSION)) >= 0) {
-			// >= DATAGEN_BUNDLER: java -DbundlerMainClass=net.minecraft.data.Main -jar minecraft_server.jar
-			MiscHelper.createJavaJarSubprocess(executor, String.format("Datagenerator-%s", mcVersion.launcherFriendlyVersionName()), executable, cwd, new String[]{"-DbundlerMainClass=net.minecraft.data.Main"}, args);
-		} else {
-			// < DATAGEN_BUNDLER: java -cp minecraft_server.jar net.minecraft.data.Main
-			ArrayList<String> argsList = new ArrayList<>(List.of("net.minecraft.data.Main"));
-			argsList.addAll(List.of(args));
-			MiscHelper.createJavaCpSubprocess(executor, String.format("Datagenerator-%s", mcVersion.launcherFriendlyVersionName()), executable, cwd, new String[0], argsList.toArray(String[]::new));
+		Semaphore permits = getDatagenProcessPermits();
+		if (permits != null) {
+			permits.acquire();
+		}
+		try {
+			if (mcVersion.compareTo(GitCraft.getApplicationConfiguration().manifestSource().getMetadataProvider().getVersionByVersionID(DATAGEN_BUNDLER_START_VERSION)) >= 0 && GitCraft.getDataConfiguration().datagenClassDataSharing()) {
+				// >= DATAGEN_BUNDLER: java -cp server.jar:libraries... net.minecraft.data.Main
+				// The bundler loads the game through its own class loader, which is not covered by class data sharing, so the unbundled jars are put on the classpath instead
+				List<String> processArgs = new ArrayList<>(List.of(datagenJvmArgs(cwd)));
+				processArgs.add("-cp");
+				processArgs.add(unbundle(executable, cwd).stream().map(path -> path.toAbsolutePath().toString()).collect(Collectors.joining(File.pathSeparator)));
+				processArgs.add("net.minecraft.data.Main");
+				processArgs.addAll(List.of(args));
+				MiscHelper.createJavaSubprocess(executor, String.format("Datagenerator-%s", mcVersion.launcherFriendlyVersionName()), cwd, processArgs);
+			} else if (mcVersion.compareTo(GitCraft.getApplicationConfiguration().manifestSource().getMetadataProvider().getVersionByVersionID(DATAGEN_BUNDLER_START_VERSION)) >= 0) {
+				// >= DATAGEN_BUNDLER: java -DbundlerMainClass=net.minecraft.data.Main -jar minecraft_server.jar
+				MiscHelper.createJavaJarSubprocess(executor, String.format("Datagenerator-%s", mcVersion.launcherFriendlyVersionName()), executable, cwd, datagenJvmArgs(cwd, "-DbundlerMainClass=net.minecraft.data.Main"), args);
+			} else {
+				// < DATAGEN_BUNDLER: java -cp minecraft_server.jar net.minecraft.data.Main
+				ArrayList<String> argsList = new ArrayList<>(List.of("net.minecraft.data.Main"));
+				argsList.addAll(List.of(args));
+				MiscHelper.createJavaCpSubprocess(executor, String.format("Datagenerator-%s", mcVersion.launcherFriendlyVersionName()), executable, cwd, datagenJvmArgs(cwd), argsList.toArray(String[]::new));
+			}
+		} finally {
+			if (permits != null) {
+				permits.release();
+			}
 		}
 	}
 
@@ -1,21 +1,33 @@
 package com.github.winplay02.gitcraft.pipeline.workers;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Enumeration;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import com.github.winplay02.gitcraft.Library;
 import com.github.winplay02.gitcraft.pipeline.GitCraftPipelineFilesystemStorage;
+import com.github.winplay02.gitcraft.pipeline.GitCraftStep;
 import com.github.winplay02.gitcraft.pipeline.IPipeline;
 import com.github.winplay02.gitcraft.pipeline.IStepContext;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepConfig;
@@ -23,24 +35,55 @@ import com.github.winplay02.gitcraft.pipeline.StepOutput;
 import com.github.winplay02.gitcraft.pipeline.StepResults;
 import com.github.winplay02.gitcraft.pipeline.key.MinecraftJar;
 import com.github.winplay02.gitcraft.pipeline.StepStatus;
+import com.github.winplay02.gitcraft.pipeline.ThreadBudget;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepWorker;
 import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
+import com.github.winplay02.gitcraft.util.ClassFingerprints;
 import com.github.winplay02.gitcraft.util.SerializationHelper;
 import org.jetbrains.java.decompiler.main.Fernflower;
 import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 
 import com.github.winplay02.gitcraft.types.Artifact;
-import com.github.winplay02.gitcraft.util.FFNIODirectoryResultSaver;
+import com.github.winplay02.gitcraft.util.FFZipStreamResultSaver;
 import com.github.winplay02.gitcraft.util.MiscHelper;
 
 import net.fabricmc.fernflower.api.IFabricJavadocProvider;
 import net.fabricmc.loom.decompilers.vineflower.TinyJavadocProvider;
-import net.fabricmc.loom.util.FileSystemUtil;
 
 public record Decompiler(GitCraftStepConfig config) implements GitCraftStepWorker<GitCraftStepWorker.JarTupleInput> {
 
+	// the decompiler keeps class structures and decompiled sources of the whole jar in memory
+	private static final long HEAP_BYTES_PER_JAR_BYTE = 16L;
+
+	// e.g. the client and server jar of a version, if no limit of concurrent CPU steps is configured
+	private static final int DEFAULT_EXPECTED_CONCURRENT_JOBS = 2;
+
+	private static ThreadBudget threadBudget = null;
+
+	/**
+	 * @return Decompiler threads shared by all concurrently running decompile jobs
+	 */
+	private static synchronized ThreadBudget getThreadBudget() {
+		if (threadBudget == null) {
+			int maxParallelSteps = GitCraftStep.DECOMPILE_JARS.getResourceClass().maxParallelSteps(Library.CONF_GLOBAL);
+			threadBudget = new ThreadBudget(Library.CONF_GLOBAL.decompilingThreads(), maxParallelSteps > 0 ? maxParallelSteps : DEFAULT_EXPECTED_CONCURRENT_JOBS);
+		}
+		return threadBudget;
+	}
+
+	@Override
+	public String contentAddressedFingerprint() {
+		// decompiled sources change with the decompiler version
+		return String.format("vineflower %s", Fernflower.class.getPackage().getImplementationVersion());
+	}
+
+	@Override
+	public long estimateHeapCost(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, GitCraftStepWorker.JarTupleInput input) {
+		return this.estimateJarTupleHeapCost(pipeline, context, input, HEAP_BYTES_PER_JAR_BYTE);
+	}
+
 	@Override
 	public StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> run(
 		IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
@@ -61,7 +104,7 @@ public record Decompiler(GitCraftStepConfig config) implements GitCraftStepWorke
 	private static final PrintStream NULL_IS = new PrintStream(OutputStream.nullOutputStream());
 
 	private StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> decompileJar(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
-													IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar inFile, StorageKey inputFile, String artifactKind, StorageKey outputFile) throws IOException {
+													IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar inFile, StorageKey inputFile, String artifactKind, StorageKey outputFile) throws Exception {
 		if (inputFile == null) {
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
@@ -70,17 +113,45 @@ public record Decompiler(GitCraftStepConfig config) implements GitCraftStepWorke
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
-			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
-		}
-		if (Files.exists(jarOut)) {
-			Files.delete(jarOut);
-		}
 		Path librariesDir = pipeline.getStoragePath(GitCraftPipelineFilesystemStorage.LIBRARIES, context, this.config);
 		if (librariesDir == null) {
 			return StepOutput.ofEmptyResultSet(StepStatus.FAILED);
 		}
+		StepStatus status = this.produceContentAddressed(pipeline, jarOut, () -> this.decompile(pipeline, context, inFile, jarIn, jarOut, librariesDir, artifactKind, outputFile), jarIn, config.mappingFlavour().getPath(context.targetVersion(), inFile).orElse(null));
+		if (Library.CONF_GLOBAL.incrementalDecompilation()) {
+			// outputs restored from the content-addressed store (or produced without incremental decompilation) have no fingerprints yet
+			this.ensureFingerprints(context, inFile, jarIn, jarOut, librariesDir);
+		}
+		return StepOutput.ofSingle(status, outputFile);
+	}
+
+	/**
+	 * Fingerprints of the classes, a decompiled jar was produced from.
+	 *
+	 * @param decompiledJar SHA1 checksum of the decompiled jar, so that fingerprints of a replaced jar are not used
+	 * @param classes Fingerprints of the top-level classes, see {@link ClassFingerprints}
+	 */
+	private record DecompiledFingerprints(String decompiledJar, Map<String, String> classes) {
+	}
+
+	/**
+	 * Decompiled output of a previous version, that is reused for unchanged classes.
+	 *
+	 * @param version Description of the previous version
+	 * @param decompiledJar Decompiled jar of the previous version
+	 * @param reusedClasses Top-level classes, that are unchanged and whose decompiled sources are present in the decompiled jar
+	 */
+	private record IncrementalSource(String version, Path decompiledJar, Set<String> reusedClasses) {
+	}
+
+	private static Path fingerprintsPath(Path jarOut) {
+		return jarOut.resolveSibling(jarOut.getFileName() + ".fingerprints.json");
+	}
+
+	/**
+	 * @return Decompiler options, that are the same for all jars
+	 */
+	static Map<String, Object> defaultOptions() {
 		// Adapted from loom-quiltflower by Juuxel
 		Map<String, Object> options = new HashMap<>();
 
@@ -89,47 +160,242 @@ public record Decompiler(GitCraftStepConfig config) implements GitCraftStepWorke
 		options.put(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING, "1");
 		options.put(IFernflowerPreferences.REMOVE_SYNTHETIC, "1");
 		options.put(IFernflowerPreferences.LOG_LEVEL, "trace");
-		options.put(IFernflowerPreferences.THREADS, Integer.toString(Library.CONF_GLOBAL.decompilingThreads()));
 
 		// Experimental QF preferences
 		options.put(IFernflowerPreferences.PATTERN_MATCHING, "1");
 		options.put(IFernflowerPreferences.TRY_LOOP_FIX, "1");
+		return options;
+	}
+
+	private List<Path> libraries(IStepContext.SimpleStepContext<OrderedVersion> context, Path librariesDir) {
+		return librariesDir != null ? context.targetVersion().libraries().stream().map(library -> library.resolve(librariesDir)).toList() : List.of();
+	}
+
+	private void decompile(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context,
+						   MinecraftJar inFile, Path jarIn, Path jarOut, Path librariesDir, String artifactKind, StorageKey outputFile) throws IOException, InterruptedException {
+		Map<String, Object> options = defaultOptions();
 		if (config.mappingFlavour().supportsComments()) {
 			// TODO: this will break for mapping flavours that support unpicking but for the client and server separately
 			options.put(IFabricJavadocProvider.PROPERTY_NAME, new TinyJavadocProvider(config.mappingFlavour().getPath(context.targetVersion(), inFile).orElseThrow().toFile()));
 		}
 
-		try (FileSystemUtil.Delegate decompiledJar = FileSystemUtil.getJarFileSystem(jarOut, true)) {
-			Iterator<Path> resultFsIt = decompiledJar.get().getRootDirectories().iterator();
-			if (!resultFsIt.hasNext()) {
-				throw new RuntimeException("Zip FileSystem does not have any root directories");
-			}
-			Path targetJarRootPath = resultFsIt.next();
-
-			Fernflower ff = new Fernflower(new FFNIODirectoryResultSaver(targetJarRootPath, null), options, new PrintStreamLogger(NULL_IS)); // System.out
-			if (librariesDir != null) {
-				for (Artifact library : context.targetVersion().libraries()) {
-					Path lib_file = library.resolve(librariesDir);
-					// TODO add library via NIO
-					ff.addLibrary(lib_file.toFile());
+		List<Path> libraries = this.libraries(context, librariesDir);
+
+		Map<String, String> fingerprints = null;
+		Map<String, Path> previousJarsOut = new LinkedHashMap<>();
+		if (Library.CONF_GLOBAL.incrementalDecompilation()) {
+			fingerprints = ClassFingerprints.create(jarIn, this.decompilationContext(context, inFile, libraries));
+			for (OrderedVersion previousVersion : context.versionGraph().getPreviousVertices(context.targetVersion())) {
+				Path previousJarOut = pipeline.getStoragePath(outputFile, context.withDifferingVersion(previousVersion), this.config);
+				if (previousJarOut != null) {
+					previousJarsOut.put(previousVersion.launcherFriendlyVersionName(), previousJarOut);
 				}
 			}
-			// TODO add source via NIO
-			ff.addSource(jarIn.toFile());
-			MiscHelper.executeTimedStep(String.format("Decompiling %s...", artifactKind), ff::decompileContext);
-			// Should release file handles, if exists
-			ff.clearContext();
+		}
 
+		decompile(jarIn, jarOut, options, libraries, fingerprints, previousJarsOut, artifactKind, resultSaver -> {
 			MiscHelper.println("Writing dependencies file...");
-			Path p = targetJarRootPath.resolve("dependencies.json");
 
 			List<Artifact.DependencyArtifact> c = Stream.concat(
 							Arrays.stream(new Artifact.DependencyArtifact[]{Artifact.DependencyArtifact.ofVirtual("Java " + context.targetVersion().javaVersion())}),
 							context.targetVersion().libraries().stream().map(Artifact.DependencyArtifact::new).sorted(Comparator.comparing(artifact -> String.join("", artifact.name().split("-")))))
 					.collect(Collectors.toList());
 
-			SerializationHelper.writeAllToPath(p, SerializationHelper.serialize(c));
+			resultSaver.addEntry("dependencies.json", SerializationHelper.serialize(c).getBytes(StandardCharsets.UTF_8));
+		});
+	}
+
+	/**
+	 * Decompiles a jar. If fingerprints are provided, the decompiled sources of unchanged classes are reused from the decompiled jar of a previous version,
+	 * and the fingerprints are written next to the decompiled jar, so that later versions can reuse its sources in turn.
+	 *
+	 * @param jarIn Jar to decompile
+	 * @param jarOut Decompiled jar
+	 * @param options Decompiler options, see {@link #defaultOptions()}
+	 * @param libraries Libraries of the jar
+	 * @param fingerprints Fingerprints of the classes of the jar, see {@link ClassFingerprints}, or null to decompile all classes
+	 * @param previousJarsOut Decompiled jars of previous versions, mapped by a description of the version
+	 * @param artifactKind Description of the jar
+	 * @param additionalEntries Adds further entries to the decompiled jar
+	 * @return Top-level classes, whose decompiled sources were reused
+	 * @throws IOException If any jar cannot be read or written
+	 * @throws InterruptedException If interrupted while waiting for decompiler threads
+	 */
+	static Set<String> decompile(Path jarIn, Path jarOut, Map<String, Object> options, List<Path> libraries, Map<String, String> fingerprints, Map<String, Path> previousJarsOut,
+								 String artifactKind, Consumer<FFZipStreamResultSaver> additionalEntries) throws IOException, InterruptedException {
+		Path fingerprintsFile = fingerprintsPath(jarOut);
+		Files.deleteIfExists(fingerprintsFile);
+
+		IncrementalSource incrementalSource = null;
+		Path sourceJar = jarIn;
+		if (fingerprints != null) {
+			incrementalSource = findIncrementalSource(previousJarsOut, fingerprints);
+			if (incrementalSource != null) {
+				MiscHelper.println("Reusing decompiled sources of %s of %s classes (%s) from %s", incrementalSource.reusedClasses().size(), fingerprints.size(), artifactKind, incrementalSource.version());
+				sourceJar = jarOut.resolveSibling(jarOut.getFileName() + ".changed-classes.jar");
+				writeChangedClasses(jarIn, sourceJar, incrementalSource.reusedClasses());
+			}
+		}
+
+		// the decompiled jar is written next to the output and only moved into place once it is complete, so that a failed decompilation leaves no truncated jar behind
+		Path partialJarOut = jarOut.resolveSibling(jarOut.getFileName() + ".partial");
+		try {
+			// larger jars get a larger share of the decompiler threads
+			long jobWeight = Files.size(sourceJar);
+			int threads = getThreadBudget().acquire(jobWeight);
+			try {
+				options.put(IFernflowerPreferences.THREADS, Integer.toString(threads));
+				FFZipStreamResultSaver resultSaver = new FFZipStreamResultSaver(partialJarOut);
+				try {
+					Fernflower ff = new Fernflower(resultSaver, options, new PrintStreamLogger(NULL_IS)); // System.out
+					for (Path lib_file : libraries) {
+						// TODO add library via NIO
+						ff.addLibrary(lib_file.toFile());
+					}
+					if (incrementalSource != null) {
+						// unchanged classes are not decompiled, but still provide context for the changed ones
+						ff.addLibrary(jarIn.toFile());
+					}
+					// TODO add source via NIO
+					ff.addSource(sourceJar.toFile());
+					MiscHelper.executeTimedStep(String.format("Decompiling %s using %s threads...", artifactKind, threads), ff::decompileContext);
+					// Should release file handles, if exists
+					ff.clearContext();
+
+					if (incrementalSource != null) {
+						copyReusedSources(incrementalSource, resultSaver);
+					}
+
+					additionalEntries.accept(resultSaver);
+				} finally {
+					resultSaver.finish();
+				}
+			} finally {
+				getThreadBudget().release(threads, jobWeight);
+			}
+			Files.move(partialJarOut, jarOut, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(partialJarOut);
+			if (sourceJar != jarIn) {
+				Files.deleteIfExists(sourceJar);
+			}
+		}
+
+		if (fingerprints != null) {
+			writeFingerprints(jarOut, fingerprints);
+		}
+		return incrementalSource != null ? incrementalSource.reusedClasses() : Set.of();
+	}
+
+	private static void writeFingerprints(Path jarOut, Map<String, String> fingerprints) throws IOException {
+		SerializationHelper.writeAllToPath(fingerprintsPath(jarOut), SerializationHelper.serialize(new DecompiledFingerprints(Library.IA_SHA1.getChecksumFileUnconditionally(jarOut), new TreeMap<>(fingerprints))));
+	}
+
+	private static DecompiledFingerprints readFingerprints(Path jarOut) throws IOException {
+		Path fingerprintsFile = fingerprintsPath(jarOut);
+		if (!Files.exists(jarOut) || !Files.exists(fingerprintsFile)) {
+			return null;
+		}
+		DecompiledFingerprints fingerprints = SerializationHelper.deserialize(SerializationHelper.fetchAllFromPath(fingerprintsFile), DecompiledFingerprints.class);
+		if (fingerprints == null || fingerprints.classes() == null || !Library.IA_SHA1.getChecksumFileUnconditionally(jarOut).equals(fingerprints.decompiledJar())) {
+			return null;
+		}
+		return fingerprints;
+	}
+
+	/**
+	 * Writes the fingerprints of a decompiled jar, unless they are present already.
+	 */
+	private void ensureFingerprints(IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar inFile, Path jarIn, Path jarOut, Path librariesDir) throws IOException {
+		if (!Files.exists(jarOut) || readFingerprints(jarOut) != null) {
+			return;
+		}
+		writeFingerprints(jarOut, ClassFingerprints.create(jarIn, this.decompilationContext(context, inFile, this.libraries(context, librariesDir))));
+	}
+
+	/**
+	 * Everything besides the classes themselves, that influences the decompiled sources of all classes.
+	 */
+	private String decompilationContext(IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar inFile, List<Path> libraries) {
+		String decompilationContext = decompilationContext(defaultOptions(), libraries);
+		if (config.mappingFlavour().supportsComments()) {
+			decompilationContext += '\u0000' + Library.IA_SHA1.getChecksumFileUnconditionally(config.mappingFlavour().getPath(context.targetVersion(), inFile).orElseThrow());
+		}
+		return decompilationContext;
+	}
+
+	/**
+	 * @param options Decompiler options
+	 * @param libraries Libraries of the jar
+	 * @return Context of the fingerprints of a jar decompiled with the provided options and libraries, see {@link ClassFingerprints#create(Path, String)}
+	 */
+	static String decompilationContext(Map<String, Object> options, List<Path> libraries) {
+		StringBuilder decompilationContext = new StringBuilder();
+		decompilationContext.append(Fernflower.class.getPackage().getImplementationVersion());
+		new TreeMap<>(options).forEach((key, value) -> {
+			if (value instanceof String) {
+				decompilationContext.append('\u0000').append(key).append('=').append(value);
+			}
+		});
+		for (Path library : libraries) {
+			decompilationContext.append('\u0000').append(Files.exists(library) ? Library.IA_SHA1.getChecksumFileUnconditionally(library) : library.getFileName().toString());
+		}
+		return decompilationContext.toString();
+	}
+
+	/**
+	 * Finds the previous version, whose decompiled output can be reused for the most classes.
+	 *
+	 * @return Decompiled output to reuse, or null if no previous version has decompiled output with matching fingerprints
+	 */
+	private static IncrementalSource findIncrementalSource(Map<String, Path> previousJarsOut, Map<String, String> fingerprints) throws IOException {
+		IncrementalSource bestSource = null;
+		for (Map.Entry<String, Path> previousJarOut : previousJarsOut.entrySet()) {
+			DecompiledFingerprints previousFingerprints = readFingerprints(previousJarOut.getValue());
+			if (previousFingerprints == null) {
+				continue;
+			}
+			Set<String> reusedClasses = new HashSet<>();
+			try (ZipFile previousZipFile = new ZipFile(previousJarOut.getValue().toFile())) {
+				for (Map.Entry<String, String> fingerprint : fingerprints.entrySet()) {
+					if (fingerprint.getValue().equals(previousFingerprints.classes().get(fingerprint.getKey())) && previousZipFile.getEntry(ClassFingerprints.sourceFileName(fingerprint.getKey())) != null) {
+						reusedClasses.add(fingerprint.getKey());
+					}
+				}
+			}
+			if (!reusedClasses.isEmpty() && (bestSource == null || reusedClasses.size() > bestSource.reusedClasses().size())) {
+				bestSource = new IncrementalSource(previousJarOut.getKey(), previousJarOut.getValue(), reusedClasses);
+			}
+		}
+		return bestSource;
+	}
+
+	private static void writeChangedClasses(Path jarIn, Path target, Set<String> reusedClasses) throws IOException {
+		try (ZipFile zipFile = new ZipFile(jarIn.toFile()); ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(target))) {
+			for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements(); ) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.getName().endsWith(".class") && reusedClasses.contains(ClassFingerprints.topLevelName(entry.getName().substring(0, entry.getName().length() - ".class".length())))) {
+					continue;
+				}
+				outputStream.putNextEntry(new ZipEntry(entry.getName()));
+				if (!entry.isDirectory()) {
+					try (InputStream inputStream = zipFile.getInputStream(entry)) {
+						inputStream.transferTo(outputStream);
+					}
+				}
+				outputStream.closeEntry();
+			}
+		}
+	}
+
+	private static void copyReusedSources(IncrementalSource incrementalSource, FFZipStreamResultSaver resultSaver) throws IOException {
+		try (ZipFile previousZipFile = new ZipFile(incrementalSource.decompiledJar().toFile())) {
+			for (String reusedClass : incrementalSource.reusedClasses()) {
+				String sourceFileName = ClassFingerprints.sourceFileName(reusedClass);
+				try (InputStream inputStream = previousZipFile.getInputStream(previousZipFile.getEntry(sourceFileName))) {
+					resultSaver.addEntry(sourceFileName, inputStream.readAllBytes());
+				}
+			}
 		}
-		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
 	}
 }
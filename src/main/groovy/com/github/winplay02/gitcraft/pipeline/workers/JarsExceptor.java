@@ -1,6 +1,5 @@
 package com.github.winplay02.gitcraft.pipeline.workers;
 
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -16,7 +15,6 @@ import com.github.winplay02.gitcraft.pipeline.GitCraftStepWorker;
 import com.github.winplay02.gitcraft.pipeline.key.MinecraftJar;
 import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
-import com.github.winplay02.gitcraft.util.MiscHelper;
 import net.ornithemc.exceptor.Exceptor;
 
 public record JarsExceptor(GitCraftStepConfig config) implements GitCraftStepWorker<GitCraftStepWorker.JarTupleInput> {
@@ -44,7 +42,7 @@ public record JarsExceptor(GitCraftStepConfig config) implements GitCraftStepWor
 	}
 
 	private StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> patchJar(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
-												IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar inFile, StorageKey inputFile, StorageKey outputFile) throws IOException {
+												IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar inFile, StorageKey inputFile, StorageKey outputFile) throws Exception {
 		if (!config.exceptionsFlavour().canBeUsedOn(context.targetVersion(), inFile)) {
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
@@ -53,12 +51,10 @@ public record JarsExceptor(GitCraftStepConfig config) implements GitCraftStepWor
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
-			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
-		}
-		Files.deleteIfExists(jarOut);
-		Files.copy(jarIn, jarOut);
-		Exceptor.apply(jarOut, config.exceptionsFlavour().getExceptions(context.targetVersion(), inFile));
-		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
+		StepStatus status = this.produceContentAddressed(pipeline, jarOut, () -> {
+			Files.copy(jarIn, jarOut);
+			Exceptor.apply(jarOut, config.exceptionsFlavour().getExceptions(context.targetVersion(), inFile));
+		}, jarIn, config.exceptionsFlavour().getPath(context.targetVersion(), inFile).orElse(null));
+		return StepOutput.ofSingle(status, outputFile);
 	}
 }
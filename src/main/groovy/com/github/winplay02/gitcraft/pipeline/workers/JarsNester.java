@@ -1,6 +1,5 @@
 package com.github.winplay02.gitcraft.pipeline.workers;
 
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -16,7 +15,6 @@ import com.github.winplay02.gitcraft.pipeline.GitCraftStepWorker;
 import com.github.winplay02.gitcraft.pipeline.key.MinecraftJar;
 import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
-import com.github.winplay02.gitcraft.util.MiscHelper;
 import net.ornithemc.nester.Nester;
 
 public record JarsNester(GitCraftStepConfig config) implements GitCraftStepWorker<GitCraftStepWorker.JarTupleInput> {
@@ -44,7 +42,7 @@ public record JarsNester(GitCraftStepConfig config) implements GitCraftStepWorke
 	}
 
 	private StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> nestJar(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
-											   IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar inFile, StorageKey inputFile, StorageKey outputFile) throws IOException {
+											   IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar inFile, StorageKey inputFile, StorageKey outputFile) throws Exception {
 		if (!config.nestsFlavour().canBeUsedOn(context.targetVersion(), inFile, config.mappingFlavour())) {
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
@@ -53,11 +51,9 @@ public record JarsNester(GitCraftStepConfig config) implements GitCraftStepWorke
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
-			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
-		}
-		Files.deleteIfExists(jarOut);
-		Nester.nestJar(jarIn, jarOut, config.nestsFlavour().getNests(context.targetVersion(), inFile, config.mappingFlavour()));
-		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
+		StepStatus status = this.produceContentAddressed(pipeline, jarOut, () -> {
+			Nester.nestJar(jarIn, jarOut, config.nestsFlavour().getNests(context.targetVersion(), inFile, config.mappingFlavour()));
+		}, jarIn, config.nestsFlavour().getPath(context.targetVersion(), inFile, config.mappingFlavour()).orElse(null));
+		return StepOutput.ofSingle(status, outputFile);
 	}
 }
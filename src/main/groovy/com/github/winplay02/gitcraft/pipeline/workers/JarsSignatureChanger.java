@@ -1,6 +1,5 @@
 package com.github.winplay02.gitcraft.pipeline.workers;
 
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
@@ -17,7 +16,6 @@ import com.github.winplay02.gitcraft.pipeline.key.MinecraftJar;
 import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
 import com.github.winplay02.gitcraft.signatures.SignaturesFlavour;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
-import com.github.winplay02.gitcraft.util.MiscHelper;
 import io.github.gaming32.signaturechanger.cli.ApplyAction;
 
 public record JarsSignatureChanger(GitCraftStepConfig config) implements GitCraftStepWorker<GitCraftStepWorker.JarTupleInput> {
@@ -45,7 +43,7 @@ public record JarsSignatureChanger(GitCraftStepConfig config) implements GitCraf
 	}
 
 	private StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> patchJar(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
-																													IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar inFile, StorageKey inputFile, StorageKey outputFile) throws IOException {
+																													IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar inFile, StorageKey inputFile, StorageKey outputFile) throws Exception {
 		if (!config.signaturesFlavour().canBeUsedOn(context.targetVersion(), inFile)) {
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
@@ -54,12 +52,10 @@ public record JarsSignatureChanger(GitCraftStepConfig config) implements GitCraf
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
-			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
-		}
-		Files.deleteIfExists(jarOut);
-		Files.copy(jarIn, jarOut);
-		ApplyAction.run(config.signaturesFlavour().getSignatures(context.targetVersion(), inFile), List.of(jarOut));
-		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
+		StepStatus status = this.produceContentAddressed(pipeline, jarOut, () -> {
+			Files.copy(jarIn, jarOut);
+			ApplyAction.run(config.signaturesFlavour().getSignatures(context.targetVersion(), inFile), List.of(jarOut));
+		}, jarIn, config.signaturesFlavour().getPath(context.targetVersion(), inFile).orElse(null));
+		return StepOutput.ofSingle(status, outputFile);
 	}
 }
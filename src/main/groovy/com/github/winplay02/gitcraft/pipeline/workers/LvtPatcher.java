@@ -1,6 +1,5 @@
 package com.github.winplay02.gitcraft.pipeline.workers;
 
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
@@ -15,7 +14,6 @@ import com.github.winplay02.gitcraft.pipeline.StepStatus;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepWorker;
 import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
-import com.github.winplay02.gitcraft.util.MiscHelper;
 import net.ornithemc.condor.Condor;
 import net.ornithemc.condor.Options;
 
@@ -49,20 +47,18 @@ public record LvtPatcher(GitCraftStepConfig config) implements GitCraftStepWorke
 	}
 
 	private StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> patchLocalVariableTables(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
-																																	IStepContext.SimpleStepContext<OrderedVersion> context, StorageKey inputFile, StorageKey outputFile, List<Path> libraries) throws IOException {
+																																	IStepContext.SimpleStepContext<OrderedVersion> context, StorageKey inputFile, StorageKey outputFile, List<Path> libraries) throws Exception {
 		Path jarIn = pipeline.getStoragePath(inputFile, context, this.config);
 		if (jarIn == null) {
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
-			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
-		}
-		Files.deleteIfExists(jarOut);
-		Files.copy(jarIn, jarOut);
-		// this step is applied before remapping, so obfuscate variable names
-		// that way Tiny Remapper will take care of fixing them
-		Condor.run(jarOut, libraries, Options.builder().removeInvalidEntries().obfuscateNames().build());
-		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
+		StepStatus status = this.produceContentAddressed(pipeline, jarOut, () -> {
+			Files.copy(jarIn, jarOut);
+			// this step is applied before remapping, so obfuscate variable names
+			// that way Tiny Remapper will take care of fixing them
+			Condor.run(jarOut, libraries, Options.builder().removeInvalidEntries().obfuscateNames().build());
+		}, jarIn);
+		return StepOutput.ofSingle(status, outputFile);
 	}
 }
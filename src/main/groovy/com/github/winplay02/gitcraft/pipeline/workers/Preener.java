@@ -1,6 +1,5 @@
 package com.github.winplay02.gitcraft.pipeline.workers;
 
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -14,7 +13,6 @@ import com.github.winplay02.gitcraft.pipeline.StepStatus;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepWorker;
 import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
-import com.github.winplay02.gitcraft.util.MiscHelper;
 import net.ornithemc.preen.Preen;
 
 public record Preener(GitCraftStepConfig config) implements GitCraftStepWorker<GitCraftStepWorker.JarTupleInput> {
@@ -42,18 +40,16 @@ public record Preener(GitCraftStepConfig config) implements GitCraftStepWorker<G
 	}
 
 	private StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> preenJar(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
-																													IStepContext.SimpleStepContext<OrderedVersion> context, StorageKey inputFile, StorageKey outputFile) throws IOException {
+																													IStepContext.SimpleStepContext<OrderedVersion> context, StorageKey inputFile, StorageKey outputFile) throws Exception {
 		Path jarIn = pipeline.getStoragePath(inputFile, context, this.config);
 		if (jarIn == null) {
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
-			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
-		}
-		Files.deleteIfExists(jarOut);
-		Files.copy(jarIn, jarOut);
-		Preen.splitMergedBridgeMethods(jarOut);
-		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
+		StepStatus status = this.produceContentAddressed(pipeline, jarOut, () -> {
+			Files.copy(jarIn, jarOut);
+			Preen.splitMergedBridgeMethods(jarOut);
+		}, jarIn);
+		return StepOutput.ofSingle(status, outputFile);
 	}
 }
@@ -1,6 +1,5 @@
 package com.github.winplay02.gitcraft.pipeline.workers;
 
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -16,12 +15,19 @@ import com.github.winplay02.gitcraft.pipeline.StepStatus;
 import com.github.winplay02.gitcraft.pipeline.GitCraftStepWorker;
 import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
 import com.github.winplay02.gitcraft.types.OrderedVersion;
-import com.github.winplay02.gitcraft.util.MiscHelper;
 import net.fabricmc.tinyremapper.IMappingProvider;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
 public record Remapper(GitCraftStepConfig config) implements GitCraftStepWorker<GitCraftStepWorker.JarTupleInput> {
 
+	// tiny-remapper keeps all classes of the input and its class path in memory
+	private static final long HEAP_BYTES_PER_JAR_BYTE = 8L;
+
+	@Override
+	public long estimateHeapCost(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, GitCraftStepWorker.JarTupleInput input) {
+		return this.estimateJarTupleHeapCost(pipeline, context, input, HEAP_BYTES_PER_JAR_BYTE);
+	}
+
 	@Override
 	public StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> run(
 		IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
@@ -40,7 +46,7 @@ public record Remapper(GitCraftStepConfig config) implements GitCraftStepWorker<
 	}
 
 	private StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> remapJar(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
-																													IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar type, StorageKey inputFile, StorageKey outputFile) throws IOException {
+																													IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar type, StorageKey inputFile, StorageKey outputFile) throws Exception {
 		if (inputFile == null) {
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
@@ -49,15 +55,11 @@ public record Remapper(GitCraftStepConfig config) implements GitCraftStepWorker<
 		}
 		Path jarIn = pipeline.getStoragePath(inputFile, context, this.config);
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
-			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
-		}
-		if (Files.exists(jarOut)) {
-			Files.delete(jarOut);
-		}
-		IMappingProvider mappingProvider = config.mappingFlavour().getProvider(context.targetVersion(), type);
-		TinyRemapper remapper = MappingUtils.createTinyRemapper(mappingProvider);
-		MappingUtils.remapJar(remapper, jarIn, jarOut);
-		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
+		StepStatus status = this.produceContentAddressed(pipeline, jarOut, () -> {
+			IMappingProvider mappingProvider = config.mappingFlavour().getProvider(context.targetVersion(), type);
+			TinyRemapper remapper = MappingUtils.createTinyRemapper(mappingProvider);
+			MappingUtils.remapJar(remapper, jarIn, jarOut);
+		}, jarIn, config.mappingFlavour().getPath(context.targetVersion(), type).orElse(null));
+		return StepOutput.ofSingle(status, outputFile);
 	}
 }
@@ -2,20 +2,33 @@ package com.github.winplay02.gitcraft.pipeline.workers;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.io.Reader;
+import java.io.StringReader;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import com.github.winplay02.gitcraft.Library;
 import com.github.winplay02.gitcraft.LibraryPaths;
@@ -37,6 +50,7 @@ import com.github.winplay02.gitcraft.unpick.UnpickDescriptionFile;
 import com.github.winplay02.gitcraft.unpick.UnpickFlavour;
 import com.github.winplay02.gitcraft.util.MiscHelper;
 import com.github.winplay02.gitcraft.util.SerializationHelper;
+import com.github.winplay02.gitcraft.util.SharedLibraryIndex;
 import daomephsta.unpick.api.ConstantUninliner;
 import daomephsta.unpick.api.classresolvers.ClassResolvers;
 import daomephsta.unpick.api.classresolvers.IClassResolver;
@@ -60,6 +74,22 @@ import org.objectweb.asm.tree.ClassNode;
 
 public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<GitCraftStepWorker.JarTupleInput> {
 
+	// shared class resolvers of the input and remapping of the definitions
+	private static final long HEAP_BYTES_PER_JAR_BYTE = 2L;
+	// every thread parses the definitions into its own grouper, with its own resolvers caching the classes it has seen
+	private static final long HEAP_BYTES_PER_JAR_BYTE_PER_THREAD = 4L;
+	// entries, that are read but not yet written, per thread
+	private static final int MAX_PENDING_ENTRIES_PER_THREAD = 4;
+
+	@Override
+	public long estimateHeapCost(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context, GitCraftStepWorker.JarTupleInput input) {
+		return this.estimateJarTupleHeapCost(pipeline, context, input, HEAP_BYTES_PER_JAR_BYTE + HEAP_BYTES_PER_JAR_BYTE_PER_THREAD * unpickThreads());
+	}
+
+	private static int unpickThreads() {
+		return Math.max(1, Library.CONF_GLOBAL.remappingThreads());
+	}
+
 	@Override
 	public boolean shouldExecute(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline, IStepContext.SimpleStepContext<OrderedVersion> context) {
 		return this.config().unpickFlavour() != UnpickFlavour.NONE; // optimization
@@ -82,7 +112,7 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 	}
 
 	private StepOutput<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> unpickJar(IPipeline<OrderedVersion, IStepContext.SimpleStepContext<OrderedVersion>, GitCraftStepConfig> pipeline,
-																													 IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar type, StorageKey inputFile, StorageKey outputFile) throws IOException, URISyntaxException, InterruptedException {
+																													 IStepContext.SimpleStepContext<OrderedVersion> context, MinecraftJar type, StorageKey inputFile, StorageKey outputFile) throws Exception {
 		if (inputFile == null) {
 			return StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
 		}
@@ -95,15 +125,11 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 		}
 		Path jarIn = pipeline.getStoragePath(inputFile, context, this.config);
 		Path jarOut = pipeline.getStoragePath(outputFile, context, this.config);
-		if (Files.exists(jarOut) && !MiscHelper.isJarEmpty(jarOut)) {
-			return StepOutput.ofSingle(StepStatus.UP_TO_DATE, outputFile);
-		}
-		Files.deleteIfExists(jarOut);
 		Path librariesDir = pipeline.getStoragePath(GitCraftPipelineFilesystemStorage.LIBRARIES, context, this.config);
 		if (librariesDir == null) {
 			return StepOutput.ofEmptyResultSet(StepStatus.FAILED);
 		}
-		unpickSingleJar(
+		StepStatus status = this.produceContentAddressed(pipeline, jarOut, () -> unpickSingleJar(
 			context,
 			config.mappingFlavour(),
 			config.unpickFlavour(),
@@ -114,8 +140,8 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 			unpickContext.unpickConstants(),
 			context.targetVersion().libraries().stream().map(artifact -> artifact.resolve(librariesDir)).toList(),
 			getUnpickDescriptionFile(unpickContext)
-		);
-		return StepOutput.ofSingle(StepStatus.SUCCESS, outputFile);
+		), jarIn, unpickContext.unpickDefinitions(), unpickContext.unpickConstants(), unpickContext.unpickDescription());
+		return StepOutput.ofSingle(status, outputFile);
 	}
 
 	private static final UnpickDescriptionFile DEFAULT_LEGACY_UNPICK_DESCRIPTION = new UnpickDescriptionFile(1, MappingsNamespace.NAMED.toString());
@@ -148,22 +174,6 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 		}
 	}
 
-	private static FileSystemUtil.Delegate openReadNoExcept(Path zipPath) {
-		try {
-			return FileSystemUtil.getJarFileSystem(zipPath);
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
-	}
-
-	private static void closeNoExcept(FileSystemUtil.Delegate zipFs) {
-		try {
-			zipFs.close();
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
-	}
-
 	private static Consumer<UnpickV3Visitor> createUnpickV3VisitorRemapper(UnpickV3Reader unpickReader, TinyRemapper tinyRemapper, JarPackageIndex jarPackageIndex) {
 		return targetVisitor -> {
 			UnpickV3Remapper remapper = construct_net_fabricmc_loom_task_service_UnpickRemapperService$UnpickRemapper(
@@ -179,8 +189,46 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 		};
 	}
 
+	private static JarPackageIndex mergePackageIndices(List<JarPackageIndex> packageIndices) {
+		Map<String, List<String>> packages = new HashMap<>();
+		for (JarPackageIndex packageIndex : packageIndices) {
+			packageIndex.packages().forEach((className, classPackages) -> packages.computeIfAbsent(className, $ -> new ArrayList<>()).addAll(classPackages));
+		}
+		return new JarPackageIndex(packages);
+	}
+
+	private static byte[] unpickClass(ConstantUninliner unInliner, String name, byte[] content) {
+		ClassReader classReader = new ClassReader(content);
+		ClassNode classNode = new ClassNode();
+		classReader.accept(classNode, 0);
+
+		try {
+			unInliner.transform(classNode);
+		} catch (Exception e) {
+			MiscHelper.println("Only partially transformed class: %s; An exception occurred while unpicking: %s", name, e);
+		}
+
+		ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		classNode.accept(classWriter);
+		return classWriter.toByteArray();
+	}
+
+	private record PendingEntry(String name, Future<byte[]> content) {
+	}
+
+	private static void writeEntry(ZipOutputStream outputZip, PendingEntry entry) throws IOException, InterruptedException {
+		byte[] content;
+		try {
+			content = entry.content().get();
+		} catch (ExecutionException e) {
+			throw new IOException(String.format("Could not unpick %s", entry.name()), e.getCause());
+		}
+		outputZip.putNextEntry(new ZipEntry(entry.name()));
+		outputZip.write(content);
+		outputZip.closeEntry();
+	}
+
 	private static void unpickSingleJar(IStepContext.SimpleStepContext<OrderedVersion> context, MappingFlavour mappingFlavour, UnpickFlavour unpickFlavour, MinecraftJar type, Path inputJar, Path outputJar, Path unpickDefinition, Path unpickConstants, Collection<Path> libraries, UnpickDescriptionFile unpickDescription) throws IOException, URISyntaxException, InterruptedException {
-		List<FileSystemUtil.Delegate> openedLibraries = libraries.stream().map(Unpicker::openReadNoExcept).toList();
 		List<Path> jarsClasspath = new ArrayList<>(libraries);
 		final FileSystemUtil.Delegate unpickConstantsPath;
 		if (unpickConstants != null) {
@@ -189,11 +237,13 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 		} else {
 			unpickConstantsPath = null;
 		}
+		// every worker gets its own uninliner (and resolvers), which each parse the definitions
+		String unpickDefinitions = Files.readString(unpickDefinition);
+		int unpickThreads = unpickThreads();
 		try (
 			FileSystemUtil.Delegate inputPath = FileSystemUtil.getJarFileSystem(inputJar);
 			unpickConstantsPath;
-			Reader unpickDefinitionReader = Files.newBufferedReader(unpickDefinition);
-			FileSystemUtil.Delegate outputPath = FileSystemUtil.getJarFileSystem(outputJar, true);
+			SharedLibraryIndex.Handles openedLibraries = SharedLibraryIndex.acquireAll(libraries);
 		) {
 			IClassResolver inputClassResolver = ClassResolvers.fromDirectory(inputPath.getRoot());
 			jarsClasspath.add(inputJar);
@@ -202,7 +252,7 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 
 			IClassResolver chainedInputClassResolver = ClassResolvers.classpath(ClassLoader.getPlatformClassLoader())
 				.chain(
-					openedLibraries.stream().map(library -> ClassResolvers.fromDirectory(library.getRoot())).toArray(IClassResolver[]::new)
+					openedLibraries.handles().stream().map(library -> library.attachment("unpick-class-resolver", ClassResolvers::fromDirectory)).toArray(IClassResolver[]::new)
 				);
 
 			if (unpickConstantsClassResolver != null) {
@@ -214,15 +264,11 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 				chainedInputClassResolver = chainedInputClassResolver.chain(inputClassResolver);
 			}
 
-			IConstantResolver unpickConstantResolver = chainedInputClassResolver.asConstantResolver();
-			IInheritanceChecker unpickInheritanceChecker = chainedInputClassResolver.asInheritanceChecker();
-			IMemberChecker unpickMemberChecker = chainedInputClassResolver.asMemberChecker();
-			final ConstantUninliner unInliner;
+			final List<ConstantUninliner> unInliners = new ArrayList<>(unpickThreads);
 			// Remap Unpick
 			MappingFlavour applicableMappingFlavour = unpickFlavour.applicableMappingFlavour(unpickDescription);
 			if (applicableMappingFlavour != mappingFlavour) {
 				if (unpickFlavour.supportsRemapping(unpickDescription)) {
-					UnpickV3Reader unpickReader = new UnpickV3Reader(unpickDefinitionReader);
 					VisitableMappingTree applicableUnpickMappingToConfiguredMapping = MappingUtils.fuse(
 						MappingUtils.renameNamespace(
 							MappingUtils.invert(
@@ -259,9 +305,19 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 						remapper.readInputs(tmpFileRemapped.filePath());
 						remapper.readInputs(libraries.toArray(Path[]::new));
 						// Create unpick stuff
-						Consumer<UnpickV3Visitor> unpickVisitorConsumer = createUnpickV3VisitorRemapper(unpickReader, remapper, JarPackageIndex.create(jarsClasspath));
-						DataDrivenConstantGrouper constantGrouper = (DataDrivenConstantGrouper) ConstantGroupers.dataDriven().lenient(true).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).memberChecker(unpickMemberChecker).mappingSource(unpickVisitorConsumer).build();
-						unInliner = ConstantUninliner.builder().logger(Library.getSubLogger("GitCraft/Unpicker", Level.ALL)).classResolver(chainedInputClassResolver).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).grouper(constantGrouper).build();
+						// package indices of libraries are shared between jars and versions, only the remaining classpath is indexed for every jar
+						JarPackageIndex jarPackageIndex = mergePackageIndices(Stream.concat(
+							openedLibraries.handles().stream().map(library -> library.attachment("unpick-package-index", $ -> JarPackageIndex.create(List.of(library.jar())))),
+							Stream.of(JarPackageIndex.create(jarsClasspath.subList(libraries.size(), jarsClasspath.size())))
+						).toList());
+						for (int i = 0; i < unpickThreads; ++i) {
+							IConstantResolver unpickConstantResolver = chainedInputClassResolver.asConstantResolver();
+							IInheritanceChecker unpickInheritanceChecker = chainedInputClassResolver.asInheritanceChecker();
+							IMemberChecker unpickMemberChecker = chainedInputClassResolver.asMemberChecker();
+							Consumer<UnpickV3Visitor> unpickVisitorConsumer = createUnpickV3VisitorRemapper(new UnpickV3Reader(new StringReader(unpickDefinitions)), remapper, jarPackageIndex);
+							DataDrivenConstantGrouper constantGrouper = (DataDrivenConstantGrouper) ConstantGroupers.dataDriven().lenient(true).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).memberChecker(unpickMemberChecker).mappingSource(unpickVisitorConsumer).build();
+							unInliners.add(ConstantUninliner.builder().logger(Library.getSubLogger("GitCraft/Unpicker", Level.ALL)).classResolver(chainedInputClassResolver).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).grouper(constantGrouper).build());
+						}
 						remapper.finish();
 					}
 				} else {
@@ -323,42 +379,50 @@ public record Unpicker(GitCraftStepConfig config) implements GitCraftStepWorker<
 					}
 				}
 			} else {
-				DataDrivenConstantGrouper constantGrouper = (DataDrivenConstantGrouper) ConstantGroupers.dataDriven().lenient(true).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).memberChecker(unpickMemberChecker).mappingSource(unpickDefinitionReader).build();
-				unInliner = ConstantUninliner.builder().logger(Library.getSubLogger("GitCraft/Unpicker", Level.ALL)).classResolver(chainedInputClassResolver).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).grouper(constantGrouper).build();
+				for (int i = 0; i < unpickThreads; ++i) {
+					IConstantResolver unpickConstantResolver = chainedInputClassResolver.asConstantResolver();
+					IInheritanceChecker unpickInheritanceChecker = chainedInputClassResolver.asInheritanceChecker();
+					IMemberChecker unpickMemberChecker = chainedInputClassResolver.asMemberChecker();
+					DataDrivenConstantGrouper constantGrouper = (DataDrivenConstantGrouper) ConstantGroupers.dataDriven().lenient(true).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).memberChecker(unpickMemberChecker).mappingSource(new StringReader(unpickDefinitions)).build();
+					unInliners.add(ConstantUninliner.builder().logger(Library.getSubLogger("GitCraft/Unpicker", Level.ALL)).classResolver(chainedInputClassResolver).constantResolver(unpickConstantResolver).inheritanceChecker(unpickInheritanceChecker).grouper(constantGrouper).build());
+				}
 			}
 
-			try (Stream<Path> walk = Files.walk(inputPath.getRoot())) {
-				for (Path path : (Iterable<? extends Path>) walk::iterator) {
-					if (!Files.isRegularFile(path)) {
+			// Entries are read one after another, classes are transformed in parallel, and the output is written in the original order.
+			// Only a bounded number of entries is pending at any time, so the input is never held in memory completely.
+			BlockingQueue<ConstantUninliner> idleUnInliners = new ArrayBlockingQueue<>(unInliners.size(), false, unInliners);
+			Deque<PendingEntry> pendingEntries = new ArrayDeque<>();
+			int maxPendingEntries = unInliners.size() * MAX_PENDING_ENTRIES_PER_THREAD;
+			try (
+				ZipFile inputZip = new ZipFile(inputJar.toFile());
+				ZipOutputStream outputZip = new ZipOutputStream(Files.newOutputStream(outputJar));
+				ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Unpicker").factory())
+			) {
+				for (Enumeration<? extends ZipEntry> entries = inputZip.entries(); entries.hasMoreElements(); ) {
+					ZipEntry entry = entries.nextElement();
+					if (entry.isDirectory()) {
 						continue;
 					}
-					Path resultPath = outputPath.getRoot().resolve(inputPath.getRoot().relativize(path).toString());
-					Files.createDirectories(resultPath.getParent());
-					if (!path.toString().endsWith(".class")) {
-						Files.copy(path, resultPath);
-						continue;
+					byte[] content;
+					try (InputStream inputStream = inputZip.getInputStream(entry)) {
+						content = inputStream.readAllBytes();
 					}
-					try (
-						InputStream classInputStream = Files.newInputStream(path);
-						OutputStream classOutputStream = Files.newOutputStream(resultPath)
-					) {
-						ClassReader classReader = new ClassReader(classInputStream);
-						ClassNode classNode = new ClassNode();
-						classReader.accept(classNode, 0);
-
+					Future<byte[]> result = entry.getName().endsWith(".class") ? executor.submit(() -> {
+						ConstantUninliner unInliner = idleUnInliners.take();
 						try {
-							unInliner.transform(classNode);
-						} catch (Exception e) {
-							MiscHelper.println("Only partially transformed class: %s; An exception occurred while unpicking: %s", inputPath.getRoot().relativize(path).toString(), e);
+							return unpickClass(unInliner, entry.getName(), content);
+						} finally {
+							idleUnInliners.put(unInliner);
 						}
-
-						ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-						classNode.accept(classWriter);
-						classOutputStream.write(classWriter.toByteArray());
+					}) : CompletableFuture.completedFuture(content);
+					pendingEntries.add(new PendingEntry(entry.getName(), result));
+					while (pendingEntries.size() >= maxPendingEntries) {
+						writeEntry(outputZip, pendingEntries.poll());
 					}
 				}
-			} finally {
-				openedLibraries.forEach(Unpicker::closeNoExcept);
+				while (!pendingEntries.isEmpty()) {
+					writeEntry(outputZip, pendingEntries.poll());
+				}
 			}
 		}
 	}
@@ -0,0 +1,208 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.Remapper;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Fingerprints of the top-level classes of a jar, as relevant for decompiling them.
+ * The fingerprint of a top-level class covers its own bytecode and the bytecode of its inner classes,
+ * the API (non-private members) of all classes of the same jar it references (in constants, descriptors, signatures or code) and of their supertypes (transitively),
+ * the names of all top-level classes in its package (which decide, whether imported names need to be qualified),
+ * and a context shared by all classes (e.g. libraries and decompiler options).
+ * Classes with the same fingerprint decompile to the same source, so their decompiled source can be reused across versions.
+ */
+public final class ClassFingerprints {
+	// bump, if the way fingerprints are computed changes
+	private static final String FORMAT = "3";
+
+	private ClassFingerprints() {}
+
+	private static final class TopLevelClass {
+		private final Map<String, String> classHashes = new TreeMap<>();
+		private final Map<String, String> apiHashes = new TreeMap<>();
+		private final TreeSet<String> references = new TreeSet<>();
+		private final TreeSet<String> supertypes = new TreeSet<>();
+	}
+
+	/**
+	 * Creates the fingerprints of all top-level classes of a jar.
+	 *
+	 * @param jar Jar
+	 * @param context Context shared by all classes of the jar, any change of the context changes all fingerprints
+	 * @return Fingerprints, mapped by the internal names of the top-level classes
+	 * @throws IOException If the jar cannot be read
+	 */
+	public static Map<String, String> create(Path jar, String context) throws IOException {
+		Map<String, TopLevelClass> topLevelClasses = new HashMap<>();
+		try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+			for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements(); ) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+					continue;
+				}
+				byte[] bytes;
+				try (InputStream inputStream = zipFile.getInputStream(entry)) {
+					bytes = inputStream.readAllBytes();
+				}
+				String className = entry.getName().substring(0, entry.getName().length() - ".class".length());
+				TopLevelClass topLevelClass = topLevelClasses.computeIfAbsent(topLevelName(className), $ -> new TopLevelClass());
+				ClassReader classReader = new ClassReader(bytes);
+				topLevelClass.classHashes.put(className, sha1(bytes));
+				topLevelClass.apiHashes.put(className, apiHash(classReader));
+				collectReferences(classReader, topLevelClass.references);
+				if (classReader.getSuperName() != null) {
+					topLevelClass.supertypes.add(topLevelName(classReader.getSuperName()));
+				}
+				for (String interfaceName : classReader.getInterfaces()) {
+					topLevelClass.supertypes.add(topLevelName(interfaceName));
+				}
+			}
+		}
+		Map<String, String> topLevelApiHashes = new HashMap<>();
+		Map<String, TreeSet<String>> packageClasses = new HashMap<>();
+		for (Map.Entry<String, TopLevelClass> topLevelClass : topLevelClasses.entrySet()) {
+			topLevelApiHashes.put(topLevelClass.getKey(), sha1(topLevelClass.getValue().apiHashes.toString().getBytes(StandardCharsets.UTF_8)));
+			packageClasses.computeIfAbsent(packageName(topLevelClass.getKey()), $ -> new TreeSet<>()).add(topLevelClass.getKey());
+		}
+		Map<String, Set<String>> supertypeClosures = new HashMap<>();
+		Map<String, String> fingerprints = new HashMap<>();
+		for (Map.Entry<String, TopLevelClass> topLevelClass : topLevelClasses.entrySet()) {
+			StringBuilder fingerprintMaterial = new StringBuilder();
+			fingerprintMaterial.append(FORMAT).append('\u0000').append(context).append('\u0000').append(topLevelClass.getValue().classHashes);
+			fingerprintMaterial.append('\u0000').append(packageClasses.get(packageName(topLevelClass.getKey())));
+			// members inherited from supertypes of referenced classes (or of the class itself) are as relevant as the members of the referenced classes
+			TreeSet<String> apiReferences = new TreeSet<>(topLevelClass.getValue().references);
+			apiReferences.add(topLevelClass.getKey());
+			for (String reference : List.copyOf(apiReferences)) {
+				apiReferences.addAll(supertypeClosures.computeIfAbsent(reference, name -> supertypeClosure(topLevelClasses, name)));
+			}
+			for (String reference : apiReferences) {
+				// references outside of this jar are covered by the context
+				String referenceApiHash = topLevelApiHashes.get(reference);
+				if (referenceApiHash != null && !reference.equals(topLevelClass.getKey())) {
+					fingerprintMaterial.append('\u0000').append(reference).append('=').append(referenceApiHash);
+				}
+			}
+			fingerprints.put(topLevelClass.getKey(), sha1(fingerprintMaterial.toString().getBytes(StandardCharsets.UTF_8)));
+		}
+		return fingerprints;
+	}
+
+	private static Set<String> supertypeClosure(Map<String, TopLevelClass> topLevelClasses, String topLevelName) {
+		Set<String> closure = new HashSet<>();
+		Deque<String> queue = new ArrayDeque<>();
+		queue.add(topLevelName);
+		while (!queue.isEmpty()) {
+			TopLevelClass topLevelClass = topLevelClasses.get(queue.poll());
+			// supertypes outside of this jar are covered by the context
+			if (topLevelClass == null) {
+				continue;
+			}
+			for (String supertype : topLevelClass.supertypes) {
+				if (closure.add(supertype)) {
+					queue.add(supertype);
+				}
+			}
+		}
+		return closure;
+	}
+
+	/**
+	 * @param internalName Internal name of a class
+	 * @return Internal name of the top-level class, the provided class is (or is nested in)
+	 */
+	public static String topLevelName(String internalName) {
+		int simpleNameStart = internalName.lastIndexOf('/') + 1;
+		int innerSeparator = internalName.indexOf('$', simpleNameStart + 1);
+		return innerSeparator < 0 ? internalName : internalName.substring(0, innerSeparator);
+	}
+
+	private static String packageName(String internalName) {
+		int packageEnd = internalName.lastIndexOf('/');
+		return packageEnd < 0 ? "" : internalName.substring(0, packageEnd);
+	}
+
+	/**
+	 * @param topLevelName Internal name of a top-level class
+	 * @return Path of the decompiled source of the class inside a decompiled jar
+	 */
+	public static String sourceFileName(String topLevelName) {
+		return topLevelName + ".java";
+	}
+
+	private static void collectReferences(ClassReader classReader, TreeSet<String> references) {
+		// the remapper is asked for every class name used by the class, including descriptors, signatures and code
+		Remapper referenceCollector = new Remapper() {
+			@Override
+			public String map(String internalName) {
+				references.add(topLevelName(internalName));
+				return internalName;
+			}
+		};
+		classReader.accept(new ClassRemapper(new ClassNode(), referenceCollector), 0);
+	}
+
+	private static String apiHash(ClassReader classReader) {
+		List<String> header = new ArrayList<>();
+		TreeSet<String> members = new TreeSet<>();
+		classReader.accept(new ClassVisitor(Opcodes.ASM9) {
+			@Override
+			public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+				header.add(String.format("%s %s %s %s %s", access, name, signature, superName, interfaces == null ? "" : String.join(",", interfaces)));
+			}
+
+			@Override
+			public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+				if ((access & Opcodes.ACC_PRIVATE) == 0) {
+					members.add(String.format("F %s %s %s %s %s", access, name, descriptor, signature, value));
+				}
+				return null;
+			}
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+				if ((access & Opcodes.ACC_PRIVATE) == 0) {
+					members.add(String.format("M %s %s %s %s %s", access, name, descriptor, signature, exceptions == null ? "" : String.join(",", exceptions)));
+				}
+				return null;
+			}
+		}, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		header.addAll(members);
+		return sha1(String.join("\n", header).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String sha1(byte[] value) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA1").digest(value));
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
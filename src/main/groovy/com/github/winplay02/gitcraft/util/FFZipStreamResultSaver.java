@@ -0,0 +1,243 @@
+package com.github.winplay02.gitcraft.util;
+
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Result saver, that streams all results directly into a single jar.
+ * Decompiler threads hand their results over to a single writer thread through a bounded queue, so that only few results are held in memory at any time.
+ * Source jars, that entries are copied from, are opened once and shared until the saver is finished.
+ * <p>
+ * Missing parent directory entries are added automatically, entries that were already written are skipped.
+ * The jar is only complete after {@link #finish()} was called, further entries can be added using {@link #addEntry(String, byte[])} until then.
+ */
+public class FFZipStreamResultSaver implements IResultSaver {
+	private static final int QUEUE_CAPACITY = 256;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * @param name Name of the entry
+	 * @param content Content of the entry, or null for directories
+	 */
+	private record ZipEntryContent(String name, byte[] content) {
+	}
+
+	private static final ZipEntryContent END_OF_ENTRIES = new ZipEntryContent("", null);
+
+	private final ZipOutputStream outputStream;
+	private final BlockingQueue<ZipEntryContent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final Map<String, ZipFile> sourceJars = new ConcurrentHashMap<>();
+	private final Thread writerThread;
+	private volatile Throwable writerFailure = null;
+	private volatile boolean finished = false;
+
+	public FFZipStreamResultSaver(Path jar) throws IOException {
+		this.outputStream = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(jar), BUFFER_SIZE));
+		this.writerThread = Thread.ofVirtual().name("Decompiler-Result-Writer").start(this::writeEntries);
+	}
+
+	/**
+	 * Adds an entry to the jar.
+	 *
+	 * @param name Name of the entry, separated by '/'
+	 * @param content Content of the entry
+	 */
+	public void addEntry(String name, byte[] content) {
+		if (this.finished) {
+			throw new IllegalStateException("Result saver was already finished");
+		}
+		if (this.writerFailure != null) {
+			throw new RuntimeException("Failed to write decompiled jar", this.writerFailure);
+		}
+		try {
+			this.queue.put(new ZipEntryContent(normalizeName(name), content));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while saving " + name, e);
+		}
+	}
+
+	private void addDirectory(String name) {
+		String normalizedName = normalizeName(name);
+		if (!normalizedName.isEmpty()) {
+			this.addEntry(normalizedName, null);
+		}
+	}
+
+	private static String normalizeName(String name) {
+		String normalizedName = name.replace('\\', '/');
+		while (normalizedName.startsWith("/")) {
+			normalizedName = normalizedName.substring(1);
+		}
+		return normalizedName;
+	}
+
+	private static String join(String path, String entryName) {
+		return path == null || path.isEmpty() ? entryName : path + "/" + entryName;
+	}
+
+	private void writeEntries() {
+		Set<String> writtenEntries = new HashSet<>();
+		try {
+			for (ZipEntryContent entry = this.queue.take(); entry != END_OF_ENTRIES; entry = this.queue.take()) {
+				if (this.writerFailure != null) {
+					// keep draining, so that no decompiler thread blocks forever
+					continue;
+				}
+				try {
+					this.writeEntry(entry, writtenEntries);
+				} catch (IOException | RuntimeException e) {
+					this.writerFailure = e;
+				}
+			}
+		} catch (InterruptedException e) {
+			this.writerFailure = e;
+		}
+	}
+
+	private void writeEntry(ZipEntryContent entry, Set<String> writtenEntries) throws IOException {
+		String name = entry.content() == null && !entry.name().endsWith("/") ? entry.name() + "/" : entry.name();
+		for (int separator = name.indexOf('/'); separator >= 0 && separator < name.length() - 1; separator = name.indexOf('/', separator + 1)) {
+			String parentDirectory = name.substring(0, separator + 1);
+			if (writtenEntries.add(parentDirectory)) {
+				this.outputStream.putNextEntry(new ZipEntry(parentDirectory));
+				this.outputStream.closeEntry();
+			}
+		}
+		if (!writtenEntries.add(name)) {
+			return;
+		}
+		this.outputStream.putNextEntry(new ZipEntry(name));
+		if (entry.content() != null) {
+			this.outputStream.write(entry.content());
+		}
+		this.outputStream.closeEntry();
+	}
+
+	@Override
+	public void saveFolder(String path) {
+		this.addDirectory(path);
+	}
+
+	@Override
+	public void copyFile(String source, String path, String entryName) {
+		try {
+			this.addEntry(join(path, entryName), Files.readAllBytes(Path.of(source)));
+		} catch (IOException ex) {
+			DecompilerContext.getLogger().writeMessage("Cannot copy " + source + " to " + entryName, ex);
+		}
+	}
+
+	@Override
+	public void saveClassFile(String path, String qualifiedName, String entryName, String content, int[] mapping) {
+		this.addEntry(join(path, entryName), content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+	}
+
+	@Override
+	public void createArchive(String path, String archiveName, Manifest manifest) {
+
+	}
+
+	@Override
+	public void saveDirEntry(String path, String archiveName, String entryName) {
+		this.addDirectory(entryName);
+	}
+
+	@Override
+	public void copyEntry(String source, String path, String archiveName, String entryName) {
+		try {
+			ZipFile sourceJar = this.sourceJars.computeIfAbsent(source, $ -> {
+				try {
+					return new ZipFile(source);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			ZipEntry zipEntry = sourceJar.getEntry(entryName);
+			if (zipEntry != null) {
+				try (InputStream inputStream = sourceJar.getInputStream(zipEntry)) {
+					this.addEntry(entryName, inputStream.readAllBytes());
+				}
+			}
+		} catch (IOException | RuntimeException ex) {
+			String message = "Cannot copy entry " + entryName + " from " + source;
+			DecompilerContext.getLogger().writeMessage(message, ex);
+		}
+	}
+
+	@Override
+	public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content) {
+		this.addEntry(entryName, content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+	}
+
+	@Override
+	public void closeArchive(String path, String archiveName) {
+
+	}
+
+	/**
+	 * Does not finish the jar, as further entries may be added after decompilation, see {@link #finish()}.
+	 */
+	@Override
+	public void close() {
+
+	}
+
+	/**
+	 * Writes all remaining entries, completes the jar and closes all shared source jars.
+	 * Calling this method more than once has no effect.
+	 *
+	 * @throws IOException If any entry could not be written or the jar cannot be completed
+	 */
+	public synchronized void finish() throws IOException {
+		if (this.finished) {
+			return;
+		}
+		this.finished = true;
+		try {
+			this.queue.put(END_OF_ENTRIES);
+			this.writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.writerThread.interrupt();
+			this.writerFailure = e;
+		}
+		IOException exception = null;
+		for (ZipFile sourceJar : this.sourceJars.values()) {
+			try {
+				sourceJar.close();
+			} catch (IOException e) {
+				exception = e;
+			}
+		}
+		this.sourceJars.clear();
+		try {
+			this.outputStream.close();
+		} catch (IOException e) {
+			exception = e;
+		}
+		if (this.writerFailure != null) {
+			throw new IOException("Failed to write decompiled jar", this.writerFailure);
+		}
+		if (exception != null) {
+			throw exception;
+		}
+	}
+}
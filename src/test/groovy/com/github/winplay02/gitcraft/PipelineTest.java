@@ -1,13 +1,16 @@
 package com.github.winplay02.gitcraft;
 
+import com.github.winplay02.gitcraft.config.GlobalConfiguration;
 import com.github.winplay02.gitcraft.graph.AbstractVersion;
 import com.github.winplay02.gitcraft.graph.AbstractVersionGraph;
 import com.github.winplay02.gitcraft.pipeline.IPipeline;
+import com.github.winplay02.gitcraft.pipeline.IPipelineFilesystemRoot;
 import com.github.winplay02.gitcraft.pipeline.IStep;
 import com.github.winplay02.gitcraft.pipeline.IStepConfig;
 import com.github.winplay02.gitcraft.pipeline.IStepContext;
 import com.github.winplay02.gitcraft.pipeline.IStepWorker;
 import com.github.winplay02.gitcraft.pipeline.ParallelismPolicy;
+import com.github.winplay02.gitcraft.pipeline.ResourceClass;
 import com.github.winplay02.gitcraft.pipeline.PipelineDescription;
 import com.github.winplay02.gitcraft.pipeline.PipelineFilesystemStorage;
 import com.github.winplay02.gitcraft.pipeline.StepDependencies;
@@ -15,21 +18,32 @@ import com.github.winplay02.gitcraft.pipeline.StepInput;
 import com.github.winplay02.gitcraft.pipeline.StepOutput;
 import com.github.winplay02.gitcraft.pipeline.StepResults;
 import com.github.winplay02.gitcraft.pipeline.StepStatus;
+import com.github.winplay02.gitcraft.pipeline.key.ArtifactKey;
+import com.github.winplay02.gitcraft.pipeline.key.DirectoryKey;
 import com.github.winplay02.gitcraft.pipeline.key.KeyInformation;
+import com.github.winplay02.gitcraft.pipeline.key.StorageKey;
 import com.github.winplay02.gitcraft.util.MiscHelper;
+import com.github.winplay02.gitcraft.util.MiscHelper.ExceptionInsensitiveRunnable;
 import com.github.winplay02.gitcraft.util.Tuple2;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 @ExtendWith({GitCraftTestingFs.class})
@@ -223,6 +237,293 @@ public class PipelineTest {
 		testingVersion -> new EmptyConfig(SEQ_TIMING[0], SEQ_TIMING[1], SEQ_TIMING[2])
 	);
 
+	static class Recorder {
+		private final Map<String, Long> timesBegin = new ConcurrentHashMap<>();
+		private final Map<String, Long> timesEnd = new ConcurrentHashMap<>();
+		private final Map<ResourceClass, AtomicInteger> running = new ConcurrentHashMap<>();
+		private final Map<ResourceClass, AtomicInteger> maxRunning = new ConcurrentHashMap<>();
+		private final AtomicInteger executions = new AtomicInteger();
+		private final AtomicInteger heapCostEstimates = new AtomicInteger();
+
+		private static String key(IStep<?, ?, ?, ?> step, TestingVersion version) {
+			return step.getName() + "@" + version.num();
+		}
+
+		public void recordBegin(IStep<?, ?, ?, ?> step, TestingVersion version) {
+			if (timesBegin.putIfAbsent(key(step, version), System.nanoTime()) != null) {
+				MiscHelper.panic("Step %s was executed twice", key(step, version));
+			}
+			executions.incrementAndGet();
+			int nowRunning = running.computeIfAbsent(step.getResourceClass(), $ -> new AtomicInteger()).incrementAndGet();
+			maxRunning.computeIfAbsent(step.getResourceClass(), $ -> new AtomicInteger()).accumulateAndGet(nowRunning, Math::max);
+		}
+
+		public void recordHeapCostEstimate() {
+			heapCostEstimates.incrementAndGet();
+		}
+
+		public void recordEnd(IStep<?, ?, ?, ?> step, TestingVersion version) {
+			running.get(step.getResourceClass()).decrementAndGet();
+			timesEnd.put(key(step, version), System.nanoTime());
+		}
+
+		public boolean isOrdered(IStep<?, ?, ?, ?> firstStep, TestingVersion firstVersion, IStep<?, ?, ?, ?> secondStep, TestingVersion secondVersion) {
+			return timesEnd.get(key(firstStep, firstVersion)) <= timesBegin.get(key(secondStep, secondVersion));
+		}
+
+		public long earliestBegin(IStep<?, ?, ?, ?> step) {
+			return timesBegin.entrySet().stream().filter(entry -> entry.getKey().startsWith(step.getName() + "@")).mapToLong(Map.Entry::getValue).min().orElseThrow();
+		}
+
+		public long latestEnd(IStep<?, ?, ?, ?> step) {
+			return timesEnd.entrySet().stream().filter(entry -> entry.getKey().startsWith(step.getName() + "@")).mapToLong(Map.Entry::getValue).max().orElseThrow();
+		}
+
+		public long executions(IStep<?, ?, ?, ?> step) {
+			return timesBegin.keySet().stream().filter(key -> key.startsWith(step.getName() + "@")).count();
+		}
+
+		public int maxRunning(ResourceClass resourceClass) {
+			return maxRunning.getOrDefault(resourceClass, new AtomicInteger()).get();
+		}
+	}
+
+	record RecordingConfig(Recorder recorder) implements IStepConfig {
+		@Override
+		public String createArtifactComponentString(KeyInformation<?> dist, KeyInformation<?>... matchingFlavours) {
+			return "";
+		}
+	}
+
+	record RecordingStepWorker(RecordingConfig config, IStep<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> step, long duration, long heapCost) implements IStepWorker<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> {
+		@Override
+		public long estimateHeapCost(IPipeline<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> pipeline, IStepContext.SimpleStepContext<TestingVersion> context, StepInput.Empty input) {
+			this.config.recorder().recordHeapCostEstimate();
+			return this.heapCost;
+		}
+
+		@Override
+		public StepOutput<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> run(IPipeline<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> pipeline, IStepContext.SimpleStepContext<TestingVersion> context, StepInput.Empty input, StepResults<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> results) throws Exception {
+			this.config.recorder().recordBegin(this.step, context.targetVersion());
+			Thread.sleep(this.duration);
+			this.config.recorder().recordEnd(this.step, context.targetVersion());
+			return StepOutput.ofEmptyResultSet(StepStatus.SUCCESS);
+		}
+	}
+
+	enum TestingStepsResources implements IStep<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> {
+		FETCH("Fetch", ResourceClass.NETWORK, 150),
+		PROCESS("Process", ResourceClass.CPU, 400),
+		STORE("Store", ResourceClass.GIT, 100);
+
+		private final String name;
+		private final ResourceClass resourceClass;
+		private final long duration;
+
+		TestingStepsResources(String name, ResourceClass resourceClass, long duration) {
+			this.name = name;
+			this.resourceClass = resourceClass;
+			this.duration = duration;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public ParallelismPolicy getParallelismPolicy() {
+			return ParallelismPolicy.SAFELY_FULLY_PARALLEL;
+		}
+
+		@Override
+		public ResourceClass getResourceClass() {
+			return this.resourceClass;
+		}
+
+		public IStepWorker<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> createWorker(RecordingConfig config) {
+			return new RecordingStepWorker(config, this, this.duration, 0L);
+		}
+	}
+
+	enum TestingStepsHeap implements IStep<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> {
+		HEAVY("Heavy", ResourceClass.HEAVY_MEMORY, Runtime.getRuntime().maxMemory() / 10L * 6L),
+		LIGHT("Light", ResourceClass.CPU, 0L);
+
+		private final String name;
+		private final ResourceClass resourceClass;
+		private final long heapCost;
+
+		TestingStepsHeap(String name, ResourceClass resourceClass, long heapCost) {
+			this.name = name;
+			this.resourceClass = resourceClass;
+			this.heapCost = heapCost;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public ParallelismPolicy getParallelismPolicy() {
+			return ParallelismPolicy.SAFELY_FULLY_PARALLEL;
+		}
+
+		@Override
+		public ResourceClass getResourceClass() {
+			return this.resourceClass;
+		}
+
+		public IStepWorker<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> createWorker(RecordingConfig config) {
+			return new RecordingStepWorker(config, this, 300, this.heapCost);
+		}
+	}
+
+	static PipelineDescription<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> createHeapDescription(Recorder recorder) {
+		return new PipelineDescription<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig>(
+			"heap-pipeline",
+			List.of(TestingStepsHeap.HEAVY, TestingStepsHeap.LIGHT),
+			Map.of(
+				TestingStepsHeap.HEAVY, ($, $$) -> new StepInput.Empty(),
+				TestingStepsHeap.LIGHT, ($, $$) -> new StepInput.Empty()
+			),
+			Map.of(),
+			(version, repository, versionGraph, executorService) -> new IStepContext.SimpleStepContext<TestingVersion>(repository, versionGraph, version, executorService),
+			testingVersion -> new RecordingConfig(recorder)
+		);
+	}
+
+	static PipelineDescription<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig> createResourcesDescription(Recorder recorder) {
+		return new PipelineDescription<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, RecordingConfig>(
+			"resources-pipeline",
+			List.of(TestingStepsResources.FETCH, TestingStepsResources.PROCESS, TestingStepsResources.STORE),
+			Map.of(
+				TestingStepsResources.FETCH, ($, $$) -> new StepInput.Empty(),
+				TestingStepsResources.PROCESS, ($, $$) -> new StepInput.Empty(),
+				TestingStepsResources.STORE, ($, $$) -> new StepInput.Empty()
+			),
+			Map.of(
+				TestingStepsResources.PROCESS, StepDependencies.ofHardIntraVersionOnly(TestingStepsResources.FETCH),
+				TestingStepsResources.STORE, StepDependencies.merge(
+					StepDependencies.ofHardIntraVersionOnly(TestingStepsResources.PROCESS),
+					StepDependencies.ofInterVersion(TestingStepsResources.STORE)
+				)
+			),
+			(version, repository, versionGraph, executorService) -> new IStepContext.SimpleStepContext<TestingVersion>(repository, versionGraph, version, executorService),
+			testingVersion -> new RecordingConfig(recorder)
+		);
+	}
+
+	record JournalConfig(Recorder recorder) implements IStepConfig {
+		@Override
+		public String createArtifactComponentString(KeyInformation<?> dist, KeyInformation<?>... matchingFlavours) {
+			return "";
+		}
+
+		@Override
+		public String fingerprint() {
+			return "journal";
+		}
+	}
+
+	static final DirectoryKey JOURNAL_ARTIFACTS = new DirectoryKey("artifacts");
+	static final ArtifactKey JOURNAL_PRODUCED = new ArtifactKey(JOURNAL_ARTIFACTS, "produced");
+	static final DirectoryKey JOURNAL_SCRATCH = new DirectoryKey("scratch");
+
+	record JournalStepWorker(JournalConfig config, TestingStepsJournal step) implements IStepWorker<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, JournalConfig> {
+		@Override
+		public StepOutput<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, JournalConfig> run(IPipeline<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, JournalConfig> pipeline, IStepContext.SimpleStepContext<TestingVersion> context, StepInput.Empty input, StepResults<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, JournalConfig> results) throws Exception {
+			this.config.recorder().recordBegin(this.step, context.targetVersion());
+			try {
+				return switch (this.step) {
+					case PRODUCE -> {
+						Path produced = results.getPathForKeyAndAdd(pipeline, context, this.config, JOURNAL_PRODUCED);
+						Files.createDirectories(produced.getParent());
+						Files.writeString(produced, context.targetVersion().pathName());
+						yield new StepOutput<>(StepStatus.SUCCESS, results);
+					}
+					case SKIP -> StepOutput.ofEmptyResultSet(StepStatus.NOT_RUN);
+					case SCRATCH -> {
+						// temporary directory, that is deleted after the step completed
+						Path scratch = results.getPathForKeyAndAdd(pipeline, context, this.config, JOURNAL_SCRATCH);
+						Files.createDirectories(scratch);
+						MiscHelper.deleteDirectory(scratch);
+						yield new StepOutput<>(StepStatus.SUCCESS, results);
+					}
+					case CONSUME -> StepOutput.ofEmptyResultSet(StepStatus.SUCCESS);
+				};
+			} finally {
+				this.config.recorder().recordEnd(this.step, context.targetVersion());
+			}
+		}
+	}
+
+	enum TestingStepsJournal implements IStep<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, JournalConfig> {
+		PRODUCE("Produce"),
+		SKIP("Skip"),
+		SCRATCH("Scratch"),
+		CONSUME("Consume");
+
+		private final String name;
+
+		TestingStepsJournal(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public ParallelismPolicy getParallelismPolicy() {
+			return ParallelismPolicy.SAFELY_FULLY_PARALLEL;
+		}
+
+		@Override
+		public boolean isJournaled() {
+			return true;
+		}
+
+		public IStepWorker<TestingVersion, StepInput.Empty, IStepContext.SimpleStepContext<TestingVersion>, JournalConfig> createWorker(JournalConfig config) {
+			return new JournalStepWorker(config, this);
+		}
+	}
+
+	static PipelineDescription<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, JournalConfig> createJournalDescription(Recorder recorder) {
+		return new PipelineDescription<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, JournalConfig>(
+			"journal-pipeline",
+			List.of(TestingStepsJournal.PRODUCE, TestingStepsJournal.SKIP, TestingStepsJournal.SCRATCH, TestingStepsJournal.CONSUME),
+			Map.of(
+				TestingStepsJournal.PRODUCE, ($, $$) -> new StepInput.Empty(),
+				TestingStepsJournal.SKIP, ($, $$) -> new StepInput.Empty(),
+				TestingStepsJournal.SCRATCH, ($, $$) -> new StepInput.Empty(),
+				TestingStepsJournal.CONSUME, ($, $$) -> new StepInput.Empty()
+			),
+			Map.of(
+				TestingStepsJournal.CONSUME, StepDependencies.merge(
+					StepDependencies.ofHardIntraVersionOnly(TestingStepsJournal.PRODUCE, TestingStepsJournal.SKIP, TestingStepsJournal.SCRATCH),
+					StepDependencies.ofInterVersion(TestingStepsJournal.CONSUME)
+				)
+			),
+			(version, repository, versionGraph, executorService) -> new IStepContext.SimpleStepContext<TestingVersion>(repository, versionGraph, version, executorService),
+			testingVersion -> new JournalConfig(recorder)
+		);
+	}
+
+	static PipelineFilesystemStorage<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, JournalConfig> createJournalStorage(Path root) {
+		Map<StorageKey, PipelineFilesystemStorage.PathDeriver<TestingVersion, IStepContext.SimpleStepContext<TestingVersion>, JournalConfig>> paths = new HashMap<>();
+		paths.put(JOURNAL_ARTIFACTS, PipelineFilesystemStorage.rootPathConst(IPipelineFilesystemRoot.getPathIndexed("artifacts")));
+		paths.put(JOURNAL_PRODUCED, PipelineFilesystemStorage.createFromKey(JOURNAL_ARTIFACTS, context -> context.targetVersion().pathName() + ".txt"));
+		paths.put(JOURNAL_SCRATCH, PipelineFilesystemStorage.createFromKey(JOURNAL_ARTIFACTS, context -> "scratch-" + context.targetVersion().pathName()));
+		return new PipelineFilesystemStorage<>(new IPipelineFilesystemRoot.SimpleSuppliedPipelineFilesystemRoot(() -> root), Set.of(), paths);
+	}
+
+	static void runWithGlobalConfiguration(Map<String, JsonElement> overrides, ExceptionInsensitiveRunnable runnable) throws Exception {
+		GlobalConfiguration original = Library.CONF_GLOBAL;
+		Library.CONF_GLOBAL = GlobalConfiguration.deserialize(MiscHelper.mergeMaps(new HashMap<>(original.serialize()), overrides));
+		try {
+			runnable.run();
+		} finally {
+			Library.CONF_GLOBAL = original;
+		}
+	}
+
 	static TestingVersionGraph createVersionGraph() {
 		return new TestingVersionGraph(
 			List.of(
@@ -268,4 +569,92 @@ public class PipelineTest {
 		Assertions.assertFalse(SEQ_TIMING[2].isOverlapping(new TestingVersion(2), new TestingVersion(3)));
 		Assertions.assertFalse(SEQ_TIMING[2].isOverlapping(new TestingVersion(1), new TestingVersion(2)));
 	}
+
+	@Test
+	public void pipelineExecutionReadyQueue() throws Exception {
+		TestingVersionGraph graph = createVersionGraph();
+		Recorder recorder = new Recorder();
+		IPipeline.run(createResourcesDescription(recorder), new PipelineFilesystemStorage<>(null, null), null, graph);
+		// every tuple is executed exactly once
+		Assertions.assertEquals(graph.stream().count() * TestingStepsResources.values().length, recorder.executions.get());
+		for (TestingVersion version : graph) {
+			// intra-version dependencies
+			Assertions.assertTrue(recorder.isOrdered(TestingStepsResources.FETCH, version, TestingStepsResources.PROCESS, version));
+			Assertions.assertTrue(recorder.isOrdered(TestingStepsResources.PROCESS, version, TestingStepsResources.STORE, version));
+			// inter-version dependencies
+			for (TestingVersion previousVersion : graph.getPreviousVertices(version)) {
+				Assertions.assertTrue(recorder.isOrdered(TestingStepsResources.STORE, previousVersion, TestingStepsResources.STORE, version));
+			}
+		}
+		// independent tasks are not serialized
+		Assertions.assertTrue(recorder.maxRunning(ResourceClass.NETWORK) > 1);
+		Assertions.assertTrue(recorder.maxRunning(ResourceClass.CPU) > 1);
+	}
+
+	@Test
+	public void pipelineExecutionResourceClassLimits() throws Exception {
+		TestingVersionGraph graph = createVersionGraph();
+		Recorder recorder = new Recorder();
+		runWithGlobalConfiguration(Map.of("maxParallelNetworkSteps", new JsonPrimitive(1), "maxParallelCpuSteps", new JsonPrimitive(2)), () ->
+			IPipeline.run(createResourcesDescription(recorder), new PipelineFilesystemStorage<>(null, null), null, graph)
+		);
+		Assertions.assertEquals(graph.stream().count() * TestingStepsResources.values().length, recorder.executions.get());
+		Assertions.assertEquals(1, recorder.maxRunning(ResourceClass.NETWORK));
+		Assertions.assertEquals(2, recorder.maxRunning(ResourceClass.CPU));
+		// an exhausted resource class does not block ready tasks of other resource classes
+		Assertions.assertTrue(recorder.earliestBegin(TestingStepsResources.PROCESS) < recorder.latestEnd(TestingStepsResources.FETCH));
+	}
+
+	@Test
+	public void pipelineExecutionHeapBudget() throws Exception {
+		TestingVersionGraph graph = createVersionGraph();
+		Recorder recorder = new Recorder();
+		runWithGlobalConfiguration(Map.of("heapBudgetPercentage", new JsonPrimitive(75), "maxParallelPipelineSteps", new JsonPrimitive(2)), () ->
+			IPipeline.run(createHeapDescription(recorder), new PipelineFilesystemStorage<>(null, null), null, graph)
+		);
+		Assertions.assertEquals(graph.stream().count() * TestingStepsHeap.values().length, recorder.executions.get());
+		// heap costs are estimated once per task, also for tasks that were set aside because of the heap budget
+		Assertions.assertEquals(recorder.executions.get(), recorder.heapCostEstimates.get());
+		// two heavy tasks never fit in the budget at the same time
+		Assertions.assertEquals(1, recorder.maxRunning(ResourceClass.HEAVY_MEMORY));
+		// tasks waiting for the heap budget do not hold thread permits, so light tasks run alongside a heavy task
+		Assertions.assertTrue(recorder.latestEnd(TestingStepsHeap.LIGHT) < recorder.latestEnd(TestingStepsHeap.HEAVY));
+	}
+
+	@Test
+	public void pipelineExecutionJournalRestore() throws Exception {
+		TestingVersionGraph graph = createVersionGraph();
+		Path root = Files.createTempDirectory("gitcraft-journal");
+		try {
+			int tuples = (int) graph.stream().count() * TestingStepsJournal.values().length;
+			Recorder firstRun = new Recorder();
+			IPipeline.run(createJournalDescription(firstRun), createJournalStorage(root), null, graph);
+			Assertions.assertEquals(tuples, firstRun.executions.get());
+
+			// only tuples with result files are restored, tuples without results, not run tuples and tuples with deleted temporary directories run again
+			int versions = (int) graph.stream().count();
+			Recorder secondRun = new Recorder();
+			IPipeline.run(createJournalDescription(secondRun), createJournalStorage(root), null, graph);
+			Assertions.assertEquals(0, secondRun.executions(TestingStepsJournal.PRODUCE));
+			Assertions.assertEquals(versions, secondRun.executions(TestingStepsJournal.SKIP));
+			Assertions.assertEquals(versions, secondRun.executions(TestingStepsJournal.SCRATCH));
+			Assertions.assertEquals(versions, secondRun.executions(TestingStepsJournal.CONSUME));
+
+			// changed results invalidate the tuple
+			Files.writeString(root.resolve("artifacts").resolve("3.txt"), "changed");
+			Recorder thirdRun = new Recorder();
+			IPipeline.run(createJournalDescription(thirdRun), createJournalStorage(root), null, graph);
+			Assertions.assertEquals(1, thirdRun.executions(TestingStepsJournal.PRODUCE));
+			Assertions.assertTrue(thirdRun.isOrdered(TestingStepsJournal.PRODUCE, new TestingVersion(3), TestingStepsJournal.CONSUME, new TestingVersion(3)));
+
+			// deleted results invalidate the tuple
+			Files.delete(root.resolve("artifacts").resolve("2.txt"));
+			Recorder fourthRun = new Recorder();
+			IPipeline.run(createJournalDescription(fourthRun), createJournalStorage(root), null, graph);
+			Assertions.assertEquals(1, fourthRun.executions(TestingStepsJournal.PRODUCE));
+			Assertions.assertTrue(Files.exists(root.resolve("artifacts").resolve("2.txt")));
+		} finally {
+			MiscHelper.deleteDirectory(root);
+		}
+	}
 }
@@ -0,0 +1,98 @@
+package com.github.winplay02.gitcraft.integrity;
+
+import com.github.winplay02.gitcraft.config.IntegrityConfiguration;
+import com.github.winplay02.gitcraft.util.MiscHelper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntegrityAlgorithmTest {
+
+	/**
+	 * SHA1, that persists its cache in the provided file and counts how often checksums are actually calculated.
+	 */
+	private static final class CountingAlgorithm extends SHA1Algorithm {
+		private final Path cacheFile;
+		private int calculations = 0;
+
+		private CountingAlgorithm(Path cacheFile) {
+			super(new IntegrityConfiguration(true, true));
+			this.cacheFile = cacheFile;
+		}
+
+		@Override
+		protected String calculateChecksumFile(Path path) {
+			++this.calculations;
+			return super.calculateChecksumFile(path);
+		}
+
+		@Override
+		protected Path getPersistentCacheFile() {
+			return this.cacheFile;
+		}
+	}
+
+	private interface CacheTest {
+		void run(Path root, Path cacheFile) throws IOException;
+	}
+
+	private static void withCacheFile(CacheTest test) throws IOException {
+		Path root = Files.createTempDirectory("gitcraft-checksum-cache");
+		try {
+			test.run(root, root.resolve("cache").resolve("sha1.tsv"));
+		} finally {
+			MiscHelper.deleteDirectory(root);
+		}
+	}
+
+	@Test
+	public void persistentCacheHitWhenSizeAndModificationTimeMatch() throws IOException {
+		withCacheFile((root, cacheFile) -> {
+			Path file = Files.writeString(root.resolve("file.txt"), "content");
+			CountingAlgorithm algorithm = new CountingAlgorithm(cacheFile);
+			String checksum = algorithm.getChecksumFileUnconditionally(file);
+			assertEquals(1, algorithm.calculations);
+			algorithm.savePersistentCache();
+			assertTrue(Files.exists(cacheFile));
+
+			// a new instance (e.g. the next run) loads the checksum from the cache file instead of calculating it
+			CountingAlgorithm restartedAlgorithm = new CountingAlgorithm(cacheFile);
+			assertEquals(checksum, restartedAlgorithm.getChecksumFileUnconditionally(file));
+			assertEquals(0, restartedAlgorithm.calculations);
+		});
+	}
+
+	@Test
+	public void persistentCacheMissWhenFileChanged() throws IOException {
+		withCacheFile((root, cacheFile) -> {
+			Path sameSize = Files.writeString(root.resolve("same-size.txt"), "content");
+			Path sameTime = Files.writeString(root.resolve("same-time.txt"), "content");
+			FileTime modified = FileTime.fromMillis(1_000_000L);
+			Files.setLastModifiedTime(sameSize, modified);
+			Files.setLastModifiedTime(sameTime, modified);
+			CountingAlgorithm algorithm = new CountingAlgorithm(cacheFile);
+			String checksum = algorithm.getChecksumFileUnconditionally(sameSize);
+			assertEquals(checksum, algorithm.getChecksumFileUnconditionally(sameTime));
+			algorithm.savePersistentCache();
+
+			// same size but a different modification time, and a different size but the same modification time
+			Files.writeString(sameSize, "CONTENT");
+			Files.setLastModifiedTime(sameSize, FileTime.fromMillis(2_000_000L));
+			Files.writeString(sameTime, "changed content");
+			Files.setLastModifiedTime(sameTime, modified);
+			CountingAlgorithm restartedAlgorithm = new CountingAlgorithm(cacheFile);
+			assertNotEquals(checksum, restartedAlgorithm.getChecksumFileUnconditionally(sameSize));
+			assertNotEquals(checksum, restartedAlgorithm.getChecksumFileUnconditionally(sameTime));
+			assertEquals(2, restartedAlgorithm.calculations);
+			assertEquals(new SHA1Algorithm(new IntegrityConfiguration(true, false)).getChecksumFileUnconditionally(sameTime), restartedAlgorithm.getChecksumFileUnconditionally(sameTime));
+			assertEquals(2, restartedAlgorithm.calculations);
+		});
+	}
+}
@@ -0,0 +1,111 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+import com.github.winplay02.gitcraft.GitCraftTestingFs;
+import com.github.winplay02.gitcraft.util.MiscHelper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith({GitCraftTestingFs.class})
+public class ContentAddressedStoreTest {
+
+	private interface StoreTest {
+		void run(Path workspace, ContentAddressedStore store) throws IOException;
+	}
+
+	private static void withStore(StoreTest test) throws IOException {
+		Path workspace = Files.createTempDirectory("gitcraft-store");
+		try {
+			test.run(workspace, new ContentAddressedStore(workspace.resolve("content-addressed"), workspace));
+		} finally {
+			MiscHelper.deleteDirectory(workspace);
+		}
+	}
+
+	@Test
+	public void storeHitAndMiss() throws IOException {
+		withStore((workspace, store) -> {
+			Path input = Files.writeString(workspace.resolve("input.txt"), "input");
+			Path output = workspace.resolve("out/output.txt");
+			String key = store.createKey("step", "config", List.of(input));
+			assertEquals(Optional.empty(), store.producedKey(output));
+			assertFalse(store.restore(key, output));
+			assertFalse(Files.exists(output));
+
+			Files.createDirectories(output.getParent());
+			Files.writeString(output, "output");
+			store.store(key, output);
+			assertEquals(Optional.of(key), store.producedKey(output));
+
+			Files.delete(output);
+			assertTrue(store.restore(key, output));
+			assertEquals("output", Files.readString(output));
+			assertEquals(Optional.of(key), store.producedKey(output));
+		});
+	}
+
+	@Test
+	public void keyInvalidation() throws IOException {
+		withStore((workspace, store) -> {
+			Path input = Files.writeString(workspace.resolve("input.txt"), "input");
+			String key = store.createKey("step", "config", List.of(input));
+			assertEquals(key, store.createKey("step", "config", List.of(input)));
+			assertNotEquals(key, store.createKey("other-step", "config", List.of(input)));
+			assertNotEquals(key, store.createKey("step", "other-config", List.of(input)));
+			assertNotEquals(key, store.createKey("step", "config", List.of()));
+			Files.writeString(input, "changed input");
+			assertNotEquals(key, store.createKey("step", "config", List.of(input)));
+		});
+	}
+
+	@Test
+	public void indexIsRelativeToWorkspace() throws IOException {
+		withStore((workspace, store) -> {
+			Path output = Files.writeString(workspace.resolve("output.txt"), "output");
+			store.store("00aa", output);
+			Path movedWorkspace = workspace.resolve("moved");
+			Files.createDirectories(movedWorkspace);
+			Files.move(workspace.resolve("content-addressed"), movedWorkspace.resolve("content-addressed"));
+			Files.move(output, movedWorkspace.resolve("output.txt"));
+			ContentAddressedStore movedStore = new ContentAddressedStore(movedWorkspace.resolve("content-addressed"), movedWorkspace);
+			assertEquals(Optional.of("00aa"), movedStore.producedKey(movedWorkspace.resolve("output.txt")));
+		});
+	}
+
+	@Test
+	public void evictUnreferenced() throws IOException {
+		withStore((workspace, store) -> {
+			Path present = Files.writeString(workspace.resolve("present.txt"), "present");
+			store.store("01aa", present);
+			Path older = Files.writeString(workspace.resolve("older.txt"), "older");
+			store.store("02aa", older);
+			Files.setLastModifiedTime(older, FileTime.fromMillis(1000L));
+			Path newer = Files.writeString(workspace.resolve("newer.txt"), "newer");
+			store.store("03aa", newer);
+			Files.setLastModifiedTime(newer, FileTime.fromMillis(2000L));
+			Files.delete(older);
+			Files.delete(newer);
+
+			// the newer unreferenced object fits into the budget, the older one does not
+			assertEquals(1, store.evictUnreferenced("newer".length()));
+			assertEquals(Optional.empty(), store.producedKey(older));
+			assertEquals(Optional.empty(), store.producedKey(newer));
+			assertFalse(store.restore("02aa", older));
+			assertTrue(store.restore("03aa", newer));
+			assertTrue(store.restore("01aa", workspace.resolve("restored.txt")));
+
+			assertEquals(0, store.evictUnreferenced(0L));
+		});
+	}
+}
@@ -0,0 +1,64 @@
+package com.github.winplay02.gitcraft.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ThreadBudgetTest {
+
+	@Test
+	public void sharesAreCappedByExpectedJobs() throws InterruptedException {
+		ThreadBudget budget = new ThreadBudget(8, 2);
+		// the first job would be granted all threads by its weight alone
+		assertEquals(4, budget.acquire(100L));
+		assertEquals(4, budget.acquire(100L));
+		budget.release(4, 100L);
+		budget.release(4, 100L);
+
+		// without an expected amount of jobs, a single job may use all threads
+		ThreadBudget unlimitedBudget = new ThreadBudget(8, 0);
+		assertEquals(8, unlimitedBudget.acquire(100L));
+		assertEquals(1, new ThreadBudget(0, 4).capacity());
+	}
+
+	@Test
+	public void sharesFollowWeightsAndFreeThreads() throws InterruptedException {
+		ThreadBudget budget = new ThreadBudget(12, 2);
+		assertEquals(6, budget.acquire(100L));
+		// a third of the active weight
+		assertEquals(4, budget.acquire(50L));
+		// at least one thread, even for a negligible weight
+		assertEquals(1, budget.acquire(0L));
+		// never more than the free threads
+		assertEquals(1, budget.acquire(1000L));
+	}
+
+	@Test
+	public void acquireWaitsForFreeThreads() throws InterruptedException, ExecutionException, TimeoutException {
+		ThreadBudget budget = new ThreadBudget(2, 1);
+		assertEquals(2, budget.acquire(1L));
+		try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+			Future<Integer> waitingJob = executor.submit(() -> budget.acquire(1L));
+			assertThrows(TimeoutException.class, () -> waitingJob.get(200L, TimeUnit.MILLISECONDS));
+			assertFalse(waitingJob.isDone());
+			budget.release(2, 1L);
+			assertEquals(2, (int) waitingJob.get(10L, TimeUnit.SECONDS));
+
+			// interrupting a waiting job does not grant it any threads
+			Future<Integer> interruptedJob = executor.submit(() -> budget.acquire(1L));
+			assertThrows(TimeoutException.class, () -> interruptedJob.get(200L, TimeUnit.MILLISECONDS));
+			interruptedJob.cancel(true);
+			budget.release(2, 1L);
+			assertEquals(2, budget.acquire(1L));
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.github.winplay02.gitcraft.pipeline.workers;
+
+import com.github.winplay02.gitcraft.GitCraftTestingFs;
+import com.github.winplay02.gitcraft.util.ClassFingerprints;
+import com.github.winplay02.gitcraft.util.MiscHelper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@ExtendWith({GitCraftTestingFs.class})
+public class DecompilerTest {
+
+	private static final Map<String, String> FIXTURE_V1 = Map.of(
+		"fixture/Registry.java", "package fixture; public class Registry { public static int count() { return 1; } }",
+		"other/Block.java", "package other; public class Block { public int id() { return fixture.Registry.count(); } }",
+		"other/Handler.java", "package other; public class Handler { public void handle(fixture.Registry registry) { } }",
+		"fixture/Util.java", "package fixture; import java.util.List; public class Util { public static int size(List<String> values) { return values.size(); } }",
+		"other/Item.java", "package other; public class Item { public String name() { return \"item\"; } }"
+	);
+
+	private static final Map<String, String> FIXTURE_V2 = Map.of(
+		"fixture/Registry.java", "package fixture; public class Registry { public static int count() { return 1; } public static int max() { return 2; } }",
+		"other/Block.java", "package other; public class Block { public int id() { return fixture.Registry.count(); } }",
+		"other/Handler.java", "package other; public class Handler { public void handle(fixture.Registry registry) { } }",
+		"fixture/Util.java", "package fixture; import java.util.List; public class Util { public static int size(List<String> values) { return values.size(); } }",
+		"other/Item.java", "package other; public class Item { public String name() { return \"item\"; } }",
+		"fixture/List.java", "package fixture; public class List { }"
+	);
+
+	private static final Map<String, String> HIERARCHY_V1 = Map.of(
+		"hierarchy/Base.java", "package hierarchy; import java.util.List; public class Base { public List<String> names() { return List.of(); } }",
+		"hierarchy/Middle.java", "package hierarchy; public class Middle extends Base { }",
+		"other/User.java", "package other; public class User { public Object first(hierarchy.Middle middle) { return middle.names().get(0); } }",
+		"other/Item.java", "package other; public class Item { public String name() { return \"item\"; } }"
+	);
+
+	private static final Map<String, String> HIERARCHY_V2 = Map.of(
+		"hierarchy/Base.java", "package hierarchy; import java.util.List; public class Base { public List<CharSequence> names() { return List.of(); } }",
+		"hierarchy/Middle.java", "package hierarchy; public class Middle extends Base { }",
+		"other/User.java", "package other; public class User { public Object first(hierarchy.Middle middle) { return middle.names().get(0); } }",
+		"other/Item.java", "package other; public class Item { public String name() { return \"item\"; } }"
+	);
+
+	private interface FixtureTest {
+		void run(Path root) throws IOException, InterruptedException;
+	}
+
+	private static void withFixtureDirectory(FixtureTest test) throws IOException, InterruptedException {
+		Path root = Files.createTempDirectory("gitcraft-decompiler");
+		try {
+			test.run(root);
+		} finally {
+			MiscHelper.deleteDirectory(root);
+		}
+	}
+
+	private static Path compileFixture(Path root, String name, Map<String, String> sources) throws IOException {
+		Path sourceDir = root.resolve(name + "-src");
+		Path classDir = root.resolve(name + "-classes");
+		Files.createDirectories(classDir);
+		List<String> arguments = new ArrayList<>(List.of("-d", classDir.toString(), "-g:none"));
+		for (Map.Entry<String, String> source : sources.entrySet()) {
+			Path sourceFile = sourceDir.resolve(source.getKey());
+			Files.createDirectories(sourceFile.getParent());
+			Files.writeString(sourceFile, source.getValue());
+			arguments.add(sourceFile.toString());
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertEquals(0, compiler.run(null, null, null, arguments.toArray(String[]::new)));
+		Path jar = root.resolve(name + ".jar");
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(jar)); Stream<Path> classFiles = Files.walk(classDir)) {
+			for (Path classFile : classFiles.filter(Files::isRegularFile).sorted().toList()) {
+				zipOutputStream.putNextEntry(new ZipEntry(classDir.relativize(classFile).toString().replace('\\', '/')));
+				zipOutputStream.write(Files.readAllBytes(classFile));
+				zipOutputStream.closeEntry();
+			}
+		}
+		return jar;
+	}
+
+	private static Map<String, String> readEntries(Path jar) throws IOException {
+		Map<String, String> entries = new TreeMap<>();
+		try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+			for (ZipEntry entry : zipFile.stream().toList()) {
+				try (InputStream inputStream = zipFile.getInputStream(entry)) {
+					entries.put(entry.getName(), new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+				}
+			}
+		}
+		return entries;
+	}
+
+	private static Set<String> decompile(Path jarIn, Path jarOut, Map<String, String> fingerprints, Map<String, Path> previousJarsOut) throws IOException, InterruptedException {
+		return Decompiler.decompile(jarIn, jarOut, new HashMap<>(Decompiler.defaultOptions()), List.of(), fingerprints, previousJarsOut, "fixture", resultSaver -> {
+		});
+	}
+
+	@Test
+	public void incrementalDecompilationMatchesFullDecompilation() throws IOException, InterruptedException {
+		withFixtureDirectory(root -> {
+			Path jarV1 = compileFixture(root, "v1", FIXTURE_V1);
+			Path jarV2 = compileFixture(root, "v2", FIXTURE_V2);
+			String context = Decompiler.decompilationContext(Decompiler.defaultOptions(), List.of());
+
+			Path decompiledV1 = root.resolve("v1-decompiled.jar");
+			assertEquals(Set.of(), decompile(jarV1, decompiledV1, ClassFingerprints.create(jarV1, context), Map.of()));
+
+			Path incrementalV2 = root.resolve("v2-incremental.jar");
+			Set<String> reusedClasses = decompile(jarV2, incrementalV2, ClassFingerprints.create(jarV2, context), Map.of("v1", decompiledV1));
+			// Block references the changed Registry in code, Handler only in a descriptor, Util gains the package sibling List
+			assertEquals(Set.of("other/Item"), reusedClasses);
+
+			Path fullV2 = root.resolve("v2-full.jar");
+			assertEquals(Set.of(), decompile(jarV2, fullV2, null, Map.of()));
+
+			assertEquals(readEntries(fullV2), readEntries(incrementalV2));
+		});
+	}
+
+	@Test
+	public void fingerprintsIncludeDescriptorsAndPackageClasses() throws IOException, InterruptedException {
+		withFixtureDirectory(root -> {
+			Map<String, String> fingerprintsV1 = ClassFingerprints.create(compileFixture(root, "v1", FIXTURE_V1), "context");
+			Map<String, String> fingerprintsV2 = ClassFingerprints.create(compileFixture(root, "v2", FIXTURE_V2), "context");
+			assertEquals(fingerprintsV1.get("other/Item"), fingerprintsV2.get("other/Item"));
+			assertNotEquals(fingerprintsV1.get("other/Block"), fingerprintsV2.get("other/Block"));
+			assertNotEquals(fingerprintsV1.get("other/Handler"), fingerprintsV2.get("other/Handler"));
+			assertNotEquals(fingerprintsV1.get("fixture/Util"), fingerprintsV2.get("fixture/Util"));
+		});
+	}
+
+	@Test
+	public void fingerprintsIncludeSupertypeClosure() throws IOException, InterruptedException {
+		withFixtureDirectory(root -> {
+			Map<String, String> fingerprintsV1 = ClassFingerprints.create(compileFixture(root, "v1", HIERARCHY_V1), "context");
+			Map<String, String> fingerprintsV2 = ClassFingerprints.create(compileFixture(root, "v2", HIERARCHY_V2), "context");
+			assertEquals(fingerprintsV1.get("other/Item"), fingerprintsV2.get("other/Item"));
+			// User only references Middle, which inherits the changed signature from Base
+			assertNotEquals(fingerprintsV1.get("other/User"), fingerprintsV2.get("other/User"));
+			assertNotEquals(fingerprintsV1.get("hierarchy/Middle"), fingerprintsV2.get("hierarchy/Middle"));
+		});
+	}
+}
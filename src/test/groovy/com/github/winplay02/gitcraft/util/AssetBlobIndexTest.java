@@ -0,0 +1,95 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.github.winplay02.gitcraft.GitCraftTestingFs;
+import com.github.winplay02.gitcraft.LibraryPaths;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith({GitCraftTestingFs.class})
+public class AssetBlobIndexTest {
+
+	private static final ObjectId BLOB_ID = ObjectId.fromString("0123456789abcdef0123456789abcdef01234567");
+	private static final ObjectId OTHER_BLOB_ID = ObjectId.fromString("89abcdef0123456789abcdef0123456789abcdef");
+
+	/**
+	 * @return Hash of an asset, that is not known to the index yet (the index is shared by all tests)
+	 */
+	private static String uniqueAssetHash() {
+		return UUID.randomUUID().toString().replace("-", "");
+	}
+
+	private static List<String> savedEntries(String assetHash) throws IOException {
+		AssetBlobIndex.save();
+		Path indexFile = LibraryPaths.MAIN_ARTIFACT_STORE.resolve("asset-blobs.tsv");
+		return Files.readAllLines(indexFile, StandardCharsets.UTF_8).stream().filter(line -> line.startsWith(assetHash + "\t")).toList();
+	}
+
+	@Test
+	public void entriesAreRecordedOncePerAssetAndVariant() throws IOException {
+		String assetHash = uniqueAssetHash();
+		assertEquals(Optional.empty(), AssetBlobIndex.lookup(assetHash, "raw"));
+		AssetBlobIndex.record(assetHash, "raw", BLOB_ID);
+		// recording the same blob again (e.g. by another version sharing the asset) does not add another entry
+		AssetBlobIndex.record(assetHash, "raw", BLOB_ID);
+		AssetBlobIndex.record(assetHash, "transformed", OTHER_BLOB_ID);
+		assertEquals(Optional.of(BLOB_ID), AssetBlobIndex.lookup(assetHash, "raw"));
+		assertEquals(Optional.of(OTHER_BLOB_ID), AssetBlobIndex.lookup(assetHash, "transformed"));
+		assertEquals(List.of(assetHash + "\traw\t" + BLOB_ID.getName(), assetHash + "\ttransformed\t" + OTHER_BLOB_ID.getName()), savedEntries(assetHash));
+
+		// a changed blob replaces the previous one, already saved entries are not written again
+		AssetBlobIndex.record(assetHash, "raw", OTHER_BLOB_ID);
+		assertEquals(Optional.of(OTHER_BLOB_ID), AssetBlobIndex.lookup(assetHash, "raw"));
+		assertEquals(List.of(assetHash + "\traw\t" + BLOB_ID.getName(), assetHash + "\ttransformed\t" + OTHER_BLOB_ID.getName(), assetHash + "\traw\t" + OTHER_BLOB_ID.getName()), savedEntries(assetHash));
+	}
+
+	@Test
+	public void recordedBlobsAreReusedByLaterCommits() throws Exception {
+		Path root = Files.createTempDirectory("gitcraft-asset-blobs");
+		try (RepoWrapper repository = new RepoWrapper(root.resolve("repository"), "master")) {
+			String assetHash = uniqueAssetHash();
+			Path asset = Files.writeString(root.resolve(assetHash), "sound");
+			PersonIdent author = new PersonIdent("GitCraft", "gitcraft@example.com");
+			ObjectId firstCommit;
+			try (TreeCommitBuilder treeCommitBuilder = repository.createTreeCommitBuilder(null)) {
+				AssetBlobIndex.record(assetHash, "raw", treeCommitBuilder.addFile(asset, "assets/1/sound.ogg"));
+				firstCommit = treeCommitBuilder.commit(author, "1");
+			}
+
+			// the asset object is not read again by a later version, that contains it at another path
+			Files.delete(asset);
+			ObjectId secondCommit;
+			try (TreeCommitBuilder treeCommitBuilder = repository.createTreeCommitBuilder(null)) {
+				Optional<ObjectId> blobId = AssetBlobIndex.lookup(assetHash, "raw");
+				assertTrue(blobId.isPresent() && treeCommitBuilder.hasObject(blobId.get()));
+				treeCommitBuilder.addBlob(blobId.get(), "assets/2/sound.ogg");
+				secondCommit = treeCommitBuilder.commit(author, "2");
+			}
+
+			Repository gitRepository = repository.getGit().getRepository();
+			RevCommit first = gitRepository.parseCommit(firstCommit);
+			RevCommit second = gitRepository.parseCommit(secondCommit);
+			try (TreeWalk firstWalk = TreeWalk.forPath(gitRepository, "assets/1/sound.ogg", first.getTree()); TreeWalk secondWalk = TreeWalk.forPath(gitRepository, "assets/2/sound.ogg", second.getTree())) {
+				assertEquals(firstWalk.getObjectId(0), secondWalk.getObjectId(0));
+				assertEquals("sound", new String(gitRepository.open(secondWalk.getObjectId(0)).getBytes(), StandardCharsets.UTF_8));
+			}
+		} finally {
+			MiscHelper.deleteDirectory(root);
+		}
+	}
+}
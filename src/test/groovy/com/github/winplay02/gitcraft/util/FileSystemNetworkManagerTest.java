@@ -0,0 +1,154 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.github.winplay02.gitcraft.GitCraftTestingFs;
+import com.github.winplay02.gitcraft.Library;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith({GitCraftTestingFs.class})
+public class FileSystemNetworkManagerTest {
+
+	private static final String ETAG = "\"content-v1\"";
+
+	private static final byte[] CONTENT = "0123456789abcdef".repeat(1 << 12).getBytes(StandardCharsets.UTF_8);
+
+	/**
+	 * Serves {@link #CONTENT} with a strong ETag, and honours range requests, if their If-Range header matches the ETag.
+	 * Received Range headers are recorded, requests without a Range header are recorded as null.
+	 */
+	private record ContentServer(HttpServer server, List<String> ranges) implements AutoCloseable {
+		static ContentServer start() throws IOException {
+			HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+			List<String> ranges = new CopyOnWriteArrayList<>();
+			server.createContext("/content", exchange -> {
+				String range = exchange.getRequestHeaders().getFirst("Range");
+				ranges.add(range);
+				exchange.getResponseHeaders().add("ETag", ETAG);
+				if (range != null && ETAG.equals(exchange.getRequestHeaders().getFirst("If-Range"))) {
+					int offset = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+					exchange.getResponseHeaders().add("Content-Range", String.format("bytes %s-%s/%s", offset, CONTENT.length - 1, CONTENT.length));
+					respond(exchange, 206, Arrays.copyOfRange(CONTENT, offset, CONTENT.length));
+				} else {
+					respond(exchange, 200, CONTENT);
+				}
+			});
+			server.start();
+			return new ContentServer(server, ranges);
+		}
+
+		private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+			exchange.sendResponseHeaders(status, body.length);
+			try (OutputStream outputStream = exchange.getResponseBody()) {
+				outputStream.write(body);
+			}
+		}
+
+		URI uri() {
+			return URI.create(String.format("http://%s:%s/content", this.server.getAddress().getHostString(), this.server.getAddress().getPort()));
+		}
+
+		@Override
+		public void close() {
+			this.server.stop(0);
+		}
+	}
+
+	private interface DownloadTest {
+		void run(Path root, ContentServer server) throws IOException, ExecutionException, InterruptedException;
+	}
+
+	private static void withServer(DownloadTest test) throws IOException, ExecutionException, InterruptedException {
+		Path root = Files.createTempDirectory("gitcraft-network");
+		try (ContentServer server = ContentServer.start()) {
+			test.run(root, server);
+		} finally {
+			MiscHelper.deleteDirectory(root);
+		}
+	}
+
+	private static String sha1(byte[] content) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA1").digest(content));
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static FileSystemNetworkManager.LocalFileInfo fileInfo(Path targetFile, String checksum) {
+		return new FileSystemNetworkManager.LocalFileInfo(targetFile, checksum, Library.IA_SHA1, "test file", targetFile.getFileName().toString());
+	}
+
+	@Test
+	public void fetchVerifiesChecksumWhileStreaming() throws Exception {
+		withServer((root, server) -> {
+			Path targetFile = root.resolve("valid.bin");
+			assertTrue(FileSystemNetworkManager.fetchFileAsync(server.uri(), fileInfo(targetFile, sha1(CONTENT)), 0).get());
+			assertArrayEquals(CONTENT, Files.readAllBytes(targetFile));
+			assertFalse(Files.exists(FileSystemNetworkManager.downloadFile(targetFile)));
+			assertFalse(Files.exists(FileSystemNetworkManager.resumeInfoFile(targetFile)));
+
+			// a mismatching download never replaces the target file
+			Path mismatchingFile = root.resolve("mismatching.bin");
+			assertFalse(FileSystemNetworkManager.fetchFileAsync(server.uri(), fileInfo(mismatchingFile, sha1(new byte[0])), 0).get());
+			assertFalse(Files.exists(mismatchingFile));
+			assertFalse(Files.exists(FileSystemNetworkManager.downloadFile(mismatchingFile)));
+			assertEquals(Arrays.asList(null, null), server.ranges());
+		});
+	}
+
+	@Test
+	public void fetchResumesTruncatedDownload() throws Exception {
+		withServer((root, server) -> {
+			Path targetFile = root.resolve("resumed.bin");
+			int truncatedLength = CONTENT.length / 3;
+			Files.write(FileSystemNetworkManager.downloadFile(targetFile), Arrays.copyOf(CONTENT, truncatedLength));
+			new FileSystemNetworkManager.ResumeInfo(ETAG, CONTENT.length).write(FileSystemNetworkManager.resumeInfoFile(targetFile));
+
+			// the checksum covers the bytes of the previous attempt as well
+			assertTrue(FileSystemNetworkManager.fetchFileAsync(server.uri(), fileInfo(targetFile, sha1(CONTENT)), 0).get());
+			assertArrayEquals(CONTENT, Files.readAllBytes(targetFile));
+			assertEquals(List.of(String.format("bytes=%s-", truncatedLength)), server.ranges());
+			assertFalse(Files.exists(FileSystemNetworkManager.resumeInfoFile(targetFile)));
+		});
+	}
+
+	@Test
+	public void fetchRestartsDownloadOfChangedResource() throws Exception {
+		withServer((root, server) -> {
+			Path targetFile = root.resolve("changed.bin");
+			int truncatedLength = CONTENT.length / 3;
+			Files.write(FileSystemNetworkManager.downloadFile(targetFile), new byte[truncatedLength]);
+			new FileSystemNetworkManager.ResumeInfo("\"content-v0\"", CONTENT.length).write(FileSystemNetworkManager.resumeInfoFile(targetFile));
+
+			// If-Range does not match, so the complete resource is sent and the previous bytes are discarded
+			assertTrue(FileSystemNetworkManager.fetchFileAsync(server.uri(), fileInfo(targetFile, sha1(CONTENT)), 0).get());
+			assertArrayEquals(CONTENT, Files.readAllBytes(targetFile));
+			assertEquals(1, server.ranges().size());
+			assertNull(FileSystemNetworkManager.ResumeInfo.read(FileSystemNetworkManager.resumeInfoFile(targetFile)));
+		});
+	}
+}
@@ -0,0 +1,95 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JsonCanonicalizerTest {
+
+	/**
+	 * Sorts a document the way it was sorted before canonicalization was streamed, by sorting a Gson tree in place.
+	 *
+	 * @param json JSON document
+	 * @return Sorted JSON document
+	 */
+	private static String sortJsonTree(String json) {
+		JsonElement element = JsonParser.parseString(json);
+		Queue<JsonElement> queue = new LinkedList<>();
+		queue.add(element);
+		while (!queue.isEmpty()) {
+			JsonElement subject = queue.poll();
+			if (subject instanceof final JsonObject object) {
+				Map<String, JsonElement> mappings = new HashMap<>(object.asMap());
+				object.asMap().clear();
+				mappings.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach((entry) -> object.add(entry.getKey(), entry.getValue()));
+				mappings.values().stream().filter(entry -> entry instanceof JsonObject || entry instanceof JsonArray).forEach(queue::add);
+			}
+			if (subject instanceof final JsonArray array) {
+				array.asList().stream().filter(entry -> entry instanceof JsonObject || entry instanceof JsonArray).forEach(queue::add);
+			}
+		}
+		return SerializationHelper.serialize(element);
+	}
+
+	private static void assertCanonicalizedLikeJsonTree(String json) {
+		byte[] expected = sortJsonTree(json).getBytes(StandardCharsets.UTF_8);
+		assertArrayEquals(expected, JsonCanonicalizer.canonicalize(json.getBytes(StandardCharsets.UTF_8)));
+		assertArrayEquals(expected, JsonCanonicalizer.canonicalize(json).getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void canonicalizeNestedObjects() {
+		assertCanonicalizedLikeJsonTree("{\"b\": {\"d\": [{\"z\": 1, \"a\": {\"y\": [], \"x\": {}}}], \"c\": true}, \"a\": \"x\", \"B\": false}");
+	}
+
+	@Test
+	public void canonicalizeTopLevelArrays() {
+		assertCanonicalizedLikeJsonTree("[{\"b\": 1, \"a\": 2}, [{\"d\": \"e\", \"c\": 3}], \"s\", 4, true]");
+		assertCanonicalizedLikeJsonTree("[]");
+		assertCanonicalizedLikeJsonTree("[[[]]]");
+	}
+
+	@Test
+	public void canonicalizeNulls() {
+		assertCanonicalizedLikeJsonTree("{\"n\": null, \"arr\": [null, 1, null, {\"m\": null, \"k\": null}], \"o\": {\"p\": null}}");
+		assertCanonicalizedLikeJsonTree("[null, {\"a\": null}]");
+	}
+
+	@Test
+	public void canonicalizeNumberLiterals() {
+		assertCanonicalizedLikeJsonTree("{\"i\": 1, \"f\": 1.50, \"e\": 1e10, \"E\": -2.5E-3, \"z\": -0, \"big\": 123456789012345678901234567890, \"long\": 9007199254740993, \"frac\": 0.1000000000000000055511151231257827}");
+		assertCanonicalizedLikeJsonTree("[1.0, 2E+2, -0.0]");
+	}
+
+	@Test
+	public void canonicalizeHtmlEscaping() {
+		assertCanonicalizedLikeJsonTree("{\"<key>\": \"<a href='x'>&amp;</a> = \\u2028 \\u2029\", \"s\": \"tab\\t newline\\n quote\\\" backslash\\\\ \u00e9 \\u0001\"}");
+	}
+
+	@Test
+	public void canonicalizeDuplicateKeys() {
+		assertCanonicalizedLikeJsonTree("{\"a\": 1, \"b\": 2, \"a\": {\"d\": 4, \"c\": 3}}");
+		assertCanonicalizedLikeJsonTree("{\"a\": 1, \"a\": null}");
+	}
+
+	@Test
+	public void canonicalizeInvalidDocuments() {
+		assertThrows(JsonSyntaxException.class, () -> JsonCanonicalizer.canonicalize(""));
+		assertThrows(JsonSyntaxException.class, () -> JsonCanonicalizer.canonicalize("{\"a\": 1"));
+		assertThrows(JsonSyntaxException.class, () -> JsonCanonicalizer.canonicalize("{\"a\": 1} {}"));
+		assertEquals("{}", JsonCanonicalizer.canonicalize("{}"));
+	}
+}
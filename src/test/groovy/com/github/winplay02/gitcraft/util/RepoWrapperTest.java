@@ -0,0 +1,73 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.github.winplay02.gitcraft.GitCraftTestingFs;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@ExtendWith({GitCraftTestingFs.class})
+public class RepoWrapperTest {
+
+	private static RevCommit commitVersion(RepoWrapper repository, String message) throws IOException {
+		try (TreeCommitBuilder treeCommitBuilder = repository.createTreeCommitBuilder(null)) {
+			Path content = Files.createTempFile("gitcraft-version", ".txt");
+			try {
+				Files.writeString(content, message);
+				treeCommitBuilder.addFile(content, "version.txt");
+			} finally {
+				Files.delete(content);
+			}
+			return repository.getGit().getRepository().parseCommit(treeCommitBuilder.commit(new PersonIdent("GitCraft", "gitcraft@example.com"), message));
+		}
+	}
+
+	private static void assertCommitIndexMatchesFilter(RepoWrapper repository, List<String> messages) throws Exception {
+		for (String message : messages) {
+			Iterator<RevCommit> iterator = repository.getGit().log().all().setRevFilter(new RepoWrapper.CommitMsgFilter(message)).call().iterator();
+			RevCommit filteredCommit = iterator.hasNext() ? iterator.next() : null;
+			RevCommit indexedCommit = repository.findRevByCommitMessage(message);
+			assertEquals(filteredCommit != null, repository.existsRevWithCommitMessage(message));
+			assertEquals(filteredCommit != null ? filteredCommit.getId() : null, indexedCommit != null ? indexedCommit.getId() : null);
+		}
+	}
+
+	@Test
+	public void commitMessageIndexMatchesFilter() throws Exception {
+		Path root = Files.createTempDirectory("gitcraft-commit-index");
+		List<String> messages = List.of("1", "2", "3", "4");
+		try (RepoWrapper repository = new RepoWrapper(root, "master")) {
+			commitVersion(repository, "1");
+			RevCommit secondCommit = commitVersion(repository, "2");
+			assertCommitIndexMatchesFilter(repository, messages);
+			// new branch
+			repository.createBranchFromCurrentCommit("side");
+			repository.checkoutBranch("side");
+			commitVersion(repository, "3");
+			assertCommitIndexMatchesFilter(repository, messages);
+			// new commit on top of an indexed tip
+			repository.checkoutBranch("master");
+			commitVersion(repository, "4");
+			assertCommitIndexMatchesFilter(repository, messages);
+			// reset, the previously indexed tip is not reachable anymore
+			repository.resetRef("master", secondCommit);
+			assertCommitIndexMatchesFilter(repository, messages);
+			assertFalse(repository.existsRevWithCommitMessage("4"));
+			// deleted branch
+			repository.deleteRef("side");
+			assertCommitIndexMatchesFilter(repository, messages);
+			assertFalse(repository.existsRevWithCommitMessage("3"));
+		} finally {
+			MiscHelper.deleteDirectory(root);
+		}
+	}
+}
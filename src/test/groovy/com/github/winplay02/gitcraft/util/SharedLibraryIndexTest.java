@@ -0,0 +1,86 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.github.winplay02.gitcraft.GitCraftTestingFs;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith({GitCraftTestingFs.class})
+public class SharedLibraryIndexTest {
+
+	private interface LibraryTest {
+		void run(Path root) throws IOException;
+	}
+
+	private static void withLibraryDirectory(LibraryTest test) throws IOException {
+		Path root = Files.createTempDirectory("gitcraft-libraries");
+		try {
+			test.run(root);
+		} finally {
+			MiscHelper.deleteDirectory(root);
+		}
+	}
+
+	@Test
+	public void identicalLibrariesAreOpenedOnce() throws IOException {
+		withLibraryDirectory(root -> {
+			Path library = root.resolve("library.jar");
+			ZipExtractorTest.writeArchive(library, Map.of("pkg/A.class", "a", "pkg/sub/B.class", "b"));
+			Path copiedLibrary = Files.copy(library, root.resolve("copied-library.jar"));
+			Path otherLibrary = root.resolve("other-library.jar");
+			ZipExtractorTest.writeArchive(otherLibrary, Map.of("pkg/A.class", "other"));
+			try (SharedLibraryIndex.Handles handles = SharedLibraryIndex.acquireAll(List.of(library, copiedLibrary, otherLibrary))) {
+				SharedLibraryIndex.Handle handle = handles.handles().get(0);
+				SharedLibraryIndex.Handle copiedHandle = handles.handles().get(1);
+				SharedLibraryIndex.Handle otherHandle = handles.handles().get(2);
+				// libraries are looked up by their contents, not by their path
+				assertSame(handle.root().getFileSystem(), copiedHandle.root().getFileSystem());
+				assertEquals(library, copiedHandle.jar());
+				assertNotEquals(handle.root().getFileSystem(), otherHandle.root().getFileSystem());
+				assertEquals("b", Files.readString(copiedHandle.root().resolve("pkg/sub/B.class")));
+				assertEquals("other", Files.readString(otherHandle.root().resolve("pkg/A.class")));
+			}
+		});
+	}
+
+	@Test
+	public void attachmentsAreSharedAndOutliveReferences() throws IOException {
+		withLibraryDirectory(root -> {
+			Path library = root.resolve("library.jar");
+			ZipExtractorTest.writeArchive(library, Map.of("pkg/A.class", "a"));
+			AtomicInteger derivations = new AtomicInteger();
+			Object attachment;
+			try (SharedLibraryIndex.Handle handle = SharedLibraryIndex.acquire(library); SharedLibraryIndex.Handle sharedHandle = SharedLibraryIndex.acquire(root.resolve(".").resolve("library.jar"))) {
+				attachment = handle.attachment("index", libraryRoot -> {
+					derivations.incrementAndGet();
+					return Files.exists(libraryRoot.resolve("pkg/A.class"));
+				});
+				assertSame(attachment, sharedHandle.attachment("index", libraryRoot -> derivations.incrementAndGet() > 0));
+				handle.close();
+				// closing a handle twice does not release the reference of another handle
+				handle.close();
+				assertEquals("a", Files.readString(sharedHandle.root().resolve("pkg/A.class")));
+			}
+			assertEquals(Boolean.TRUE, attachment);
+			// released libraries stay open for later users, together with their attachments
+			try (SharedLibraryIndex.Handle handle = SharedLibraryIndex.acquire(library)) {
+				assertTrue(handle.root().getFileSystem().isOpen());
+				assertSame(attachment, handle.attachment("index", libraryRoot -> derivations.incrementAndGet() > 0));
+				assertFalse(handle.attachment("other", libraryRoot -> Files.exists(libraryRoot.resolve("pkg/B.class"))));
+			}
+			assertEquals(1, derivations.get());
+		});
+	}
+}
@@ -0,0 +1,89 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.github.winplay02.gitcraft.GitCraftTestingFs;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith({GitCraftTestingFs.class})
+public class TreeCommitBuilderTest {
+
+	@Test
+	public void treeCommitBuilderMatchesWorkingTreeCommit() throws Exception {
+		Path root = Files.createTempDirectory("gitcraft-tree-commit");
+		try {
+			Path sources = root.resolve("sources");
+			Files.createDirectories(sources.resolve("nested"));
+			Files.writeString(sources.resolve("Main.java"), "class Main {}");
+			Files.writeString(sources.resolve("nested").resolve("values.json"), "{\"b\": 1, \"a\": 2}");
+			// larger than the buffer of the object inserter, so the content is streamed
+			Files.writeString(sources.resolve("nested").resolve("Large.java"), "class Large {}\n".repeat(1 << 16));
+			Path script = Files.writeString(sources.resolve("run.sh"), "#!/bin/sh\n");
+			assertTrue(script.toFile().setExecutable(true));
+			Path archive = root.resolve("data.zip");
+			Map<String, String> archiveEntries = new LinkedHashMap<>();
+			archiveEntries.put("data/", "");
+			archiveEntries.put("data/minecraft/recipe.json", "{\"type\": \"crafting\"}");
+			archiveEntries.put("data/minecraft/structure.snbt", "{}");
+			archiveEntries.put("data/minecraft/large.snbt", "{}\n".repeat(1 << 16));
+			archiveEntries.put("assets/ignored.txt", "ignored");
+			ZipExtractorTest.writeArchive(archive, archiveEntries);
+
+			Date date = new Date(0L);
+			TimeZone timeZone = TimeZone.getTimeZone("UTC");
+			PersonIdent author = new PersonIdent("GitCraft", "gitcraft@example.com", date.toInstant(), timeZone.toZoneId());
+			ObjectId workingTreeCommit;
+			ObjectId treeBuilderCommit;
+			try (RepoWrapper workingTreeRepo = new RepoWrapper(root.resolve("working-tree"), "master"); RepoWrapper treeBuilderRepo = new RepoWrapper(root.resolve("tree-builder"), "master")) {
+				for (int commit = 0; commit < 2; ++commit) {
+					if (commit == 1) {
+						// second commit changes a file and removes another one
+						Files.writeString(sources.resolve("Main.java"), "class Main { int field; }");
+						Files.delete(sources.resolve("nested").resolve("values.json"));
+					}
+					workingTreeRepo.clearWorkingTree();
+					MiscHelper.copyLargeDir(sources, workingTreeRepo.getRootPath().resolve("minecraft"), ZipExtractorTest.UPPERCASE_JSON_TRANSFORMER);
+					ZipExtractor.extract(archive, "data", workingTreeRepo.getRootPath().resolve("data"), null, ZipExtractorTest.UPPERCASE_JSON_TRANSFORMER);
+					workingTreeRepo.createCommitUsingAllChanges(author.getName(), author.getEmailAddress(), date, timeZone, "commit " + commit);
+
+					try (TreeCommitBuilder treeCommitBuilder = treeBuilderRepo.createTreeCommitBuilder(ZipExtractorTest.UPPERCASE_JSON_TRANSFORMER)) {
+						for (Path file : MiscHelper.listRecursively(sources)) {
+							if (Files.isRegularFile(file)) {
+								treeCommitBuilder.addFile(file, "minecraft/" + sources.relativize(file).toString().replace(File.separatorChar, '/'));
+							}
+						}
+						treeCommitBuilder.addArchive(archive, "data", "data", null);
+						treeCommitBuilder.commit(author, "commit " + commit);
+					}
+				}
+				workingTreeCommit = workingTreeRepo.getGit().getRepository().resolve(Constants.HEAD);
+				treeBuilderCommit = treeBuilderRepo.getGit().getRepository().resolve(Constants.HEAD);
+				try (RevWalk workingTreeWalk = new RevWalk(workingTreeRepo.getGit().getRepository()); RevWalk treeBuilderWalk = new RevWalk(treeBuilderRepo.getGit().getRepository())) {
+					RevCommit workingTreeHead = workingTreeWalk.parseCommit(workingTreeCommit);
+					RevCommit treeBuilderHead = treeBuilderWalk.parseCommit(treeBuilderCommit);
+					assertEquals(workingTreeHead.getTree().getId(), treeBuilderHead.getTree().getId());
+					assertEquals(workingTreeWalk.parseCommit(workingTreeHead.getParent(0)).getTree().getId(), treeBuilderWalk.parseCommit(treeBuilderHead.getParent(0)).getTree().getId());
+				}
+			}
+			// identical trees, parents, authors and messages result in identical commits
+			assertEquals(workingTreeCommit, treeBuilderCommit);
+		} finally {
+			MiscHelper.deleteDirectory(root);
+		}
+	}
+}
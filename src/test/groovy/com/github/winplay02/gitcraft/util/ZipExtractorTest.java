@@ -0,0 +1,127 @@
+package com.github.winplay02.gitcraft.util;
+
+import com.github.winplay02.gitcraft.GitCraftTestingFs;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith({GitCraftTestingFs.class})
+public class ZipExtractorTest {
+
+	static void writeArchive(Path archive, Map<String, String> entries) throws IOException {
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(archive))) {
+			for (Map.Entry<String, String> entry : entries.entrySet()) {
+				zipOutputStream.putNextEntry(new ZipEntry(entry.getKey()));
+				zipOutputStream.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+				zipOutputStream.closeEntry();
+			}
+		}
+	}
+
+	static final MiscHelper.PathContentTransformer UPPERCASE_JSON_TRANSFORMER = new MiscHelper.PathContentTransformer() {
+		@Override
+		public boolean shouldTransform(Path path) {
+			return path.toString().endsWith(".json");
+		}
+
+		@Override
+		public byte[] transform(Path path, byte[] content) {
+			return new String(content, StandardCharsets.UTF_8).toUpperCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+		}
+	};
+
+	@Test
+	public void zipExtractorPrefixAndFilter() throws Exception {
+		Path root = Files.createTempDirectory("gitcraft-zip-extractor");
+		try {
+			Path archive = root.resolve("archive.zip");
+			Map<String, String> archiveEntries = new LinkedHashMap<>();
+			archiveEntries.put("data/", "");
+			archiveEntries.put("data/minecraft/recipe.json", "{}");
+			archiveEntries.put("data/minecraft/structure.nbt", "nbt");
+			archiveEntries.put("data-other/file.txt", "other");
+			archiveEntries.put("assets/lang.json", "{}");
+			writeArchive(archive, archiveEntries);
+
+			// prefix is stripped, and only matches whole directories
+			Path dataTarget = root.resolve("data");
+			assertEquals(2, ZipExtractor.extract(archive, "./data", dataTarget, null));
+			assertEquals("{}", Files.readString(dataTarget.resolve("minecraft").resolve("recipe.json")));
+			assertEquals("nbt", Files.readString(dataTarget.resolve("minecraft").resolve("structure.nbt")));
+			assertFalse(Files.exists(dataTarget.resolve("file.txt")));
+			assertFalse(Files.exists(dataTarget.resolve("data-other")));
+
+			// filter is applied to the names relative to the prefix
+			Path filteredTarget = root.resolve("filtered");
+			assertEquals(1, ZipExtractor.extract(archive, "data/", filteredTarget, name -> name.endsWith(".nbt")));
+			assertTrue(Files.exists(filteredTarget.resolve("minecraft").resolve("structure.nbt")));
+			assertFalse(Files.exists(filteredTarget.resolve("minecraft").resolve("recipe.json")));
+
+			// whole archive
+			Path fullTarget = root.resolve("full");
+			assertEquals(4, ZipExtractor.extract(archive, "", fullTarget, null));
+			assertEquals("other", Files.readString(fullTarget.resolve("data-other").resolve("file.txt")));
+			assertTrue(ZipExtractor.containsDirectory(archive, "assets"));
+			assertFalse(ZipExtractor.containsDirectory(archive, "dat"));
+		} finally {
+			MiscHelper.deleteDirectory(root);
+		}
+	}
+
+	@Test
+	public void zipExtractorUpToDate() throws Exception {
+		Path root = Files.createTempDirectory("gitcraft-zip-extractor");
+		try {
+			Path archive = root.resolve("archive.zip");
+			writeArchive(archive, Map.of("a.txt", "a", "b.json", "{\"b\": 1}", "nested/c.txt", "c"));
+			Path target = root.resolve("target");
+			assertEquals(3, ZipExtractor.extract(archive, "", target, null));
+			// unchanged files are not written again
+			assertEquals(0, ZipExtractor.extract(archive, "", target, null));
+			// changed files (same size, different content) and missing files are written again
+			Files.writeString(target.resolve("a.txt"), "x");
+			Files.delete(target.resolve("nested").resolve("c.txt"));
+			assertEquals(2, ZipExtractor.extract(archive, "", target, null));
+			assertEquals("a", Files.readString(target.resolve("a.txt")));
+			assertEquals("c", Files.readString(target.resolve("nested").resolve("c.txt")));
+			// transformed files are compared by their transformed content
+			assertEquals(1, ZipExtractor.extract(archive, "", target, null, UPPERCASE_JSON_TRANSFORMER));
+			assertEquals("{\"B\": 1}", Files.readString(target.resolve("b.json")));
+			assertEquals(0, ZipExtractor.extract(archive, "", target, null, UPPERCASE_JSON_TRANSFORMER));
+		} finally {
+			MiscHelper.deleteDirectory(root);
+		}
+	}
+
+	@Test
+	public void zipExtractorRejectsEntriesOutsideOfTarget() throws Exception {
+		Path root = Files.createTempDirectory("gitcraft-zip-extractor");
+		try {
+			Path archive = root.resolve("archive.zip");
+			Map<String, String> archiveEntries = new LinkedHashMap<>();
+			archiveEntries.put("data/safe.txt", "safe");
+			archiveEntries.put("data/../../escaped.txt", "escaped");
+			writeArchive(archive, archiveEntries);
+			Path target = root.resolve("nested").resolve("target");
+			assertThrows(RuntimeException.class, () -> ZipExtractor.extract(archive, "data", target, null));
+			assertFalse(Files.exists(root.resolve("escaped.txt")));
+			assertFalse(Files.exists(target.resolve("safe.txt")));
+		} finally {
+			MiscHelper.deleteDirectory(root);
+		}
+	}
+}